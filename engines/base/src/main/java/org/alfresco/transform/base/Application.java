@@ -33,7 +33,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.retry.annotation.EnableRetry;
@@ -50,9 +52,11 @@ public class Application
     private String containerName;
 
     @Bean
-    public TaskExecutor taskExecutor()
+    public TaskExecutor taskExecutor(Environment environment)
     {
-        return new SimpleAsyncTaskExecutor();
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor();
+        taskExecutor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        return taskExecutor;
     }
 
     @Bean
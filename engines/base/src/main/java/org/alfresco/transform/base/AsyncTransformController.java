@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base;
+
+import org.alfresco.transform.base.logging.LogEntry;
+import org.alfresco.transform.base.transform.AsyncTransformExecutor;
+import org.alfresco.transform.base.transform.TransformHandler;
+import org.alfresco.transform.exceptions.TransformException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.alfresco.transform.base.fs.FileManager.createSourceFile;
+import static org.alfresco.transform.base.fs.FileManager.createTargetFile;
+import static org.alfresco.transform.common.RequestParamMap.DIRECT_ACCESS_URL;
+import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_TRANSFORM;
+import static org.alfresco.transform.common.RequestParamMap.FILE;
+import static org.alfresco.transform.common.RequestParamMap.SOURCE_MIMETYPE;
+import static org.alfresco.transform.common.RequestParamMap.TARGET_MIMETYPE;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
+
+/**
+ * Replaces the {@link TransformController} endpoint that uploads the content and downloads the result with one that
+ * runs the transform on the {@link AsyncTransformExecutor}, when {@code transform.http.async.enabled}. The servlet
+ * container's thread is released once the request has been queued and the result is written by an async dispatch.
+ */
+@Controller
+@ConditionalOnProperty(name = "transform.http.async.enabled", havingValue = "true")
+public class AsyncTransformController
+{
+    @Autowired
+    private TransformController transformController;
+    @Autowired
+    private TransformHandler transformHandler;
+    @Autowired
+    private AsyncTransformExecutor asyncTransformExecutor;
+
+    // Also requiring the mimetype params makes this mapping more specific than the one in the TransformController, so
+    // it is selected for all valid requests. Requests without them still get the TransformController's error response.
+    @PostMapping(value = ENDPOINT_TRANSFORM, consumes = MULTIPART_FORM_DATA_VALUE,
+        params = {SOURCE_MIMETYPE, TARGET_MIMETYPE})
+    public DeferredResult<ResponseEntity<Resource>> transform(HttpServletRequest request,
+            @RequestParam(value = FILE, required = false) MultipartFile sourceMultipartFile,
+            @RequestParam(value = SOURCE_MIMETYPE) String sourceMimetype,
+            @RequestParam(value = TARGET_MIMETYPE) String targetMimetype,
+            @RequestParam Map<String, String> requestParameters)
+    {
+        // The upload is copied to a file before the request is handed off, as the servlet container may recycle the
+        // request and its MultipartFile once it has timed out, while the transform is still queued or running.
+        File sourceFile;
+        File targetFile;
+        try
+        {
+            sourceFile = sourceMultipartFile == null
+                || !requestParameters.getOrDefault(DIRECT_ACCESS_URL, "").isBlank()
+                ? null
+                : createSourceFile(request, sourceMultipartFile, sourceMimetype);
+            targetFile = createTargetFile(request, sourceMimetype, targetMimetype);
+        }
+        finally
+        {
+            // The transform is logged by the thread that runs it, so the entry created here is not kept.
+            LogEntry.discard();
+        }
+        return asyncTransformExecutor.submit(() ->
+            transformHandler.handleHttpRequestFromFiles(sourceFile, targetFile, sourceMimetype,
+                targetMimetype, requestParameters, transformController.getProbeTransform()));
+    }
+
+    @ExceptionHandler(TransformException.class)
+    public ModelAndView handleTransformException(HttpServletResponse response, TransformException e)
+            throws IOException
+    {
+        return transformController.handleTransformException(response, e);
+    }
+}
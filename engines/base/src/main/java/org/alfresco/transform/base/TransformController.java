@@ -28,6 +28,7 @@ package org.alfresco.transform.base;
 
 import org.alfresco.transform.base.logging.LogEntry;
 import org.alfresco.transform.base.probes.ProbeTransform;
+import org.alfresco.transform.base.registry.TransformConfigResponses;
 import org.alfresco.transform.base.registry.TransformRegistry;
 import org.alfresco.transform.base.transform.TransformHandler;
 import org.alfresco.transform.client.model.TransformReply;
@@ -43,6 +44,7 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -51,6 +53,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -72,6 +75,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static java.text.MessageFormat.format;
 import static org.alfresco.transform.base.html.OptionsHelper.getOptionNames;
+import static org.alfresco.transform.common.RequestParamMap.CONFIG_DELTA_SINCE;
 import static org.alfresco.transform.common.RequestParamMap.CONFIG_VERSION;
 import static org.alfresco.transform.common.RequestParamMap.CONFIG_VERSION_DEFAULT;
 import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_ERROR;
@@ -87,6 +91,10 @@ import static org.alfresco.transform.common.RequestParamMap.FILE;
 import static org.alfresco.transform.common.RequestParamMap.SOURCE_MIMETYPE;
 import static org.alfresco.transform.common.RequestParamMap.TARGET_MIMETYPE;
 import static org.alfresco.transform.config.CoreVersionDecorator.setOrClearCoreVersion;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.VARY;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
@@ -103,12 +111,15 @@ public class TransformController
     private static final String MODEL_PROXY_PATH_PREFIX = "proxyPathPrefix";
     private static final String MODEL_MESSAGE = "message";
     private static final String X_ALFRESCO_RETRY_NEEDED_HEADER = "X-Alfresco-Retry-Needed";
+    private static final String X_ALFRESCO_CONFIG_DELTA_SINCE_HEADER = "X-Alfresco-Config-Delta-Since";
 
     @Autowired(required = false)
     private List<TransformEngine> transformEngines;
     @Autowired
     private TransformRegistry transformRegistry;
     @Autowired
+    private TransformConfigResponses transformConfigResponses;
+    @Autowired
     TransformHandler transformHandler;
     @Autowired
     private String coreVersion;
@@ -262,13 +273,71 @@ public class TransformController
         return probeTransform.get();
     }
 
+    /**
+     * Returns the transform config from a cache of serialised responses, so frequent polls cost little. Clients may
+     * supply the ETag of an earlier response in an {@code If-None-Match} header to get a 304 if it has not changed,
+     * or as the {@code deltaSince} parameter to get only the changes.
+     */
     @GetMapping(value = ENDPOINT_TRANSFORM_CONFIG)
-    public ResponseEntity<TransformConfig> transformConfig(
-            @RequestParam(value = CONFIG_VERSION, defaultValue = CONFIG_VERSION_DEFAULT) int configVersion)
+    public ResponseEntity<byte[]> transformConfig(
+            @RequestParam(value = CONFIG_VERSION, defaultValue = CONFIG_VERSION_DEFAULT) int configVersion,
+            @RequestParam(value = CONFIG_DELTA_SINCE, required = false) String deltaSince,
+            @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ACCEPT_ENCODING, required = false) String acceptEncoding)
     {
         logger.info("GET Transform Config version: " + configVersion);
-        TransformConfig transformConfig = transformRegistry.getTransformConfig();
-        transformConfig = setOrClearCoreVersion(transformConfig, configVersion);
+        TransformConfigResponses.Response response = transformConfigResponses.getResponse(
+            transformRegistry.getTransformConfig(), configVersion);
+
+        // Each variant of the body has its own ETag, so that caches do not mistake one for another.
+        boolean gzip = response.getGzip() != null && acceptEncoding != null &&
+            acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder builder;
+        byte[] body;
+        String eTag;
+        if (response.matches(ifNoneMatch))
+        {
+            builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+            body = null;
+            eTag = gzip ? response.getGzipETag() : response.getETag();
+        }
+        else
+        {
+            builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            byte[] delta = deltaSince == null ? null : transformConfigResponses.getDelta(response, deltaSince);
+            if (delta != null)
+            {
+                builder.header(X_ALFRESCO_CONFIG_DELTA_SINCE_HEADER, deltaSince);
+                body = delta;
+                eTag = response.getDeltaETag(deltaSince);
+            }
+            else if (gzip)
+            {
+                builder.header(CONTENT_ENCODING, "gzip");
+                body = response.getGzip();
+                eTag = response.getGzipETag();
+            }
+            else
+            {
+                body = response.getJson();
+                eTag = response.getETag();
+            }
+        }
+        builder.eTag(eTag).header(VARY, ACCEPT_ENCODING);
+        if (transformRegistry.isRecoveryModeOn())
+        {
+            builder.header(X_ALFRESCO_RETRY_NEEDED_HEADER, "RecoveryModeOn");
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * @return the transform config that would be returned by the {@code /transform/config} endpoint.
+     */
+    public ResponseEntity<TransformConfig> transformConfig(int configVersion)
+    {
+        TransformConfig transformConfig = transformConfigResponses.getResponse(
+            transformRegistry.getTransformConfig(), configVersion).getConfig();
 
         if (transformRegistry.isRecoveryModeOn())
         {
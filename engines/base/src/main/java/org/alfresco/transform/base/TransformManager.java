@@ -87,4 +87,11 @@ public interface TransformManager
     // the logging to include the index. We may also wish to modify the client data or just make the index available
     // in the message.
     OutputStream respondWithFragment(Integer index, boolean finished) throws IOException;
+
+    /**
+     * @return {@code true} if {@link #respondWithFragment(Integer, boolean)} may be called, so that a
+     *         {@link CustomTransformer} that would return fragments may reject a request before doing any work.
+     *         Fragments may only be returned to requests on queues, and only by the final step of a pipeline.
+     */
+    boolean isRespondWithFragmentSupported();
 }
@@ -85,18 +85,31 @@ public class MTLSConfig {
     @Value("${client.ssl.hostname-verification-disabled:false}")
     private boolean hostNameVerificationDisabled;
 
+    @Value("${client.http.max-connections-per-destination:64}")
+    private int maxConnectionsPerDestination;
+
+    @Value("${client.http.idle-timeout:30000}")
+    private long idleTimeout;
+
+    @Value("${client.http.response-buffer-size:16384}")
+    private int responseBufferSize;
+
     @Bean
     public WebClientBuilderAdjuster webClientBuilderAdjuster(SslContextFactory.Client sslContextFactory)
     {
         return builder -> {
+            ClientConnector clientConnector = new ClientConnector();
             if(isTlsOrMtlsConfigured())
             {
-                ClientConnector clientConnector = new ClientConnector();
                 clientConnector.setSslContextFactory(sslContextFactory);
-                HttpClient httpClientWithSslContext = new HttpClient(new HttpClientTransportDynamic(clientConnector));
-
-                builder.clientConnector(new JettyClientHttpConnector(httpClientWithSslContext));
             }
+            HttpClient httpClient = new HttpClient(new HttpClientTransportDynamic(clientConnector));
+            // Connections are kept alive in a pool for each destination, so are reused by later requests
+            httpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+            httpClient.setIdleTimeout(idleTimeout);
+            httpClient.setResponseBufferSize(responseBufferSize);
+
+            builder.clientConnector(new JettyClientHttpConnector(httpClient));
         };
     }
 
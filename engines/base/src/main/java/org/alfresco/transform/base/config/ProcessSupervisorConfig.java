@@ -0,0 +1,79 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.alfresco.transform.base.executors.ProcessSupervisor;
+import org.alfresco.transform.base.executors.RuntimeExec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Gives the processes run by {@link RuntimeExec} a {@link ProcessSupervisor} that records metrics in the
+ * application's {@link MeterRegistry} and uses the {@code transform.process} properties. The output of processes is
+ * read by virtual threads if they are enabled (see {@link ThreadingConfig}).
+ */
+@Configuration
+public class ProcessSupervisorConfig
+{
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private Environment environment;
+
+    @Value("${transform.process.kill-grace-period}")
+    private Duration killGracePeriod;
+    @Value("${transform.process.output-max-size}")
+    private DataSize outputMaxSize;
+    @Value("${transform.process.stderr-max-size}")
+    private DataSize stdErrMaxSize;
+
+    @PostConstruct
+    public void init()
+    {
+        RuntimeExec.setProcessSupervisor(
+            new ProcessSupervisor(meterRegistry, killGracePeriod, outputMaxSize.toBytes(),
+                (int) stdErrMaxSize.toBytes(), Threading.VIRTUAL.isActive(environment)
+                    ? new VirtualThreadTaskExecutor("process-output-").getVirtualThreadFactory()
+                    : null));
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        RuntimeExec.setProcessSupervisor(null);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Switches the threads that are mostly blocked on I/O to virtual threads when {@code spring.threads.virtual.enabled}
+ * is set and the JVM is Java 21 or later. Spring Boot itself does this for the servlet container. The base t-engine
+ * does it for the JMS listeners (see MessagingConfig), the {@code @Async} TaskExecutor (see Application) and the
+ * threads that read the output of processes (see ProcessSupervisorConfig). On earlier JVMs platform threads are used.
+ */
+@Configuration
+public class ThreadingConfig
+{
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    private final Environment environment;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    public ThreadingConfig(Environment environment)
+    {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if (Threading.VIRTUAL.isActive(environment))
+        {
+            logger.info("Using virtual threads");
+        }
+        else if (virtualThreadsRequested)
+        {
+            logger.warn("Virtual threads require Java 21 or later, so platform threads are used on Java {}",
+                Runtime.version().feature());
+        }
+    }
+}
@@ -46,18 +46,29 @@ public abstract class AbstractCommandExecutor implements CommandExecutor
 
     @Override
     public void run(Map<String, String> properties, File targetFile, Long timeout)
+    {
+        run(transformCommand, properties, timeout, targetFile);
+    }
+
+    /**
+     * Runs a command other than the {@code transformCommand}, such as one that creates several target files.
+     */
+    protected void run(RuntimeExec command, Map<String, String> properties, Long timeout, File... targetFiles)
     {
         timeout = timeout != null && timeout > 0 ? timeout : 0;
-        final ExecutionResult result = transformCommand.execute(properties, timeout);
+        final ExecutionResult result = command.execute(properties, timeout);
 
         if (result.getExitValue() != 0 && result.getStdErr() != null && result.getStdErr().length() > 0)
         {
             throw new TransformException(BAD_REQUEST, "Transformer exit code was not 0: \n" + result.getStdErr());
         }
 
-        if (!targetFile.exists() || targetFile.length() == 0)
+        for (File targetFile : targetFiles)
         {
-            throw new TransformException(INTERNAL_SERVER_ERROR, "Transformer failed to create an output file");
+            if (!targetFile.exists() || targetFile.length() == 0)
+            {
+                throw new TransformException(INTERNAL_SERVER_ERROR, "Transformer failed to create an output file");
+            }
         }
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.executors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains an output stream of a process, so that the process is never blocked writing to a full pipe, while only
+ * keeping the first {@code maxBytes} in memory. Nothing is written to disk. The number of bytes read is added to a
+ * total shared with the other output stream of the process, so that a process writing too much may be killed.
+ */
+class ProcessOutput implements Runnable
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final int maxBytes;
+    private final AtomicLong totalBytes;
+    private final Runnable onRead;
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private byte[] bytes = new byte[0];
+    private int length;
+    private long dropped;
+    private volatile String failure;
+
+    /**
+     * @param totalBytes the bytes read from all the output streams of the process.
+     * @param onRead called after bytes have been read and added to {@code totalBytes}.
+     */
+    ProcessOutput(InputStream inputStream, int maxBytes, AtomicLong totalBytes, Runnable onRead)
+    {
+        this.inputStream = inputStream;
+        this.maxBytes = maxBytes;
+        this.totalBytes = totalBytes;
+        this.onRead = onRead;
+    }
+
+    @Override
+    public void run()
+    {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = inputStream)
+        {
+            int count;
+            while ((count = is.read(buffer)) != -1)
+            {
+                append(buffer, count);
+                totalBytes.addAndGet(count);
+                onRead.run();
+            }
+        }
+        catch (IOException e)
+        {
+            failure = e.getMessage();
+        }
+        finally
+        {
+            // The stream has been consumed, so release any waiters
+            completed.countDown();
+        }
+    }
+
+    private synchronized void append(byte[] buffer, int count)
+    {
+        int kept = Math.min(count, maxBytes - length);
+        if (kept > 0)
+        {
+            if (length + kept > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, Math.min(maxBytes, Math.max(length + kept, bytes.length * 2)));
+            }
+            System.arraycopy(buffer, 0, bytes, length, kept);
+            length += kept;
+        }
+        dropped += count - kept;
+    }
+
+    /**
+     * Waits for the end of the stream, which is normally reached soon after the process exits, unless a process it
+     * started is still running and has inherited the stream.
+     *
+     * @return {@code true} if the end of the stream was reached.
+     */
+    boolean await(long timeoutMs) throws InterruptedException
+    {
+        return completed.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the output read so far, with a note of how much more there was.
+     */
+    synchronized String get(Charset charset)
+    {
+        String output = new String(bytes, 0, length, charset);
+        if (dropped > 0)
+        {
+            output += "\n... (" + dropped + " more bytes)";
+        }
+        if (failure != null)
+        {
+            output += "\nUnable to read the output of the process: " + failure;
+        }
+        return output;
+    }
+}
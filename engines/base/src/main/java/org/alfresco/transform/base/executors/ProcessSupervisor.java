@@ -0,0 +1,328 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.executors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Supervises the processes started by {@link RuntimeExec}, using {@link Process#onExit()} and a single shared
+ * scheduler thread rather than a timer per process.
+ * <p>
+ * A process that runs for longer than its timeout is killed, together with any processes it has started. Each is
+ * first asked to terminate (SIGTERM on Unix) and is then forcibly killed (SIGKILL) if still alive after the grace
+ * period.
+ * <p>
+ * The standard output and error of each process are drained by two reader threads from a shared pool, rather than
+ * going to disk. Only the first {@code stdErrMaxBytes} of the standard error is kept. A process that writes more than
+ * {@code outputMaxBytes} in total is killed in the same way, so neither the heap nor the disk fill up if it runs away.
+ * <p>
+ * The following metrics are recorded, tagged with the name of the command: {@code transform.process.spawned},
+ * {@code transform.process.timed.out}, {@code transform.process.output.exceeded},
+ * {@code transform.process.killed} (forcibly), {@code transform.process.wall.time}
+ * and {@code transform.process.cpu.time}. As the operating system does not provide the CPU time of a process once it
+ * has exited, it is sampled while the process runs, so is a lower bound for short-lived processes.
+ */
+public class ProcessSupervisor
+{
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+
+    private static final long CPU_SAMPLE_PERIOD_MS = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration killGracePeriod;
+    private final long outputMaxBytes;
+    private final int stdErrMaxBytes;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService outputReaders;
+
+    /**
+     * Records metrics in the global registry, which does nothing unless registries have been added to it.
+     */
+    public ProcessSupervisor()
+    {
+        this(Metrics.globalRegistry, Duration.ofSeconds(5), 10 * 1024 * 1024, 64 * 1024, null);
+    }
+
+    /**
+     * @param killGracePeriod time a process has to terminate once asked, before it is forcibly killed.
+     * @param outputMaxBytes the maximum amount a process may write to its standard output and error, before it is
+     *                       killed.
+     * @param stdErrMaxBytes the maximum amount of the standard error of a process that is kept.
+     * @param outputReaderThreadFactory creates the threads that read the output of processes, so that they may be
+     *                                  virtual threads. {@code null} uses daemon platform threads.
+     */
+    public ProcessSupervisor(MeterRegistry meterRegistry, Duration killGracePeriod, long outputMaxBytes,
+        int stdErrMaxBytes, ThreadFactory outputReaderThreadFactory)
+    {
+        this.meterRegistry = meterRegistry;
+        this.killGracePeriod = killGracePeriod;
+        this.outputMaxBytes = outputMaxBytes;
+        this.stdErrMaxBytes = stdErrMaxBytes;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("process-supervisor-");
+        threadFactory.setDaemon(true); // must not hold up the VM if it is terminating
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        if (outputReaderThreadFactory == null)
+        {
+            CustomizableThreadFactory readerThreadFactory = new CustomizableThreadFactory("process-output-");
+            readerThreadFactory.setDaemon(true);
+            outputReaderThreadFactory = readerThreadFactory;
+        }
+        this.outputReaders = Executors.newCachedThreadPool(outputReaderThreadFactory);
+    }
+
+    public long getOutputMaxBytes()
+    {
+        return outputMaxBytes;
+    }
+
+    public void shutdown()
+    {
+        scheduler.shutdown();
+        outputReaders.shutdown();
+    }
+
+    /**
+     * Starts supervising a process that has just been started.
+     *
+     * @param timeoutMs after which the process is killed. Ignored if less than or equal to zero.
+     */
+    public Supervised supervise(Process process, String[] command, long timeoutMs)
+    {
+        return new Supervised(process, command, timeoutMs);
+    }
+
+    /**
+     * Asks the process and its descendants to terminate, and forcibly kills any that are still alive after the grace
+     * period.
+     */
+    void destroyTree(ProcessHandle processHandle, String commandName)
+    {
+        // Collected before the process is destroyed, as its children are then no longer its descendants.
+        List<ProcessHandle> tree = Stream.concat(processHandle.descendants(), Stream.of(processHandle))
+            .collect(Collectors.toList());
+        tree.forEach(ProcessHandle::destroy);
+        scheduler.schedule(() -> tree.stream()
+            .filter(ProcessHandle::isAlive)
+            .forEach(handle ->
+            {
+                logger.debug("Forcibly killing process {} ({})", handle.pid(), commandName);
+                if (handle.destroyForcibly())
+                {
+                    counter("transform.process.killed", "Processes forcibly killed", commandName).increment();
+                }
+            }), killGracePeriod.toMillis(), MILLISECONDS);
+    }
+
+    private Counter counter(String name, String description, String commandName)
+    {
+        return Counter.builder(name)
+            .description(description)
+            .tag("command", commandName)
+            .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String description, String commandName)
+    {
+        return Timer.builder(name)
+            .description(description)
+            .tag("command", commandName)
+            .register(meterRegistry);
+    }
+
+    private static String getCommandName(String[] command)
+    {
+        return command == null || command.length == 0 || command[0] == null
+            ? "unknown"
+            : new File(command[0]).getName();
+    }
+
+    /**
+     * A process being supervised.
+     */
+    public class Supervised
+    {
+        private final Process process;
+        private final String commandName;
+        private final long timeoutMs;
+        private final long startNanos = System.nanoTime();
+        private final AtomicReference<Duration> cpuTime = new AtomicReference<>();
+        private final ScheduledFuture<?> cpuSampler;
+        private final ScheduledFuture<?> timeout;
+        private final AtomicLong outputBytes = new AtomicLong();
+        private final AtomicBoolean outputExceeded = new AtomicBoolean();
+        private final ProcessOutput stdOut;
+        private final ProcessOutput stdErr;
+        private volatile boolean timedOut;
+
+        private Supervised(Process process, String[] command, long timeoutMs)
+        {
+            this.process = process;
+            this.commandName = getCommandName(command);
+            this.timeoutMs = timeoutMs;
+            counter("transform.process.spawned", "Processes started", commandName).increment();
+
+            cpuSampler = scheduler.scheduleAtFixedRate(this::sampleCpuTime, CPU_SAMPLE_PERIOD_MS,
+                CPU_SAMPLE_PERIOD_MS, MILLISECONDS);
+            timeout = timeoutMs > 0
+                ? scheduler.schedule(this::timeout, timeoutMs, MILLISECONDS)
+                : null;
+            process.onExit().whenComplete((p, t) -> exited());
+
+            stdOut = new ProcessOutput(process.getInputStream(), (int) Math.min(outputMaxBytes, Integer.MAX_VALUE),
+                outputBytes, this::checkOutputSize);
+            stdErr = new ProcessOutput(process.getErrorStream(), stdErrMaxBytes, outputBytes, this::checkOutputSize);
+            outputReaders.execute(stdOut);
+            outputReaders.execute(stdErr);
+        }
+
+        private void checkOutputSize()
+        {
+            if (outputBytes.get() > outputMaxBytes && outputExceeded.compareAndSet(false, true))
+            {
+                logger.debug("Process has written more than {} bytes. Killing process {} ({})",
+                    outputMaxBytes, process.pid(), commandName);
+                counter("transform.process.output.exceeded", "Processes killed as they wrote too much output",
+                    commandName).increment();
+                destroy();
+            }
+        }
+
+        private void sampleCpuTime()
+        {
+            process.info().totalCpuDuration().ifPresent(cpuTime::set);
+        }
+
+        private void timeout()
+        {
+            if (process.isAlive())
+            {
+                timedOut = true;
+                sampleCpuTime();
+                logger.debug("Process has taken too long ({} seconds). Killing process {} ({})",
+                    timeoutMs / 1000, process.pid(), commandName);
+                counter("transform.process.timed.out", "Processes killed as they took too long", commandName)
+                    .increment();
+                destroyTree(process.toHandle(), commandName);
+            }
+        }
+
+        private void exited()
+        {
+            cpuSampler.cancel(false);
+            if (timeout != null)
+            {
+                timeout.cancel(false);
+            }
+            timer("transform.process.wall.time", "Elapsed time of processes", commandName)
+                .record(System.nanoTime() - startNanos, NANOSECONDS);
+            Duration cpu = cpuTime.get();
+            if (cpu != null)
+            {
+                timer("transform.process.cpu.time", "CPU time of processes, sampled while they run", commandName)
+                    .record(cpu);
+            }
+        }
+
+        /**
+         * @return {@code true} if the process was killed because it took longer than its timeout.
+         */
+        public boolean isTimedOut()
+        {
+            return timedOut;
+        }
+
+        /**
+         * @return {@code true} if the process was killed because it wrote more than the maximum output.
+         */
+        public boolean isOutputExceeded()
+        {
+            return outputExceeded.get();
+        }
+
+        /**
+         * Waits for the output of the process to be read, once it has exited. A process it started that is still
+         * running may hold the output open, so this only waits for up to the kill grace period.
+         */
+        public void awaitOutput() throws InterruptedException
+        {
+            long deadline = System.currentTimeMillis() + killGracePeriod.toMillis();
+            if (!stdOut.await(killGracePeriod.toMillis()) ||
+                !stdErr.await(Math.max(0, deadline - System.currentTimeMillis())))
+            {
+                logger.debug("Output of process {} ({}) is still open after it exited", process.pid(), commandName);
+            }
+        }
+
+        public String getStdOut(Charset charset)
+        {
+            return stdOut.get(charset);
+        }
+
+        public String getStdErr(Charset charset)
+        {
+            return stdErr.get(charset);
+        }
+
+        /**
+         * Kills the process and its descendants, such as when the thread waiting for it has been interrupted.
+         */
+        public void destroy()
+        {
+            if (process.isAlive())
+            {
+                destroyTree(process.toHandle(), commandName);
+            }
+        }
+    }
+}
@@ -43,8 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -113,6 +112,8 @@ public class RuntimeExec
     private static final String VAR_CLOSE = "}";
     private static final String DIRECTIVE_SPLIT = "SPLIT:";
 
+    private static volatile ProcessSupervisor processSupervisor = new ProcessSupervisor();
+
     private String[] command;
     private Charset charset = Charset.defaultCharset();
     private boolean waitForCompletion = true;
@@ -120,7 +121,18 @@ public class RuntimeExec
     private String[] processProperties;
     private File processDirectory;
     private final Set<Integer> errCodes;
-    private final Timer timer = new Timer(true);
+
+    /**
+     * Sets the supervisor of executed processes, which kills those that take too long and records metrics.
+     *
+     * @param supervisor the supervisor, or {@code null} to go back to a default one that does not record metrics.
+     */
+    public static void setProcessSupervisor(ProcessSupervisor supervisor)
+    {
+        ProcessSupervisor previous = processSupervisor;
+        processSupervisor = supervisor == null ? new ProcessSupervisor() : supervisor;
+        previous.shutdown();
+    }
 
     /**
      * Default constructor.  Initialize this instance by setting individual properties.
@@ -499,14 +511,14 @@ public class RuntimeExec
 
     /**
      * Executes the statement that this instance was constructed with an optional
-     * timeout after which the command is asked to
+     * timeout after which the command and any processes it has started are killed.
      *
      * @param properties the properties that the command might be executed with.
      *                   <code>null</code> properties will be treated as an empty string for substitution
      *                   purposes.
-     * @param timeoutMs  a timeout after which {@link Process#destroy()} is called.
-     *                   ignored if less than or equal to zero. Note this method does not guarantee
-     *                   to terminate the process (it is not a kill -9).
+     * @param timeoutMs  a timeout after which the process is asked to terminate and then, if it has not done so
+     *                   within a grace period, is forcibly killed. See {@link ProcessSupervisor}.
+     *                   Ignored if less than or equal to zero.
      * @return Returns the full execution results
      */
     public ExecutionResult execute(Map<String, String> properties, final long timeoutMs)
@@ -519,41 +531,17 @@ public class RuntimeExec
             throw new RuntimeException("Runtime command has not been set: \n" + this);
         }
 
-        // create the properties
-        Runtime runtime = Runtime.getRuntime();
+        // The output of the process is read by the supervisor, which only keeps a limited amount of it.
+        ProcessSupervisor supervisor = processSupervisor;
         Process process;
         String[] commandToExecute = null;
         try
         {
             // execute the command with full property replacement
             commandToExecute = getCommand(properties);
-            final Process thisProcess = runtime.exec(commandToExecute, processProperties,
-                processDirectory);
-            process = thisProcess;
-            if (timeoutMs > 0)
-            {
-                final String[] command = commandToExecute;
-                timer.schedule(new TimerTask()
-                {
-                    @Override
-                    public void run()
-                    {
-                        // Only try to kill the process if it is still running
-                        try
-                        {
-                            thisProcess.exitValue();
-                        }
-                        catch (IllegalThreadStateException stillRunning)
-                        {
-                            logger.debug(
-                                "Process has taken too long ({} seconds). Killing process {}",
-                                timeoutMs / 1000, Arrays.deepToString(command));
-                        }
-                    }
-                }, timeoutMs);
-            }
+            process = start(commandToExecute);
         }
-        catch (IOException e)
+        catch (IOException | RuntimeException e)
         {
             // The process could not be executed here, so just drop out with an appropriate error state
             String execOut = "";
@@ -563,43 +551,43 @@ public class RuntimeExec
             logFullEnvironmentDump(result);
             return result;
         }
+        ProcessSupervisor.Supervised supervised = supervisor.supervise(process, commandToExecute, timeoutMs);
 
-        // create the stream gobblers
-        InputStreamReaderThread stdOutGobbler = new InputStreamReaderThread(
-            process.getInputStream(), charset);
-        InputStreamReaderThread stdErrGobbler = new InputStreamReaderThread(
-            process.getErrorStream(), charset);
-
-        // start gobbling
-        stdOutGobbler.start();
-        stdErrGobbler.start();
+        if (!waitForCompletion)
+        {
+            ExecutionResult result = new ExecutionResult(process, commandToExecute, errCodes, 0, "", "");
+            logFullEnvironmentDump(result);
+            return result;
+        }
 
         // wait for the process to finish
-        int exitValue = 0;
+        int exitValue;
+        String interruption = "";
         try
         {
-            if (waitForCompletion)
-            {
-                exitValue = process.waitFor();
-            }
+            exitValue = process.waitFor();
+            supervised.awaitOutput();
         }
         catch (InterruptedException e)
         {
-            // process was interrupted - generate an error message
-            stdErrGobbler.addToBuffer(e.toString());
+            // process was interrupted - generate an error message, and do not leave it running
+            supervised.destroy();
+            interruption = e.toString();
             exitValue = defaultFailureExitValue;
         }
 
-        if (waitForCompletion)
+        // get the output
+        String execOut = supervised.getStdOut(charset);
+        String execErr = supervised.getStdErr(charset);
+        if (supervised.isTimedOut())
         {
-            // ensure that the stream gobblers get to finish
-            stdOutGobbler.waitForCompletion();
-            stdErrGobbler.waitForCompletion();
+            execErr += "\nProcess killed as it took longer than " + timeoutMs + " ms";
         }
-
-        // get the stream values
-        String execOut = stdOutGobbler.getBuffer();
-        String execErr = stdErrGobbler.getBuffer();
+        if (supervised.isOutputExceeded())
+        {
+            execErr += "\nProcess killed as its output exceeded " + supervisor.getOutputMaxBytes() + " bytes";
+        }
+        execErr += interruption;
 
         // construct the return value
         ExecutionResult result = new ExecutionResult(process, commandToExecute, errCodes, exitValue,
@@ -610,6 +598,27 @@ public class RuntimeExec
         return result;
     }
 
+    private Process start(String[] commandToExecute) throws IOException
+    {
+        ProcessBuilder processBuilder = new ProcessBuilder(commandToExecute)
+            .directory(processDirectory);
+        if (processProperties != null)
+        {
+            // As with Runtime.exec(String[], String[], File), the properties replace the whole environment
+            Map<String, String> environment = processBuilder.environment();
+            environment.clear();
+            for (String property : processProperties)
+            {
+                int i = property.indexOf('=');
+                if (i > 0)
+                {
+                    environment.put(property.substring(0, i), property.substring(i + 1));
+                }
+            }
+        }
+        return processBuilder.start();
+    }
+
     /**
      * Dump the full environment in debug mode
      */
@@ -882,14 +891,19 @@ public class RuntimeExec
      * Gobbles an <code>InputStream</code> and writes it into a
      * <code>StringBuffer</code>
      * <p>
-     * The reading of the input stream is buffered.
+     * The reading of the input stream is buffered. No monitor is held while reading or waiting, so a virtual thread
+     * running or waiting for the gobbler is not pinned to its carrier thread.
+     *
+     * @deprecated no longer used by {@link RuntimeExec}, as the output of processes is read by the
+     * {@link ProcessSupervisor}, which only keeps a limited amount of it.
      */
+    @Deprecated
     public static class InputStreamReaderThread extends Thread
     {
         private final InputStream is;
         private final Charset charset;
         private final StringBuffer buffer;          // we require the synchronization
-        private boolean completed;
+        private final CountDownLatch completed = new CountDownLatch(1);
 
         /**
          * @param is an input stream to read - it will be wrapped in a buffer
@@ -902,13 +916,11 @@ public class RuntimeExec
             this.is = is;
             this.charset = charset;
             this.buffer = new StringBuffer(BUFFER_SIZE);
-            this.completed = false;
         }
 
-        public synchronized void run()
+        @Override
+        public void run()
         {
-            completed = false;
-
             byte[] bytes = new byte[BUFFER_SIZE];
             try (InputStream tempIs = new BufferedInputStream(is, BUFFER_SIZE))
             {
@@ -918,7 +930,7 @@ public class RuntimeExec
                     // do we have something previously read?
                     if (count > 0)
                     {
-                        String toWrite = new String(bytes, 0, count, charset.name());
+                        String toWrite = new String(bytes, 0, count, charset);
                         buffer.append(toWrite);
                     }
                     // read the next set of bytes
@@ -932,10 +944,8 @@ public class RuntimeExec
             }
             finally
             {
-                // The thread has finished consuming the stream
-                completed = true;
-                // Notify waiters
-                this.notifyAll();       // Note: Method is synchronized
+                // The stream has been consumed, so release any waiters
+                completed.countDown();
             }
         }
 
@@ -944,14 +954,13 @@ public class RuntimeExec
          * <p>
          * <b>Remember to <code>start</code> the thread first
          */
-        public synchronized void waitForCompletion()
+        public void waitForCompletion()
         {
-            while (!completed)
+            while (!isComplete())
             {
                 try
                 {
-                    // release our lock and wait a bit
-                    this.wait(1000L); // 200 ms
+                    completed.await();
                 }
                 catch (InterruptedException ignore)
                 {
@@ -969,7 +978,7 @@ public class RuntimeExec
 
         public boolean isComplete()
         {
-            return completed;
+            return completed.getCount() == 0;
         }
 
         /**
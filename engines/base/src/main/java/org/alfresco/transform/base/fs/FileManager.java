@@ -29,22 +29,26 @@ package org.alfresco.transform.base.fs;
 import org.alfresco.transform.base.logging.LogEntry;
 import org.alfresco.transform.common.ExtensionService;
 import org.alfresco.transform.exceptions.TransformException;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
 import static org.alfresco.transform.common.ExtensionService.getExtensionForMimetype;
 import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -81,6 +85,32 @@ public class FileManager
         }
     }
 
+    /**
+     * Creates the source file from an uploaded {@code MultipartFile}. Small uploads are held in memory by the servlet
+     * container (see {@code spring.servlet.multipart.file-size-threshold}) and are only written to disk here. Larger
+     * uploads have already been spooled to disk by the container, so its file is moved rather than copied.
+     */
+    public static File createSourceFile(HttpServletRequest request, MultipartFile sourceMultipartFile,
+        String sourceMimetype)
+    {
+        try
+        {
+            String extension = "."+getExtensionForMimetype(sourceMimetype);
+            File file = TempFileProvider.createTempFile("source_", extension);
+            sourceMultipartFile.transferTo(file);
+            if (request != null)
+            {
+                request.setAttribute(SOURCE_FILE, file);
+            }
+            LogEntry.setSource(file.getName(), file.length());
+            return file;
+        }
+        catch (Exception e)
+        {
+            throw new TransformException(INSUFFICIENT_STORAGE, "Failed to store the source file", e);
+        }
+    }
+
     public static File createTargetFile(HttpServletRequest request, String sourceMimetype, String targetMimetype)
     {
         try
@@ -110,23 +140,15 @@ public class FileManager
 
     private static Resource load(File file)
     {
-        try
+        Resource resource = new TargetFileResource(file);
+        if (resource.exists() || resource.isReadable())
         {
-            Resource resource = new UrlResource(file.toURI());
-            if (resource.exists() || resource.isReadable())
-            {
-                return resource;
-            }
-            else
-            {
-                throw new TransformException(INTERNAL_SERVER_ERROR,
-                    "Could not read the target file: " + file.getPath());
-            }
+            return resource;
         }
-        catch (MalformedURLException e)
+        else
         {
             throw new TransformException(INTERNAL_SERVER_ERROR,
-                "The target filename was malformed: " + file.getPath(), e);
+                "Could not read the target file: " + file.getPath());
         }
     }
 
@@ -195,6 +217,47 @@ public class FileManager
             "attachment; filename*=UTF-8''" + targetFilename).body(targetResource);
     }
 
+    /**
+     * A target file that the ResourceHttpMessageConverter sends to the response with {@link FileChannel#transferTo},
+     * rather than reading it into a heap buffer and writing that buffer. The response is written before the
+     * TransformInterceptor deletes the file, including for requests completed by a DeferredResult.
+     */
+    private static class TargetFileResource extends FileSystemResource
+    {
+        private TargetFileResource(File file)
+        {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            FileChannel channel = FileChannel.open(getFile().toPath(), READ);
+            return new FilterInputStream(Channels.newInputStream(channel))
+            {
+                @Override
+                public long transferTo(OutputStream out) throws IOException
+                {
+                    WritableByteChannel target = Channels.newChannel(out);
+                    long start = channel.position();
+                    long position = start;
+                    long size = channel.size();
+                    while (position < size)
+                    {
+                        long transferred = channel.transferTo(position, size - position, target);
+                        if (transferred <= 0)
+                        {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                    channel.position(position);
+                    return position - start;
+                }
+            };
+        }
+    }
+
     /**
      * TempFileProvider - Duplicated and adapted from alfresco-core.
      */
@@ -176,6 +176,16 @@ public final class LogEntry
         }
     }
 
+    /**
+     * Discards the current entry without logging it. Used when a thread hands a request off to another thread, which
+     * has its own entry.
+     */
+    public static void discard()
+    {
+        log.remove(currentLogEntry.get());
+        currentLogEntry.remove();
+    }
+
     public int getId()
     {
         return id;
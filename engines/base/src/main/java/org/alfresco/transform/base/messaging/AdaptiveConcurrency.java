@@ -0,0 +1,270 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import com.sun.management.OperatingSystemMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optionally adjusts the number of JMS listeners that transform queue requests, rather than using the static upper
+ * bound of {@code jms-listener.concurrency}, as the best value depends on the CPU quota of the t-engine and on the
+ * current mix of transforms.<p>
+ *
+ * When {@code jms-listener.adaptive.enabled}, a decision is made every {@code jms-listener.adaptive.interval}
+ * milliseconds using additive increase, multiplicative decrease:
+ * <ul>
+ *     <li>the limit is multiplied by {@code jms-listener.adaptive.backoff} if CPU utilisation is above
+ *     {@code jms-listener.adaptive.target-cpu}, there are more than {@code jms-listener.adaptive.max-processes} child
+ *     processes, or the mean transform time of the last interval is more than
+ *     {@code jms-listener.adaptive.latency-tolerance} times its long term average,</li>
+ *     <li>otherwise it is increased by one if all the listeners are busy,</li>
+ *     <li>otherwise it is left as it is.</li>
+ * </ul>
+ * The limit stays between {@code jms-listener.adaptive.min} and {@code jms-listener.adaptive.max}. Each decision is
+ * logged and the inputs and limit are exposed as {@code transform.concurrency.*} metrics. When size classes are
+ * enabled, only the listeners of the large sub-queue are adjusted.
+ */
+@Component
+@ConditionalOnProperty(name = "activemq.url")
+public class AdaptiveConcurrency
+{
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    public static final String ENGINE_REQUEST_QUEUE_LISTENER_ID = "engineRequestQueue";
+
+    private static final double LONG_TERM_WEIGHT = 0.9;
+
+    @Autowired
+    private JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
+    @Autowired
+    private QueueSizeClasses queueSizeClasses;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jms-listener.adaptive.enabled}")
+    private boolean enabled;
+    @Value("${jms-listener.adaptive.min}")
+    private int min;
+    @Value("${jms-listener.adaptive.max}")
+    private int max;
+    @Value("${jms-listener.adaptive.target-cpu}")
+    private double targetCpu;
+    @Value("${jms-listener.adaptive.max-processes}")
+    private int maxProcesses;
+    @Value("${jms-listener.adaptive.latency-tolerance}")
+    private double latencyTolerance;
+    @Value("${jms-listener.adaptive.backoff}")
+    private double backoff;
+
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder latencyCount = new LongAdder();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final OperatingSystemMXBean osBean =
+        ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+
+    private boolean started;
+    private volatile int limit;
+    private volatile double cpu;
+    private volatile long processes;
+    private volatile double shortTermLatency;
+    private volatile double longTermLatency;
+
+    @PostConstruct
+    public void init()
+    {
+        limit = max;
+        if (enabled)
+        {
+            Gauge.builder("transform.concurrency.limit", () -> limit)
+                .description("Number of JMS listeners allowed to transform queue requests")
+                .register(meterRegistry);
+            Gauge.builder("transform.concurrency.cpu", () -> cpu)
+                .description("CPU utilisation used by the last concurrency decision")
+                .register(meterRegistry);
+            Gauge.builder("transform.concurrency.processes", () -> processes)
+                .description("Child processes used by the last concurrency decision")
+                .register(meterRegistry);
+            Gauge.builder("transform.concurrency.latency.short", () -> shortTermLatency)
+                .description("Mean transform time in milliseconds during the last interval")
+                .register(meterRegistry);
+            Gauge.builder("transform.concurrency.latency.long", () -> longTermLatency)
+                .description("Long term average transform time in milliseconds")
+                .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * @return the start time of the transform of a queue request, to be passed to {@link #transformFinished(long)}.
+     */
+    public long transformStarted()
+    {
+        busy.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void transformFinished(long start)
+    {
+        busy.decrementAndGet();
+        latencySum.add(System.nanoTime() - start);
+        latencyCount.increment();
+    }
+
+    @Scheduled(initialDelayString = "${jms-listener.adaptive.interval}",
+        fixedDelayString = "${jms-listener.adaptive.interval}")
+    public void adjust()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        DefaultMessageListenerContainer container = getContainer();
+        if (container == null)
+        {
+            return;
+        }
+        if (!started)
+        {
+            limit = Math.max(min, Math.min(max, container.getMaxConcurrentConsumers()));
+            started = true;
+        }
+
+        long count = latencyCount.sumThenReset();
+        long sum = latencySum.sumThenReset();
+        double latency = count == 0 ? Double.NaN : sum / 1_000_000.0 / count;
+        decide(osBean.getCpuLoad(), ProcessHandle.current().descendants().count(), latency, busy.get());
+
+        container.setConcurrentConsumers(Math.min(container.getConcurrentConsumers(), limit));
+        container.setMaxConcurrentConsumers(limit);
+    }
+
+    /**
+     * Works out the new limit.
+     *
+     * @param cpu CPU utilisation between 0 and 1, or negative if unknown.
+     * @param processes number of child processes.
+     * @param latency mean transform time in milliseconds during the last interval, or NaN if there were none.
+     * @param active number of listeners currently transforming a request.
+     * @return the new limit.
+     */
+    int decide(double cpu, long processes, double latency, int active)
+    {
+        this.cpu = cpu;
+        this.processes = processes;
+        String reason;
+        int newLimit;
+        if (cpu > targetCpu)
+        {
+            reason = "cpu " + String.format("%.2f", cpu) + " > " + targetCpu;
+            newLimit = decrease();
+        }
+        else if (maxProcesses > 0 && processes > maxProcesses)
+        {
+            reason = "processes " + processes + " > " + maxProcesses;
+            newLimit = decrease();
+        }
+        else if (!Double.isNaN(latency) && longTermLatency > 0 && latency > longTermLatency * latencyTolerance)
+        {
+            reason = "latency " + Math.round(latency) + "ms > " + latencyTolerance + " x " +
+                Math.round(longTermLatency) + "ms";
+            newLimit = decrease();
+        }
+        else if (active >= limit)
+        {
+            reason = "all " + active + " listeners busy";
+            newLimit = Math.min(max, limit + 1);
+        }
+        else
+        {
+            reason = active + " of " + limit + " listeners busy";
+            newLimit = limit;
+        }
+
+        if (!Double.isNaN(latency))
+        {
+            shortTermLatency = latency;
+            longTermLatency = longTermLatency == 0
+                ? latency
+                : LONG_TERM_WEIGHT * longTermLatency + (1 - LONG_TERM_WEIGHT) * latency;
+        }
+
+        String action = newLimit > limit ? "increase" : newLimit < limit ? "decrease" : "hold";
+        Counter.builder("transform.concurrency.decisions")
+            .description("Decisions made about the number of JMS listeners")
+            .tag("action", action)
+            .register(meterRegistry)
+            .increment();
+        if (newLimit == limit)
+        {
+            logger.debug("JMS listener concurrency {}: {} ({})", action, newLimit, reason);
+        }
+        else
+        {
+            logger.info("JMS listener concurrency {}: {} -> {} ({})", action, limit, newLimit, reason);
+        }
+        limit = newLimit;
+        return newLimit;
+    }
+
+    private int decrease()
+    {
+        return Math.max(min, (int) (limit * backoff));
+    }
+
+    private DefaultMessageListenerContainer getContainer()
+    {
+        String id = queueSizeClasses.isEnabled()
+            ? ENGINE_REQUEST_QUEUE_LISTENER_ID + '.' + QueueSizeClasses.LARGE
+            : ENGINE_REQUEST_QUEUE_LISTENER_ID;
+        return (DefaultMessageListenerContainer) jmsListenerEndpointRegistry.getListenerContainer(id);
+    }
+}
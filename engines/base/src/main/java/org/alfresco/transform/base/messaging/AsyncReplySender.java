@@ -0,0 +1,304 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Optionally sends T-Replies on separate threads, so a listener may take its next message rather than waiting for
+ * the broker to accept its reply. Used by {@link TransformReplySender} when {@code transform.reply.async.enabled}.<p>
+ *
+ * Each of the {@code transform.reply.async.threads} sender threads has its own connection and session, and keeps a
+ * producer for each of the {@code MAX_PRODUCERS} reply destinations it used most recently. Others are closed, so
+ * temporary or per-client reply queues do not leave producers open on the broker. Replies with the same correlation id (such as the fragments of a single request)
+ * always use the same thread, so are sent in order. Each thread has a queue of {@code
+ * transform.reply.async.queue-capacity} replies. When it is full, callers wait, so a slow broker holds up the
+ * listeners rather than replies building up in memory. A failed send is retried on a new session up to {@code
+ * transform.reply.async.max-attempts} times.<p>
+ *
+ * The JMS 2.0 {@code CompletionListener} sends are not supported by the ActiveMQ client, which is why the replies
+ * are handed to dedicated threads instead. As a reply is no longer sent in the transaction of its request message,
+ * it may be lost if the t-engine stops before it is sent.
+ */
+@Component
+public class AsyncReplySender
+{
+    private static final Logger logger = LoggerFactory.getLogger(AsyncReplySender.class);
+
+    static final int MAX_PRODUCERS = 16;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+    @Autowired
+    private TransformMessageConverter transformMessageConverter;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transform.reply.async.enabled}")
+    private boolean enabled;
+    @Value("${transform.reply.async.threads}")
+    private int threads;
+    @Value("${transform.reply.async.queue-capacity}")
+    private int queueCapacity;
+    @Value("${transform.reply.async.max-attempts}")
+    private int maxAttempts;
+    @Value("${transform.reply.async.retry-delay}")
+    private long retryDelay;
+
+    private Lane[] lanes;
+    private Timer queueTimer;
+    private Timer sendTimer;
+    private Counter retries;
+    private Counter failures;
+
+    @PostConstruct
+    public void init()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        queueTimer = Timer.builder("transform.reply.queue.time")
+            .description("Time T-Replies waited for a sender thread")
+            .register(meterRegistry);
+        sendTimer = Timer.builder("transform.reply.send.time")
+            .description("Time taken by the broker to accept a T-Reply")
+            .tag("mode", "async")
+            .register(meterRegistry);
+        retries = Counter.builder("transform.reply.send.retries")
+            .description("T-Reply sends that failed and were retried")
+            .register(meterRegistry);
+        failures = Counter.builder("transform.reply.send.failures")
+            .description("T-Replies that could not be sent")
+            .register(meterRegistry);
+
+        lanes = new Lane[threads];
+        for (int i = 0; i < threads; i++)
+        {
+            lanes[i] = new Lane("reply-sender-" + (i + 1));
+        }
+        Gauge.builder("transform.reply.pending", () -> Arrays.stream(lanes).mapToInt(l -> l.queue.size()).sum())
+            .description("T-Replies waiting to be sent")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Queues a reply to be sent, waiting if the queue of its sender thread is full.
+     */
+    public void send(Destination destination, Object reply, String correlationId)
+    {
+        Lane lane = lanes[Math.floorMod(Objects.hashCode(correlationId), lanes.length)];
+        try
+        {
+            lane.queue.put(new PendingReply(destination, reply, correlationId, System.nanoTime()));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            failures.increment();
+            logger.error("Interrupted while queuing T-Reply " + reply + " - for correlation ID " + correlationId);
+        }
+    }
+
+    /**
+     * Sends the replies that have already been queued before the JMS connection factory is closed.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException
+    {
+        if (lanes != null)
+        {
+            for (Lane lane : lanes)
+            {
+                lane.running = false;
+            }
+            for (Lane lane : lanes)
+            {
+                lane.thread.join(SECONDS.toMillis(30));
+            }
+        }
+    }
+
+    private record PendingReply(Destination destination, Object reply, String correlationId, long queuedAt)
+    {
+    }
+
+    private class Lane implements Runnable
+    {
+        private final BlockingQueue<PendingReply> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Map<Destination, MessageProducer> producers =
+            new LinkedHashMap<>(MAX_PRODUCERS, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Destination, MessageProducer> eldest)
+                {
+                    if (size() > MAX_PRODUCERS)
+                    {
+                        JmsUtils.closeMessageProducer(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        private final Thread thread;
+        private volatile boolean running = true;
+        private Connection connection;
+        private Session session;
+
+        private Lane(String name)
+        {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (running || !queue.isEmpty())
+                {
+                    PendingReply pendingReply = queue.poll(1, SECONDS);
+                    if (pendingReply != null)
+                    {
+                        queueTimer.record(System.nanoTime() - pendingReply.queuedAt(), NANOSECONDS);
+                        sendWithRetries(pendingReply);
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        private void sendWithRetries(PendingReply pendingReply) throws InterruptedException
+        {
+            for (int attempt = 1; ; attempt++)
+            {
+                long start = System.nanoTime();
+                try
+                {
+                    Message message = transformMessageConverter.toMessage(pendingReply.reply(), getSession());
+                    message.setJMSCorrelationID(pendingReply.correlationId());
+                    getProducer(pendingReply.destination()).send(message);
+                    sendTimer.record(System.nanoTime() - start, NANOSECONDS);
+                    logger.trace("Sent: {} - with correlation ID {}", pendingReply.reply(),
+                        pendingReply.correlationId());
+                    return;
+                }
+                catch (Exception e)
+                {
+                    // Start again with a new session, in case the connection was lost
+                    close();
+                    if (attempt >= maxAttempts)
+                    {
+                        failures.increment();
+                        logger.error("Failed to send T-Reply " + pendingReply.reply() + " - for correlation ID "
+                            + pendingReply.correlationId() + " after " + attempt + " attempts", e);
+                        return;
+                    }
+                    retries.increment();
+                    logger.debug("Retrying T-Reply for correlation ID {}: {}", pendingReply.correlationId(),
+                        e.getMessage());
+                    MILLISECONDS.sleep(retryDelay * attempt);
+                }
+            }
+        }
+
+        private Session getSession() throws JMSException
+        {
+            if (session == null)
+            {
+                connection = connectionFactory.createConnection();
+                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            }
+            return session;
+        }
+
+        private MessageProducer getProducer(Destination destination) throws JMSException
+        {
+            MessageProducer producer = producers.get(destination);
+            if (producer == null)
+            {
+                producer = getSession().createProducer(destination);
+                producers.put(destination, producer);
+            }
+            return producer;
+        }
+
+        private void close()
+        {
+            producers.values().forEach(JmsUtils::closeMessageProducer);
+            producers.clear();
+            JmsUtils.closeSession(session);
+            JmsUtils.closeConnection(connection);
+            session = null;
+            connection = null;
+        }
+    }
+}
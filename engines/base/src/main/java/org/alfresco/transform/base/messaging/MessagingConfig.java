@@ -27,14 +27,21 @@
 package org.alfresco.transform.base.messaging;
 
 import org.alfresco.transform.messages.TransformRequestValidator;
+import org.apache.activemq.RedeliveryPolicy;
 import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jms.activemq.ActiveMQConnectionFactoryCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.jms.annotation.JmsListenerConfigurer;
 import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 import org.springframework.jms.config.JmsListenerEndpointRegistrar;
+import org.springframework.jms.config.SimpleJmsListenerEndpoint;
 import org.springframework.jms.connection.JmsTransactionManager;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
@@ -42,6 +49,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.Queue;
+import jakarta.jms.Session;
 
 /**
  * JMS and messaging configuration for the T-Engines. Contains the basic config in order to have the
@@ -54,10 +62,27 @@ import jakarta.jms.Queue;
 @ConditionalOnProperty(name = "activemq.url")
 public class MessagingConfig implements JmsListenerConfigurer
 {
+    @Autowired
+    private QueueSizeClasses queueSizeClasses;
+    @Autowired
+    private QueueTransformService queueTransformService;
+
     @Override
     public void configureJmsListeners(@NonNull JmsListenerEndpointRegistrar registrar)
     {
         registrar.setMessageHandlerMethodFactory(methodFactory());
+        if (queueSizeClasses.isEnabled())
+        {
+            for (String sizeClass : QueueSizeClasses.SIZE_CLASSES)
+            {
+                SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+                endpoint.setId(AdaptiveConcurrency.ENGINE_REQUEST_QUEUE_LISTENER_ID + '.' + sizeClass);
+                endpoint.setDestination(queueSizeClasses.getQueueName(sizeClass));
+                endpoint.setConcurrency(queueSizeClasses.getConcurrency(sizeClass));
+                endpoint.setMessageListener(msg -> queueTransformService.receive(msg, sizeClass));
+                registrar.registerEndpoint(endpoint);
+            }
+        }
     }
 
     @Bean
@@ -72,16 +97,50 @@ public class MessagingConfig implements JmsListenerConfigurer
     public DefaultJmsListenerContainerFactory jmsListenerContainerFactory(
         final ConnectionFactory connectionFactory,
         final TransformMessageConverter transformMessageConverter,
-        final MessagingErrorHandler messagingErrorHandler)
+        final MessagingErrorHandler messagingErrorHandler,
+        final Environment environment,
+        @Value("${jms-listener.dups-ok-acknowledge.enabled}") final boolean dupsOkAcknowledge)
     {
         final DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(transformMessageConverter);
         factory.setErrorHandler(messagingErrorHandler);
-        factory.setTransactionManager(transactionManager(connectionFactory));
+        if (dupsOkAcknowledge)
+        {
+            // Messages are acknowledged lazily in batches, rather than each being committed with its reply.
+            // Duplicate deliveries are answered by RecentReplies.
+            factory.setSessionTransacted(false);
+            factory.setSessionAcknowledgeMode(Session.DUPS_OK_ACKNOWLEDGE);
+        }
+        else
+        {
+            factory.setTransactionManager(transactionManager(connectionFactory));
+        }
+        if (Threading.VIRTUAL.isActive(environment))
+        {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("jms-listener-"));
+        }
         return factory;
     }
 
+    /**
+     * Sets the delay before a message is redelivered, such as when its transformer was too busy to accept it. After
+     * {@code transform.bulkhead.max-redeliveries} a failure reply is sent instead, so messages are not sent to the DLQ.
+     */
+    @Bean
+    public ActiveMQConnectionFactoryCustomizer redeliveryPolicyCustomizer(
+        @Value("${transform.bulkhead.redelivery-delay}") long redeliveryDelay,
+        @Value("${transform.bulkhead.max-redeliveries}") int maxRedeliveries)
+    {
+        return connectionFactory ->
+        {
+            RedeliveryPolicy redeliveryPolicy = connectionFactory.getRedeliveryPolicy();
+            redeliveryPolicy.setInitialRedeliveryDelay(redeliveryDelay);
+            redeliveryPolicy.setRedeliveryDelay(redeliveryDelay);
+            redeliveryPolicy.setMaximumRedeliveries(maxRedeliveries);
+        };
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(final ConnectionFactory connectionFactory)
     {
@@ -0,0 +1,238 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.alfresco.transform.base.fs.FileManager;
+import org.alfresco.transform.exceptions.TransformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+/**
+ * Optionally pipelines the handling of queue requests. Normally each JMS listener downloads the source, transforms
+ * it, uploads the target and replies before taking its next message, so the network is idle while the transform
+ * runs and the CPU is idle while content is being moved.<p>
+ *
+ * When {@code jms-listener.pipeline.enabled}, {@code jms-listener.pipeline.prefetch-depth} extra listeners are
+ * started. The source of each message is spooled to a temporary file before its listener waits for one of the
+ * transform slots, of which there are as many as the upper bound of {@code jms-listener.concurrency}. It only waits
+ * once it has a permit from the transformer's {@link org.alfresco.transform.base.registry.TransformerBulkhead}, so
+ * requests waiting for a busy transformer do not hold slots that other transformers could use. A slot is given
+ * up as soon as the transform is complete, so the target is uploaded and the reply sent while the next transform runs.
+ * The total size of the sources spooled ahead of their transforms is limited to
+ * {@code jms-listener.pipeline.prefetch-max-bytes}. A message is still only acknowledged once its reply has been sent.
+ */
+@Component
+public class QueuePipeline
+{
+    private static final Logger logger = LoggerFactory.getLogger(QueuePipeline.class);
+
+    private static final long BYTES_PER_PERMIT = 1024;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jms-listener.concurrency}")
+    private String concurrency;
+    @Value("${jms-listener.pipeline.enabled}")
+    private boolean enabled;
+    @Value("${jms-listener.pipeline.prefetch-depth}")
+    private int prefetchDepth;
+    @Value("${jms-listener.pipeline.prefetch-max-bytes}")
+    private DataSize prefetchMaxBytes;
+
+    private int minListeners;
+    private int transformSlots;
+    private int prefetchPermitCount;
+    private Semaphore transformPermits;
+    private Semaphore prefetchPermits;
+    private final AtomicLong spooledBytes = new AtomicLong();
+
+    @PostConstruct
+    public void init()
+    {
+        int separator = concurrency.indexOf('-');
+        transformSlots = Integer.parseInt(concurrency.substring(separator + 1).trim());
+        minListeners = separator == -1 ? transformSlots : Integer.parseInt(concurrency.substring(0, separator).trim());
+        transformPermits = new Semaphore(transformSlots, true);
+        prefetchPermitCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+            prefetchMaxBytes.toBytes() / BYTES_PER_PERMIT));
+        prefetchPermits = new Semaphore(prefetchPermitCount, true);
+
+        if (enabled)
+        {
+            Gauge.builder("transform.pipeline.transforms.active",
+                    () -> transformSlots - transformPermits.availablePermits())
+                .description("Number of queue requests that hold a transform slot")
+                .register(meterRegistry);
+            Gauge.builder("transform.pipeline.spooled.bytes", spooledBytes::get)
+                .description("Size of the sources spooled ahead of their transforms")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return the concurrency of the JMS listener container, which includes the prefetching listeners if enabled.
+     */
+    public String getListenerConcurrency()
+    {
+        if (!enabled)
+        {
+            return concurrency;
+        }
+        int maxListeners = transformSlots + prefetchDepth;
+        return (minListeners == transformSlots ? maxListeners : minListeners) + "-" + maxListeners;
+    }
+
+    /**
+     * @return the stages of a single request, which must be closed once the request has been handled.
+     */
+    public Stages startStages()
+    {
+        return new Stages();
+    }
+
+    /**
+     * Tracks the resources held by a single request as it moves through the pipeline. Does nothing if the pipeline
+     * is not enabled.
+     */
+    public class Stages implements AutoCloseable
+    {
+        private int prefetchPermitsHeld;
+        private long spooledSize;
+        private File sourceFile;
+        private boolean transforming;
+
+        /**
+         * Waits until the source fits within the prefetch limit, and then copies it to a temporary file.
+         *
+         * @param source         supplies the stream of the source, which is closed once copied.
+         * @param sourceSize     the expected size of the source, or a negative value if not known.
+         * @param sourceMimetype the mimetype of the source, used to pick the file extension.
+         * @return the spooled source.
+         */
+        public File spoolSource(Callable<InputStream> source, long sourceSize, String sourceMimetype)
+        {
+            int permits = (int) Math.max(1, Math.min(prefetchPermitCount,
+                (sourceSize + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT));
+            acquire(prefetchPermits, permits);
+            prefetchPermitsHeld = permits;
+
+            try (InputStream inputStream = source.call())
+            {
+                sourceFile = FileManager.createSourceFile(null, inputStream, sourceMimetype);
+            }
+            catch (TransformException e)
+            {
+                throw e;
+            }
+            catch (Exception e)
+            {
+                throw new TransformException(INTERNAL_SERVER_ERROR, "Failed to spool the source", e);
+            }
+            spooledSize = sourceFile.length();
+            spooledBytes.addAndGet(spooledSize);
+            return sourceFile;
+        }
+
+        /**
+         * Waits for a transform slot.
+         */
+        public void startTransform()
+        {
+            if (enabled)
+            {
+                acquire(transformPermits, 1);
+                transforming = true;
+            }
+        }
+
+        /**
+         * Gives up the transform slot and the space taken by the spooled source, so that other requests may proceed
+         * while the target is uploaded.
+         */
+        public void endTransform()
+        {
+            if (transforming)
+            {
+                transforming = false;
+                transformPermits.release();
+            }
+            if (prefetchPermitsHeld > 0)
+            {
+                prefetchPermits.release(prefetchPermitsHeld);
+                prefetchPermitsHeld = 0;
+                spooledBytes.addAndGet(-spooledSize);
+                spooledSize = 0;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            endTransform();
+            if (sourceFile != null && sourceFile.exists() && !sourceFile.delete())
+            {
+                logger.error("Failed to delete spooled source file {}", sourceFile.getPath());
+            }
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits)
+    {
+        try
+        {
+            semaphore.acquire(permits);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new TransformException(INTERNAL_SERVER_ERROR, "Interrupted while waiting in the pipeline", e);
+        }
+    }
+}
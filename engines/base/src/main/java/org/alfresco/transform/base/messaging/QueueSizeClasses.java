@@ -0,0 +1,197 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Optionally gives small transforms a fast lane, so they are not held up behind large transforms on the FIFO
+ * engine request queue.<p>
+ *
+ * When {@code jms-listener.size-classes.enabled}, the listeners of {@code ${queue.engineRequestQueue}} only dispatch
+ * each request to a sub-queue for its size class, within the same transaction. Requests with a {@code sourceSize} no
+ * larger than {@code jms-listener.size-classes.small-max-size} go to {@code <engineRequestQueue>.small} and all others
+ * (including those of an unknown size) to {@code <engineRequestQueue>.large}. Each sub-queue has its own listeners,
+ * registered by {@link MessagingConfig}, and concurrency. The time each request waits on its sub-queue is recorded
+ * as {@code transform.queue.wait}, tagged with its size class.
+ */
+@Component
+@ConditionalOnProperty(name = "activemq.url")
+public class QueueSizeClasses
+{
+    private static final Logger logger = LoggerFactory.getLogger(QueueSizeClasses.class);
+
+    public static final String SMALL = "small";
+    public static final String LARGE = "large";
+    public static final List<String> SIZE_CLASSES = List.of(SMALL, LARGE);
+
+    static final String DISPATCHED_AT_PROPERTY = "transformDispatchedAt";
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    @Autowired
+    private TransformMessageConverter transformMessageConverter;
+    @Autowired
+    private QueuePipeline queuePipeline;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${queue.engineRequestQueue}")
+    private String engineRequestQueue;
+    @Value("${jms-listener.size-classes.enabled}")
+    private boolean enabled;
+    @Value("${jms-listener.size-classes.small-max-size}")
+    private DataSize smallMaxSize;
+    @Value("${jms-listener.size-classes.small-concurrency}")
+    private String smallConcurrency;
+    @Value("${jms-listener.size-classes.dispatch-concurrency}")
+    private String dispatchConcurrency;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return the concurrency of the listeners of {@code ${queue.engineRequestQueue}}, which only dispatch requests
+     * if enabled.
+     */
+    public String getRequestQueueConcurrency()
+    {
+        return enabled ? dispatchConcurrency : queuePipeline.getListenerConcurrency();
+    }
+
+    public String getConcurrency(String sizeClass)
+    {
+        return SMALL.equals(sizeClass) ? smallConcurrency : queuePipeline.getListenerConcurrency();
+    }
+
+    public String getQueueName(String sizeClass)
+    {
+        return engineRequestQueue + '.' + sizeClass;
+    }
+
+    public String getSizeClass(TransformRequest request)
+    {
+        Long sourceSize = request.getSourceSize();
+        return sourceSize != null && sourceSize >= 0 && sourceSize <= smallMaxSize.toBytes() ? SMALL : LARGE;
+    }
+
+    /**
+     * Sends the request to the sub-queue of its size class. As this takes place in the transaction of the received
+     * message, the request is only removed from {@code ${queue.engineRequestQueue}} once it has been dispatched.
+     * The delivery mode, priority, expiration and properties of the received message are kept.
+     */
+    public void dispatch(TransformRequest request, Message msg, Destination replyToQueue, String correlationId)
+    {
+        String sizeClass = getSizeClass(request);
+        jmsTemplate.execute(session -> {
+            Message message = transformMessageConverter.toMessage(request, session);
+            copyProperties(msg, message);
+            message.setJMSCorrelationID(correlationId);
+            message.setJMSReplyTo(replyToQueue);
+            message.setLongProperty(DISPATCHED_AT_PROPERTY, System.currentTimeMillis());
+
+            // The QoS of the JmsTemplate would otherwise replace that of the message.
+            MessageProducer producer = session.createProducer(session.createQueue(getQueueName(sizeClass)));
+            try
+            {
+                producer.send(message, msg.getJMSDeliveryMode(), msg.getJMSPriority(), getTimeToLive(msg));
+            }
+            finally
+            {
+                producer.close();
+            }
+            return null;
+        }, false);
+        logger.trace("Dispatched T-Request with correlationId {} to the {} queue", correlationId, sizeClass);
+    }
+
+    private static void copyProperties(Message from, Message to) throws JMSException
+    {
+        for (Object name : Collections.list(from.getPropertyNames()))
+        {
+            // JMSX and JMS_ properties are set by the provider, such as the delivery count.
+            String propertyName = (String) name;
+            if (!propertyName.startsWith("JMSX") && !propertyName.startsWith("JMS_"))
+            {
+                to.setObjectProperty(propertyName, from.getObjectProperty(propertyName));
+            }
+        }
+    }
+
+    /**
+     * @return the time the request has left before it expires, as it should still expire at the same time on the
+     * sub-queue, or 0 if it does not expire.
+     */
+    private static long getTimeToLive(Message msg) throws JMSException
+    {
+        long expiration = msg.getJMSExpiration();
+        return expiration == 0 ? Message.DEFAULT_TIME_TO_LIVE : Math.max(1, expiration - System.currentTimeMillis());
+    }
+
+    /**
+     * Records the time a request waited on the sub-queue of its size class.
+     */
+    public void recordQueueWait(Message msg, String sizeClass)
+    {
+        try
+        {
+            if (msg.propertyExists(DISPATCHED_AT_PROPERTY))
+            {
+                long wait = System.currentTimeMillis() - msg.getLongProperty(DISPATCHED_AT_PROPERTY);
+                Timer.builder("transform.queue.wait")
+                    .description("Time queue requests waited on the sub-queue of their size class")
+                    .tag("sizeClass", sizeClass)
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(Math.max(0, wait)));
+            }
+        }
+        catch (JMSException e)
+        {
+            logger.debug("Unable to read the dispatch time of a T-Request: {}", e.getMessage());
+        }
+    }
+}
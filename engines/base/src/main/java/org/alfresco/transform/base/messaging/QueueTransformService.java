@@ -27,14 +27,17 @@
 package org.alfresco.transform.base.messaging;
 
 import org.alfresco.transform.base.TransformController;
+import org.alfresco.transform.base.registry.TransformerBusyException;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.client.model.TransformRequest;
 import org.alfresco.transform.exceptions.TransformException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.jms.support.converter.MessageConversionException;
 import org.springframework.stereotype.Component;
@@ -46,6 +49,7 @@ import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 /**
  * Queue Transformer service.
@@ -68,9 +72,27 @@ public class QueueTransformService
     private TransformMessageConverter transformMessageConverter;
     @Autowired
     private TransformReplySender transformReplySender;
+    @Autowired
+    private QueueSizeClasses queueSizeClasses;
+    @Autowired
+    private RecentReplies recentReplies;
+    @Autowired
+    private AdaptiveConcurrency adaptiveConcurrency;
+    @Value("${transform.bulkhead.max-redeliveries}")
+    private int maxBusyRedeliveries;
 
-    @JmsListener(destination = "${queue.engineRequestQueue}", concurrency = "${jms-listener.concurrency}")
+    @JmsListener(id = AdaptiveConcurrency.ENGINE_REQUEST_QUEUE_LISTENER_ID, destination = "${queue.engineRequestQueue}",
+        concurrency = "#{@queueSizeClasses.requestQueueConcurrency}")
     public void receive(final Message msg)
+    {
+        receive(msg, null);
+    }
+
+    /**
+     * Handles a request from the sub-queue of a size class, or from {@code ${queue.engineRequestQueue}} if
+     * {@code sizeClass} is {@code null}, in which case it is dispatched to its sub-queue if size classes are enabled.
+     */
+    public void receive(final Message msg, final String sizeClass)
     {
         if (msg == null)
         {
@@ -101,6 +123,10 @@ public class QueueTransformService
         }
 
         logger.trace("New T-Request from queue with correlationId: {}", correlationId);
+        if (sizeClass != null)
+        {
+            queueSizeClasses.recordQueueWait(msg, sizeClass);
+        }
 
         Optional<TransformRequest> transformRequest;
         try
@@ -123,7 +149,64 @@ public class QueueTransformService
             return;
         }
 
-        transformController.transform(transformRequest.get(), null, replyToQueue);
+        TransformReply previousReply = recentReplies.get(transformRequest.get());
+        if (previousReply != null)
+        {
+            logger.debug("Resending the reply to duplicate T-Request with correlationId {}", correlationId);
+            transformReplySender.send(replyToQueue, previousReply);
+            return;
+        }
+
+        if (sizeClass == null && queueSizeClasses.isEnabled())
+        {
+            queueSizeClasses.dispatch(transformRequest.get(), msg, replyToQueue, correlationId);
+            return;
+        }
+
+        boolean adaptive = adaptiveConcurrency.isEnabled() && !QueueSizeClasses.SMALL.equals(sizeClass);
+        long start = adaptive ? adaptiveConcurrency.transformStarted() : 0;
+        try
+        {
+            ResponseEntity<TransformReply> response =
+                transformController.transform(transformRequest.get(), null, replyToQueue);
+            if (response != null)
+            {
+                recentReplies.put(transformRequest.get(), response.getBody());
+            }
+        }
+        catch (TransformerBusyException e)
+        {
+            // With DUPS_OK acknowledgement there is no transacted session to roll back, so the message would be lost
+            // rather than redelivered. Busy requests get a failure reply straight away instead.
+            int redeliveries = getDeliveryCount(msg) - 1;
+            if (redeliveries >= maxBusyRedeliveries || recentReplies.isEnabled())
+            {
+                replyWithError(replyToQueue, transformRequest.get(), TOO_MANY_REQUESTS, e.getMessage(), correlationId);
+                return;
+            }
+            // Rolls back the session, so the message is redelivered after the RedeliveryPolicy's delay
+            logger.debug("T-Request with correlationId {} will be redelivered: {}", correlationId, e.getMessage());
+            throw e;
+        }
+        finally
+        {
+            if (adaptive)
+            {
+                adaptiveConcurrency.transformFinished(start);
+            }
+        }
+    }
+
+    private static int getDeliveryCount(final Message msg)
+    {
+        try
+        {
+            return msg.getIntProperty("JMSXDeliveryCount");
+        }
+        catch (Exception ignore)
+        {
+            return 1;
+        }
     }
 
     /**
@@ -182,6 +265,27 @@ public class QueueTransformService
         transformReplySender.send(replyToQueue, reply, correlationId);
     }
 
+    /**
+     * Replies with an error to a request that could be read, so that the reply may be matched to it, as it would be if
+     * the transform had failed.
+     */
+    private void replyWithError(final Destination replyToQueue, final TransformRequest request,
+        final HttpStatus status, final String msg, final String correlationId)
+    {
+        final TransformReply reply = TransformReply
+            .builder()
+            .withRequestId(request.getRequestId())
+            .withSourceReference(request.getSourceReference())
+            .withSchema(request.getSchema())
+            .withClientData(request.getClientData())
+            .withInternalContext(request.getInternalContext())
+            .withStatus(status.value())
+            .withErrorDetails(msg)
+            .build();
+
+        transformReplySender.send(replyToQueue, reply, correlationId);
+    }
+
     private static String tryRetrieveCorrelationId(final Message msg)
     {
         try
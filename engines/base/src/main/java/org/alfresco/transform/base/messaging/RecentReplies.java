@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.alfresco.transform.client.model.InternalContext;
+import org.alfresco.transform.client.model.TransformReply;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.alfresco.transform.messages.TransformStack;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.http.HttpStatus.CREATED;
+
+/**
+ * Remembers the replies to the most recent queue requests, so that a request that is delivered more than once gets
+ * the same reply again rather than being transformed again. Only used when
+ * {@code jms-listener.dups-ok-acknowledge.enabled}, as messages are then acknowledged lazily in batches by the JMS
+ * session rather than committed one at a time, so may be redelivered if the connection is lost.<p>
+ *
+ * Replies are keyed on the request id, source reference, target media type and the current step of the TransformStack,
+ * as the steps of a pipeline and the attempts of a failover share a request id. Only successful replies are
+ * remembered, so that a request that failed may be tried again.
+ */
+@Component
+@ConditionalOnProperty(name = "activemq.url")
+public class RecentReplies
+{
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jms-listener.dups-ok-acknowledge.enabled}")
+    private boolean enabled;
+    @Value("${jms-listener.dups-ok-acknowledge.recent-replies}")
+    private int maxSize;
+
+    private Map<String, TransformReply> replies;
+    private Counter duplicates;
+
+    @PostConstruct
+    public void init()
+    {
+        replies = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransformReply> eldest)
+            {
+                return size() > maxSize;
+            }
+        });
+        duplicates = Counter.builder("transform.queue.duplicates")
+            .description("Queue requests that were delivered again after being replied to")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return the reply already sent for the request, or {@code null} if there is none or replies are not remembered.
+     */
+    public TransformReply get(TransformRequest request)
+    {
+        String key = getKey(request);
+        TransformReply reply = key == null ? null : replies.get(key);
+        if (reply != null)
+        {
+            duplicates.increment();
+        }
+        return reply;
+    }
+
+    public void put(TransformRequest request, TransformReply reply)
+    {
+        String key = getKey(request);
+        if (key != null && reply != null && reply.getStatus() == CREATED.value())
+        {
+            replies.put(key, reply);
+        }
+    }
+
+    private String getKey(TransformRequest request)
+    {
+        return !enabled || request.getRequestId() == null
+            ? null
+            : request.getRequestId() + '|' + request.getSourceReference() + '|' + request.getTargetMediaType() + '|' +
+              getStep(request.getInternalContext());
+    }
+
+    private static String getStep(InternalContext internalContext)
+    {
+        // Requests that are not from the t-router need not have a TransformStack
+        if (internalContext == null || internalContext.getMultiStep() == null ||
+            internalContext.getMultiStep().getTransformsToBeDone() == null ||
+            TransformStack.isFinished(internalContext))
+        {
+            return "";
+        }
+        TransformStack.Step step = TransformStack.currentStep(internalContext);
+        return TransformStack.getReference(internalContext) + '|' + (step == null ? "" : step.getTransformerName());
+    }
+}
@@ -28,6 +28,8 @@ package org.alfresco.transform.base.messaging;
 
 import jakarta.jms.Destination;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.alfresco.transform.client.model.TransformReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +49,10 @@ public class TransformReplySender
 
     @Autowired
     private JmsTemplate jmsTemplate;
+    @Autowired
+    private AsyncReplySender asyncReplySender;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public void send(final Destination destination, final TransformReply reply)
     {
@@ -57,12 +63,23 @@ public class TransformReplySender
     {
         if (destination != null)
         {
+            if (asyncReplySender.isEnabled())
+            {
+                asyncReplySender.send(destination, reply, correlationId);
+                return;
+            }
+
             try
             {
+                Timer.Sample sample = Timer.start();
                 jmsTemplate.convertAndSend(destination, reply, m -> {
                     m.setJMSCorrelationID(correlationId);
                     return m;
                 });
+                sample.stop(Timer.builder("transform.reply.send.time")
+                    .description("Time taken by the broker to accept a T-Reply")
+                    .tag("mode", "sync")
+                    .register(meterRegistry));
                 logger.trace("Sent: {} - with correlation ID {}", reply, correlationId);
             }
             catch (Exception e)
@@ -26,17 +26,22 @@
  */
 package org.alfresco.transform.base.registry;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.alfresco.transform.base.CustomTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -46,16 +51,56 @@ public class CustomTransformers
 
     @Autowired(required = false)
     private List<CustomTransformer> customTransformerList;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    private final Map<String, CustomTransformer> customTransformersByName = new HashMap<>();
+    @Value("${transform.bulkhead.limits}")
+    private String bulkheadLimits;
+    @Value("${transform.bulkhead.default-limit}")
+    private int defaultBulkheadLimit;
+    @Value("${transform.bulkhead.queue-size}")
+    private int bulkheadQueueSize;
+    @Value("${transform.bulkhead.max-wait}")
+    private Duration bulkheadMaxWait;
+
+    // Copied on write, so that lookups are not affected by the rare updates. A HashMap, as the null name is allowed.
+    private volatile Map<String, CustomTransformer> customTransformersByName = Collections.emptyMap();
+    private final Map<String, Integer> bulkheadLimitsByName = new HashMap<>();
+    private final Map<String, TransformerBulkhead> bulkheadsByName = new ConcurrentHashMap<>();
 
     @PostConstruct
+    private void init()
+    {
+        initCustomTransformersByName();
+        initBulkheadLimits();
+    }
+
+    private void initBulkheadLimits()
+    {
+        // A comma separated list of transformerName=limit pairs
+        for (String nameAndLimit : bulkheadLimits.split(","))
+        {
+            int i = nameAndLimit.lastIndexOf('=');
+            if (i > 0)
+            {
+                bulkheadLimitsByName.put(nameAndLimit.substring(0, i).trim(),
+                    Integer.parseInt(nameAndLimit.substring(i + 1).trim()));
+            }
+            else if (!nameAndLimit.isBlank())
+            {
+                logger.error("Ignoring bulkhead limit \"{}\", which should be transformerName=limit", nameAndLimit);
+            }
+        }
+    }
+
     private void initCustomTransformersByName()
     {
         if (customTransformerList != null)
         {
+            Map<String, CustomTransformer> byName = new HashMap<>();
             customTransformerList.forEach(customTransformer ->
-                   customTransformersByName.put(customTransformer.getTransformerName(), customTransformer));
+                   byName.put(customTransformer.getTransformerName(), customTransformer));
+            customTransformersByName = Collections.unmodifiableMap(byName);
 
             List<String> nonNullTransformerNames = customTransformerList.stream()
                 .map(CustomTransformer::getTransformerName)
@@ -76,13 +121,41 @@ public class CustomTransformers
 
     public CustomTransformer get(String name)
     {
-        CustomTransformer customTransformer = customTransformersByName.get(name);
-        return customTransformer == null ? customTransformersByName.get(null) : customTransformer;
+        Map<String, CustomTransformer> byName = customTransformersByName;
+        CustomTransformer customTransformer = byName.get(name);
+        return customTransformer == null ? byName.get(null) : customTransformer;
+    }
+
+    /**
+     * @return the named transformer, without falling back to one with a {@code null} name.
+     */
+    public CustomTransformer getNamed(String name)
+    {
+        return name == null ? null : customTransformersByName.get(name);
+    }
+
+    /**
+     * Waits until the named transformer is allowed to run another transform.
+     *
+     * @return a permit which must be closed once the transform is complete.
+     * @throws TransformerBusyException if the transformer is busy.
+     */
+    public TransformerBulkhead.Permit acquirePermit(String transformerName)
+    {
+        return bulkheadsByName.computeIfAbsent(transformerName == null ? "" : transformerName, name ->
+        {
+            int limit = bulkheadLimitsByName.getOrDefault(name, defaultBulkheadLimit);
+            return limit <= 0
+                ? TransformerBulkhead.UNLIMITED
+                : new TransformerBulkhead(name, limit, bulkheadQueueSize, bulkheadMaxWait, meterRegistry);
+        }).acquire();
     }
 
-    public void put(String name, CustomTransformer  customTransformer)
+    public synchronized void put(String name, CustomTransformer  customTransformer)
     {
-        customTransformersByName.put(name, customTransformer);
+        Map<String, CustomTransformer> byName = new HashMap<>(customTransformersByName);
+        byName.put(name, customTransformer);
+        customTransformersByName = Collections.unmodifiableMap(byName);
     }
 
     public List<CustomTransformer> toList()
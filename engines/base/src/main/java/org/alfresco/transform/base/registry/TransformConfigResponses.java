@@ -0,0 +1,330 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.registry;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.alfresco.transform.config.TransformConfig;
+import org.alfresco.transform.config.TransformOption;
+import org.alfresco.transform.config.Transformer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.alfresco.transform.config.CoreVersionDecorator.CONFIG_VERSION_INCLUDES_CORE_VERSION;
+import static org.alfresco.transform.config.CoreVersionDecorator.setOrClearCoreVersion;
+
+/**
+ * Caches the serialised response of the /transform/config endpoint for each {@link TransformConfig} snapshot
+ * published by the {@link TransformRegistry}, so frequent polls by clients do not decorate and serialise the whole
+ * config each time. Each response has a strong ETag derived from its content. The gzip and delta variants of a
+ * response have their own ETags, made by adding a suffix to its hash.<p>
+ *
+ * The hashes of the transformers and transform options of recent snapshots are remembered, so a client that supplies
+ * the ETag of an earlier response may be sent a delta: a {@link TransformConfig} holding only the transformers and
+ * options that have been added or changed, with the names of removed transformers in {@code removeTransformers} and
+ * of removed options in {@code removeTransformOptions}.
+ */
+@Component
+public class TransformConfigResponses
+{
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${transform.config.response.gzip}")
+    private boolean gzipEnabled;
+    @Value("${transform.config.response.delta-history}")
+    private int deltaHistory;
+
+    /**
+     * The serialised config of a snapshot for either older or newer clients.
+     */
+    public static class Response
+    {
+        private final TransformConfig registryConfig;
+        private final TransformConfig config;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String hash;
+        private final Map<String, String> transformerHashes;
+        private final Map<String, String> optionHashes;
+
+        private Response(TransformConfig registryConfig, TransformConfig config, byte[] json, byte[] gzip,
+            String hash, Map<String, String> transformerHashes, Map<String, String> optionHashes)
+        {
+            this.registryConfig = registryConfig;
+            this.config = config;
+            this.json = json;
+            this.gzip = gzip;
+            this.hash = hash;
+            this.transformerHashes = transformerHashes;
+            this.optionHashes = optionHashes;
+        }
+
+        /**
+         * @return the config with the core version set or cleared. Must not be modified.
+         */
+        public TransformConfig getConfig()
+        {
+            return config;
+        }
+
+        public byte[] getJson()
+        {
+            return json;
+        }
+
+        /**
+         * @return the gzip compressed json or {@code null} if compression is disabled.
+         */
+        public byte[] getGzip()
+        {
+            return gzip;
+        }
+
+        /**
+         * @return a strong ETag of the json, including its quotes.
+         */
+        public String getETag()
+        {
+            return '"' + hash + '"';
+        }
+
+        /**
+         * @return a strong ETag of the gzip compressed json, including its quotes.
+         */
+        public String getGzipETag()
+        {
+            return '"' + hash + "-gzip\"";
+        }
+
+        /**
+         * @param since the ETag supplied by the client as the base of a delta.
+         * @return a strong ETag of the delta, including its quotes.
+         */
+        public String getDeltaETag(String since)
+        {
+            return '"' + hash + "-delta-" + getHash(since) + '"';
+        }
+
+        /**
+         * @return true if the {@code If-None-Match} header value includes the ETag of this response or one of its
+         *         variants, all of which hold the same config.
+         */
+        public boolean matches(String ifNoneMatch)
+        {
+            if (ifNoneMatch == null)
+            {
+                return false;
+            }
+            for (String value : ifNoneMatch.split(","))
+            {
+                value = value.trim();
+                if ("*".equals(value) || hash.equals(getHash(value)))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Indexed by whether the core version is included.
+    private final Response[] current = new Response[2];
+
+    // Recent responses by the hash in their ETag, which may be the base of a delta. Only the hashes are used.
+    private final Map<String, Response> history = new LinkedHashMap<>()
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Response> eldest)
+        {
+            return size() > deltaHistory;
+        }
+    };
+
+    /**
+     * @param registryConfig the config currently returned by {@link TransformRegistry#getTransformConfig()}.
+     * @param configVersion requested by the client.
+     */
+    public Response getResponse(TransformConfig registryConfig, int configVersion)
+    {
+        int index = configVersion >= CONFIG_VERSION_INCLUDES_CORE_VERSION ? 1 : 0;
+        synchronized (current)
+        {
+            Response response = current[index];
+            if (response == null || response.registryConfig != registryConfig)
+            {
+                response = createResponse(registryConfig, configVersion);
+                current[index] = response;
+                if (deltaHistory > 0)
+                {
+                    synchronized (history)
+                    {
+                        history.put(response.hash, response);
+                    }
+                }
+            }
+            return response;
+        }
+    }
+
+    private Response createResponse(TransformConfig registryConfig, int configVersion)
+    {
+        TransformConfig config = setOrClearCoreVersion(registryConfig, configVersion);
+        byte[] json = toJson(config);
+
+        Map<String, String> transformerHashes = new HashMap<>();
+        Map<String, String> optionHashes = new HashMap<>();
+        if (deltaHistory > 0)
+        {
+            // An uncombined config may contain more than one transformer with the same name.
+            Map<String, List<Transformer>> transformersByName = new HashMap<>();
+            config.getTransformers().forEach(transformer -> transformersByName
+                .computeIfAbsent(transformer.getTransformerName(), name -> new ArrayList<>())
+                .add(transformer));
+            transformersByName.forEach((name, transformers) -> transformerHashes.put(name, hash(toJson(transformers))));
+            config.getTransformOptions().forEach((name, options) ->
+                optionHashes.put(name, hash(toJson(options))));
+        }
+
+        return new Response(registryConfig, config, json, gzipEnabled ? gzip(json) : null,
+            hash(json), transformerHashes, optionHashes);
+    }
+
+    /**
+     * @param since the ETag (with or without quotes) of an earlier response, or one of its variants, held by the
+     *                client.
+     * @return the serialised delta between the earlier and current response, or {@code null} if the earlier response
+     *         is no longer known, in which case the full config should be returned.
+     */
+    public byte[] getDelta(Response response, String since)
+    {
+        Response base;
+        synchronized (history)
+        {
+            base = history.get(getHash(since));
+        }
+        if (base == null)
+        {
+            return null;
+        }
+
+        List<Transformer> transformers = new ArrayList<>();
+        response.config.getTransformers().forEach(transformer ->
+        {
+            String name = transformer.getTransformerName();
+            if (!response.transformerHashes.get(name).equals(base.transformerHashes.get(name)))
+            {
+                transformers.add(transformer);
+            }
+        });
+        Set<String> removeTransformers = new HashSet<>(base.transformerHashes.keySet());
+        removeTransformers.removeAll(response.transformerHashes.keySet());
+        Set<String> removeTransformOptions = new HashSet<>(base.optionHashes.keySet());
+        removeTransformOptions.removeAll(response.optionHashes.keySet());
+        Map<String, Set<TransformOption>> transformOptions = new HashMap<>();
+        response.config.getTransformOptions().forEach((name, options) ->
+        {
+            if (!response.optionHashes.get(name).equals(base.optionHashes.get(name)))
+            {
+                transformOptions.put(name, options);
+            }
+        });
+
+        return toJson(TransformConfig.builder()
+            .withTransformers(transformers)
+            .withTransformOptions(transformOptions)
+            .withRemoveTransformers(removeTransformers)
+            .withRemoveTransformOptions(removeTransformOptions)
+            .build());
+    }
+
+    /**
+     * @return the hash of the response from one of its ETags, with or without quotes. Hashes are hex, so do not
+     *         contain the '-' that starts the suffix of a variant.
+     */
+    private static String getHash(String eTag)
+    {
+        String hash = eTag.length() > 1 && eTag.startsWith("\"") && eTag.endsWith("\"")
+            ? eTag.substring(1, eTag.length() - 1)
+            : eTag;
+        int i = hash.indexOf('-');
+        return i == -1 ? hash : hash.substring(0, i);
+    }
+
+    private byte[] toJson(Object value)
+    {
+        try
+        {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalStateException("Unable to serialise the transform config", e);
+        }
+    }
+
+    private static String hash(byte[] bytes)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes)
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed))
+        {
+            gzip.write(bytes);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
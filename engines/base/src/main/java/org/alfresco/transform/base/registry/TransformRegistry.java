@@ -25,7 +25,13 @@
  */
 package org.alfresco.transform.base.registry;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.alfresco.transform.base.CustomTransformer;
+import org.alfresco.transform.base.transform.LocalPipelineTransformers;
 import org.alfresco.transform.config.TransformConfig;
 import org.alfresco.transform.config.TransformOption;
 import org.alfresco.transform.config.TransformOptionGroup;
@@ -35,6 +41,7 @@ import org.alfresco.transform.registry.AbstractTransformRegistry;
 import org.alfresco.transform.registry.CombinedTransformConfig;
 import org.alfresco.transform.registry.Origin;
 import org.alfresco.transform.registry.TransformCache;
+import org.alfresco.transform.registry.TransformSelectionCache;
 import org.alfresco.transform.registry.TransformerType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,12 +56,14 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -72,6 +81,7 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 public class TransformRegistry extends AbstractTransformRegistry
 {
     private static final Logger logger = LoggerFactory.getLogger(TransformRegistry.class);
+    private static final ObjectMapper jsonObjectMapper = new ObjectMapper();
 
     @Autowired
     private String coreVersion;
@@ -79,14 +89,23 @@ public class TransformRegistry extends AbstractTransformRegistry
     private List<TransformConfigSource> transformConfigSources;
     @Value("${container.isTRouter}")
     private boolean isTRouter;
+    @Value("${transform.registry.selection-cache-size}")
+    private int selectionCacheSize;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private final AtomicBoolean isRecoveryModeOn = new AtomicBoolean(true);
 
     // Not autowired - avoids a circular reference in the router - initialised on startup event
     private List<CustomTransformer> customTransformerList;
+    // Not autowired for the same reason. Null if there is no LocalPipelineTransformers, such as in the router.
+    private LocalPipelineTransformers localPipelineTransformers;
 
     private int previousLogMessageHashCode;
 
+    // The fingerprint of the sources used to create the current Data. Null until it has been created.
+    private volatile byte[] previousConfigFingerprint;
+
     private static class Data extends TransformCache
     {
         private TransformConfig transformConfig;
@@ -129,10 +148,31 @@ public class TransformRegistry extends AbstractTransformRegistry
         }
     }
 
-    private Data data = new Data();
+    // Replaced as a whole once a new Data has been fully built, so reads never need to take a lock.
+    private volatile Data data = new Data();
 
-    // Ensures that read operations are blocked while config is being updated
-    private final ReadWriteLock configRefreshLock = new ReentrantReadWriteLock();
+    // Shared by the selection cache of each new Data, so counts are not lost when the config is refreshed.
+    private final TransformSelectionCache.Statistics selectionCacheStatistics = new TransformSelectionCache.Statistics();
+
+    @PostConstruct
+    public void initMetrics()
+    {
+        FunctionCounter.builder("transform.registry.selection.cache.hits", selectionCacheStatistics,
+                TransformSelectionCache.Statistics::getHitCount)
+            .description("Transformer selections found in the cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("transform.registry.selection.cache.misses", selectionCacheStatistics,
+                TransformSelectionCache.Statistics::getMissCount)
+            .description("Transformer selections not found in the cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("transform.registry.selection.cache.evictions", selectionCacheStatistics,
+                TransformSelectionCache.Statistics::getEvictionCount)
+            .description("Transformer selections evicted from the full cache")
+            .register(meterRegistry);
+        Gauge.builder("transform.registry.selection.cache.size", () -> getData().getSelectionCache().size())
+            .description("Transformer selections in the cache")
+            .register(meterRegistry);
+    }
 
     @EventListener(ContextRefreshedEvent.class)
     public void handleContextRefreshedEvent(final ContextRefreshedEvent event)
@@ -150,6 +190,8 @@ public class TransformRegistry extends AbstractTransformRegistry
     void initRegistryOnAppStartup(final ContextRefreshedEvent event)
     {
         customTransformerList = event.getApplicationContext().getBean(CustomTransformers.class).toList();
+        localPipelineTransformers = event.getApplicationContext()
+            .getBeanProvider(LocalPipelineTransformers.class).getIfAvailable();
         retrieveConfig();
     }
 
@@ -217,9 +259,18 @@ public class TransformRegistry extends AbstractTransformRegistry
             logger.trace("All TransformConfigSources have been retrieved, turning off recovery mode.");
         }
 
+        // Combining is skipped if the content of every source is the same as last time.
+        byte[] configFingerprint = fingerprint(availableTransformers.values());
+        if (configFingerprint != null && Arrays.equals(configFingerprint, previousConfigFingerprint))
+        {
+            logger.debug("TransformConfig unchanged, so not recombined.");
+            return;
+        }
+
         logger.debug("Creating CombinedTransformConfig.");
         availableTransformers.values().forEach(source -> {
-                TransformConfig transformConfig = source.getTransformConfig();
+                // A copy is used, as it is changed in place, which would change the fingerprint of the source.
+                TransformConfig transformConfig = copy(source.getTransformConfig());
                 setCoreVersionOnSingleStepTransformers(transformConfig, coreVersion);
                 combinedTransformConfig.addTransformConfig(transformConfig, source.getReadFrom(), source.getBaseUrl(),
                     this);
@@ -230,10 +281,53 @@ public class TransformRegistry extends AbstractTransformRegistry
         TransformConfig transformConfig = combinedTransformConfig.buildTransformConfig();
         Map<String, Origin<Transformer>> transformerByNameMap = combinedTransformConfig.getTransformerByNameMap();
         concurrentUpdate(combinedTransformConfig, uncombinedTransformConfig, transformConfig, transformerByNameMap);
+        previousConfigFingerprint = configFingerprint;
 
         logTransformers(uncombinedTransformConfig, transformerByNameMap);
     }
 
+    /**
+     * @return a SHA-256 digest of the content and origin of each source, or {@code null} if one could not be created,
+     * in which case the config should always be recombined.
+     */
+    static byte[] fingerprint(Collection<? extends TransformConfigSource> sources)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (TransformConfigSource source : sources)
+            {
+                for (String value : new String[]{source.getSortOnName(), source.getReadFrom(), source.getBaseUrl()})
+                {
+                    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                digest.update(jsonObjectMapper.writeValueAsBytes(source.getTransformConfig()));
+                digest.update((byte) 0);
+            }
+            return digest.digest();
+        }
+        catch (NoSuchAlgorithmException | JsonProcessingException e)
+        {
+            logger.debug("Unable to fingerprint TransformConfig: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static TransformConfig copy(TransformConfig transformConfig)
+    {
+        try
+        {
+            return jsonObjectMapper.readValue(jsonObjectMapper.writeValueAsBytes(transformConfig),
+                TransformConfig.class);
+        }
+        catch (IOException e)
+        {
+            logger.debug("Unable to copy TransformConfig: {}", e.getMessage());
+            return transformConfig;
+        }
+    }
+
     private void logTransformers(TransformConfig uncombinedTransformConfig, Map<String, Origin<Transformer>> transformerByNameMap)
     {
         if (logger.isInfoEnabled())
@@ -258,6 +352,8 @@ public class TransformRegistry extends AbstractTransformRegistry
                             ? " -- unavailable: see previous messages"
                             : isTRouter
                             ? ""
+                            : localPipelineTransformers != null && localPipelineTransformers.get(name) != null
+                            ? ""
                             : TransformerType.valueOf(transformerOrigin.get()) == PIPELINE_TRANSFORMER
                             ? " -- unavailable: pipeline only available via t-router"
                             : TransformerType.valueOf(transformerOrigin.get()) == FAILOVER_TRANSFORMER
@@ -321,42 +417,43 @@ public class TransformRegistry extends AbstractTransformRegistry
     @Override
     public Data getData()
     {
-        return concurrentRead(() -> data );
+        return data;
     }
 
     /**
-     * Lock for reads while updating, use {@link #concurrentRead} to access locked fields
+     * Builds a new Data from the combined config and only then publishes it, so that requests see either the old or
+     * the new Data, without waiting. Synchronized as the config may be retrieved by more than one scheduled task.
      */
-    private void concurrentUpdate(CombinedTransformConfig combinedTransformConfig,
+    private synchronized void concurrentUpdate(CombinedTransformConfig combinedTransformConfig,
         TransformConfig uncombinedTransformConfig, TransformConfig transformConfig,
         Map<String, Origin<Transformer>> transformerByNameMap)
     {
-        configRefreshLock.writeLock().lock();
-        try
-        {
-            data = new Data(); // clear data
-            data.setTransformConfig(transformConfig);
-            data.setUncombinedTransformConfig(uncombinedTransformConfig);
-            data.setTransformerByNameMap(transformerByNameMap);
-            combinedTransformConfig.registerCombinedTransformers(this);
-        }
-        finally
+        Data newData = new Data();
+        newData.setSelectionCache(new TransformSelectionCache(selectionCacheSize, selectionCacheStatistics));
+        newData.setTransformConfig(transformConfig);
+        newData.setUncombinedTransformConfig(uncombinedTransformConfig);
+        newData.setTransformerByNameMap(transformerByNameMap);
+        combinedTransformConfig.registerCombinedTransformers(new AbstractTransformRegistry()
         {
-            configRefreshLock.writeLock().unlock();
-        }
-    }
+            @Override
+            protected void logError(String msg)
+            {
+                TransformRegistry.this.logError(msg);
+            }
 
-    private <T> T concurrentRead(Supplier<T> s)
-    {
-        configRefreshLock.readLock().lock();
-        try
-        {
-            return s.get();
-        }
-        finally
-        {
-            configRefreshLock.readLock().unlock();
-        }
+            @Override
+            protected void logWarn(String msg)
+            {
+                TransformRegistry.this.logWarn(msg);
+            }
+
+            @Override
+            public TransformCache getData()
+            {
+                return newData;
+            }
+        });
+        data = newData;
     }
 
     @Override
@@ -374,12 +471,11 @@ public class TransformRegistry extends AbstractTransformRegistry
     public Transformer getTransformer(final String sourceMediaType, final Long fileSizeBytes,
                                       final String targetMediaType, final Map<String, String> transformOptions)
     {
-        return concurrentRead(() ->
-        {
-            long fileSize = fileSizeBytes == null ? 0 : fileSizeBytes;
-            String transformerName = findTransformerName(sourceMediaType, fileSize, targetMediaType, transformOptions, null);
-            return getTransformer(transformerName);
-        });
+        Data data = getData();
+        long fileSize = fileSizeBytes == null ? 0 : fileSizeBytes;
+        String transformerName = findTransformerName(data, sourceMediaType, fileSize, targetMediaType,
+            transformOptions, null);
+        return getTransformer(data, transformerName);
     }
 
     public Transformer getTransformer(String transformerName)
@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.registry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Limits the number of transforms a single transformer may run at the same time, so that a burst of slow transforms
+ * cannot use all the threads of the t-engine. Transforms over the limit wait for up to {@code maxWait}, but if
+ * {@code queueSize} transforms are already waiting or the wait times out, they are rejected with a
+ * {@link TransformerBusyException}.
+ */
+public class TransformerBulkhead
+{
+    /**
+     * Held while a transform runs. Closing it more than once has no effect.
+     */
+    public interface Permit extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+
+    static final TransformerBulkhead UNLIMITED = new TransformerBulkhead();
+
+    private static final Permit NO_PERMIT = () -> {};
+
+    private final String transformerName;
+    private final Semaphore permits;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTime;
+    private final Counter rejected;
+
+    private TransformerBulkhead()
+    {
+        transformerName = null;
+        permits = null;
+        queueSize = 0;
+        maxWaitNanos = 0;
+        waitTime = null;
+        rejected = null;
+    }
+
+    TransformerBulkhead(String transformerName, int limit, int queueSize, Duration maxWait,
+        MeterRegistry meterRegistry)
+    {
+        this.transformerName = transformerName;
+        this.permits = new Semaphore(limit, true);
+        this.queueSize = queueSize;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        waitTime = Timer.builder("transform.bulkhead.wait")
+            .description("Time transforms wait for their transformer to have capacity")
+            .tag("transformer", transformerName)
+            .register(meterRegistry);
+        rejected = Counter.builder("transform.bulkhead.rejected")
+            .description("Transforms rejected because their transformer was busy")
+            .tag("transformer", transformerName)
+            .register(meterRegistry);
+        Gauge.builder("transform.bulkhead.waiting", waiting::get)
+            .description("Transforms waiting for their transformer to have capacity")
+            .tag("transformer", transformerName)
+            .register(meterRegistry);
+        Gauge.builder("transform.bulkhead.active", () -> limit - permits.availablePermits())
+            .description("Transforms running in the transformer")
+            .tag("transformer", transformerName)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Waits until the transformer has capacity for another transform.
+     *
+     * @return a permit which must be closed once the transform is complete.
+     * @throws TransformerBusyException if the transform is rejected.
+     */
+    public Permit acquire()
+    {
+        if (permits == null)
+        {
+            return NO_PERMIT;
+        }
+
+        long start = System.nanoTime();
+        if (!permits.tryAcquire())
+        {
+            if (waiting.incrementAndGet() > queueSize)
+            {
+                waiting.decrementAndGet();
+                throw reject("too many transforms are waiting");
+            }
+            try
+            {
+                if (!permits.tryAcquire(maxWaitNanos, NANOSECONDS))
+                {
+                    throw reject("timed out waiting");
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted while waiting");
+            }
+            finally
+            {
+                waiting.decrementAndGet();
+            }
+        }
+        waitTime.record(System.nanoTime() - start, NANOSECONDS);
+        AtomicBoolean released = new AtomicBoolean();
+        return () ->
+        {
+            if (released.compareAndSet(false, true))
+            {
+                permits.release();
+            }
+        };
+    }
+
+    private TransformerBusyException reject(String reason)
+    {
+        rejected.increment();
+        return new TransformerBusyException("Transformer " + transformerName + " is busy, " + reason);
+    }
+}
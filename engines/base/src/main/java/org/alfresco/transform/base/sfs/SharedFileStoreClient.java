@@ -26,14 +26,23 @@
  */
 package org.alfresco.transform.base.sfs;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.MediaType.ALL;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import org.alfresco.transform.base.WebClientBuilderAdjuster;
 import org.alfresco.transform.exceptions.TransformException;
 import org.alfresco.transform.base.model.FileRefResponse;
@@ -42,7 +51,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -53,6 +65,8 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 
 import jakarta.annotation.PostConstruct;
 import javax.net.ssl.SSLException;
@@ -65,6 +79,8 @@ public class SharedFileStoreClient
 {
     private static final Logger logger = LoggerFactory.getLogger(SharedFileStoreClient.class);
 
+    private static final int STREAMING_UPLOAD_BUFFER_SIZE = 64 * 1024;
+
     @Value("${filestore-url}")
     private String url;
 
@@ -74,10 +90,34 @@ public class SharedFileStoreClient
     @Autowired
     private WebClientBuilderAdjuster adjuster;
 
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${filestore-download-prefetch}")
+    private int downloadPrefetch;
+
     private WebClient client;
+    private Timer downloadLatency;
+    private DistributionSummary downloadThroughput;
+    private DistributionSummary downloadSize;
 
     @PostConstruct
     public void init() throws SSLException {
+        downloadLatency = Timer.builder("transform.sfs.download.latency")
+            .description("Time until the response to a Shared File Store download starts")
+            .register(meterRegistry);
+        downloadThroughput = DistributionSummary.builder("transform.sfs.download.throughput")
+            .description("Rate at which the body of a Shared File Store download is read")
+            .baseUnit("bytes_per_second")
+            .register(meterRegistry);
+        downloadSize = DistributionSummary.builder("transform.sfs.download.size")
+            .description("Size of files downloaded from the Shared File Store")
+            .baseUnit(BaseUnits.BYTES)
+            .register(meterRegistry);
+
         final WebClient.Builder clientBuilder = WebClient.builder();
         adjuster.adjust(clientBuilder);
         client = clientBuilder.baseUrl(url.endsWith("/") ? url : url + "/")
@@ -87,7 +127,8 @@ public class SharedFileStoreClient
     }
 
     /**
-     * Retrieves a file from Shared File Store using given file reference
+     * Retrieves a file from Shared File Store using given file reference. The body is streamed, so the returned
+     * {@code Resource} may only be read once and should be closed, which cancels the download if it is incomplete.
      *
      * @param fileRef File reference
      * @return ResponseEntity<Resource>
@@ -96,15 +137,35 @@ public class SharedFileStoreClient
     {
         try
         {
-            return restTemplate.getForEntity(url + "/" + fileRef,
-                org.springframework.core.io.Resource.class);
+            long start = System.nanoTime();
+            ResponseEntity<Flux<DataBuffer>> responseEntity = client.get().uri(fileRef)
+                .accept(ALL)
+                .retrieve()
+                .toEntityFlux(DataBuffer.class)
+                .block();
+            long responseTime = System.nanoTime();
+            downloadLatency.record(responseTime - start, NANOSECONDS);
+
+            InputStream inputStream = new SharedFileStoreInputStream(responseEntity.getBody(), downloadPrefetch,
+                byteCount -> recordDownload(byteCount, System.nanoTime() - responseTime));
+            return new ResponseEntity<>(new InputStreamResource(inputStream), responseEntity.getHeaders(),
+                responseEntity.getStatusCode());
         }
-        catch (HttpClientErrorException e)
+        catch (WebClientResponseException e)
         {
             throw new TransformException(HttpStatus.resolve(e.getStatusCode().value()), e.getMessage(), e);
         }
     }
 
+    private void recordDownload(long byteCount, long nanos)
+    {
+        downloadSize.record(byteCount);
+        if (nanos > 0)
+        {
+            downloadThroughput.record(byteCount * 1_000_000_000.0 / nanos);
+        }
+    }
+
     /**
      * Stores given file in Shared File Store
      *
@@ -112,10 +173,55 @@ public class SharedFileStoreClient
      * @return A FileRefResponse containing detail about file's reference
      */
     public FileRefResponse saveFile(File file)
+    {
+        return save(new FileSystemResource(file.getAbsolutePath()));
+    }
+
+    /**
+     * Stores content in Shared File Store as it is written to the returned stream, rather than from a complete file.
+     * The content is sent using chunked transfer encoding on a separate thread, so the upload overlaps with whatever
+     * is writing the content.
+     *
+     * @param filename The name of the file, so that the Shared File Store knows its extension
+     * @return The stream to write to. Call {@link SharedFileStoreOutputStream#getFileRefResponse()} to wait for the
+     *         upload to complete.
+     */
+    public SharedFileStoreOutputStream saveFileAsStream(String filename)
+    {
+        return new SharedFileStoreOutputStream(STREAMING_UPLOAD_BUFFER_SIZE,
+            inputStream -> CompletableFuture.supplyAsync(() -> saveStream(inputStream, filename), taskExecutor),
+            this::asyncDelete);
+    }
+
+    private FileRefResponse saveStream(InputStream inputStream, String filename)
+    {
+        try (inputStream)
+        {
+            return save(new InputStreamResource(inputStream)
+            {
+                @Override
+                public String getFilename()
+                {
+                    return filename;
+                }
+
+                @Override
+                public long contentLength()
+                {
+                    return -1; // unknown, so the content is sent in chunks rather than read to find its length
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            throw new TransformException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), e);
+        }
+    }
+
+    private FileRefResponse save(Resource value)
     {
         try
         {
-            FileSystemResource value = new FileSystemResource(file.getAbsolutePath());
             LinkedMultiValueMap<String, Object> map = new LinkedMultiValueMap<>();
             map.add("file", value);
             HttpHeaders headers = new HttpHeaders();
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.sfs;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * A blocking {@code InputStream} over the body of a Shared File Store download. Only {@code prefetch} buffers are
+ * requested ahead of the reader, so the transform may start as soon as the first bytes arrive and a large file is
+ * never held in memory.
+ */
+class SharedFileStoreInputStream extends InputStream
+{
+    private final Stream<DataBuffer> dataBuffers;
+    private final Iterator<DataBuffer> iterator;
+    private final LongConsumer onComplete;
+
+    private DataBuffer current;
+    private long byteCount;
+    private boolean complete;
+    private boolean closed;
+
+    /**
+     * @param body       the response body.
+     * @param prefetch   the number of buffers requested ahead of the reader.
+     * @param onComplete called with the number of bytes read, once the end of the body has been reached.
+     */
+    SharedFileStoreInputStream(Flux<DataBuffer> body, int prefetch, LongConsumer onComplete)
+    {
+        this.dataBuffers = body.toStream(prefetch);
+        this.iterator = dataBuffers.iterator();
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!nextBuffer())
+        {
+            return -1;
+        }
+        byteCount++;
+        return current.read() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (!nextBuffer())
+        {
+            return -1;
+        }
+        int n = Math.min(len, current.readableByteCount());
+        current.read(b, off, n);
+        byteCount += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream closed");
+        }
+        return current == null ? 0 : current.readableByteCount();
+    }
+
+    private boolean nextBuffer() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || current.readableByteCount() == 0)
+        {
+            releaseCurrent();
+            if (complete || !hasNext())
+            {
+                if (!complete)
+                {
+                    complete = true;
+                    onComplete.accept(byteCount);
+                }
+                return false;
+            }
+            current = iterator.next();
+        }
+        return true;
+    }
+
+    private boolean hasNext() throws IOException
+    {
+        try
+        {
+            return iterator.hasNext();
+        }
+        catch (RuntimeException e)
+        {
+            throw new IOException("Failed to read from the SFS", Exceptions.unwrap(e));
+        }
+    }
+
+    private void releaseCurrent()
+    {
+        if (current != null)
+        {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Cancels the download if the end of the body has not been reached.
+     */
+    @Override
+    public void close()
+    {
+        if (!closed)
+        {
+            closed = true;
+            releaseCurrent();
+            dataBuffers.close();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.sfs;
+
+import org.alfresco.transform.base.model.FileRefResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An {@code OutputStream} that uploads its content to the Shared File Store as it is written. The upload is started on
+ * the first write (or when {@link #getFileRefResponse()} is called if nothing was written) and reads from a pipe on
+ * a separate thread, so that it overlaps with the transform producing the content. If the stream is
+ * {@link #abort aborted}, the upload reads an error rather than the end of the content, so that it fails rather than
+ * storing a truncated file.
+ */
+public class SharedFileStoreOutputStream extends OutputStream
+{
+    private final int bufferSize;
+    private final Function<InputStream, CompletableFuture<FileRefResponse>> upload;
+    private final Consumer<String> delete;
+
+    private PipedOutputStream pipedOutputStream;
+    private CompletableFuture<FileRefResponse> fileRefResponse;
+    private boolean closed;
+    private volatile boolean aborted;
+
+    SharedFileStoreOutputStream(int bufferSize, Function<InputStream, CompletableFuture<FileRefResponse>> upload,
+        Consumer<String> delete)
+    {
+        this.bufferSize = bufferSize;
+        this.upload = upload;
+        this.delete = delete;
+    }
+
+    private void startUpload() throws IOException
+    {
+        PipedInputStream pipedInputStream = new PipedInputStream(bufferSize)
+        {
+            // Checked after reading, as closing the pipe on abort would otherwise look like the end of the content.
+            @Override
+            public synchronized int read() throws IOException
+            {
+                int b = super.read();
+                checkAborted();
+                return b;
+            }
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) throws IOException
+            {
+                int count = super.read(b, off, len);
+                checkAborted();
+                return count;
+            }
+        };
+        pipedOutputStream = new PipedOutputStream(pipedInputStream);
+        fileRefResponse = upload.apply(pipedInputStream);
+    }
+
+    private OutputStream getPipedOutputStream() throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Stream closed");
+        }
+        if (pipedOutputStream == null)
+        {
+            startUpload();
+        }
+        return pipedOutputStream;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        try
+        {
+            getPipedOutputStream().write(b);
+        }
+        catch (IOException e)
+        {
+            throw withUploadFailure(e);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        try
+        {
+            getPipedOutputStream().write(b, off, len);
+        }
+        catch (IOException e)
+        {
+            throw withUploadFailure(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (pipedOutputStream != null && !closed)
+        {
+            pipedOutputStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!closed)
+        {
+            closed = true;
+            if (pipedOutputStream != null)
+            {
+                pipedOutputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the stream and waits for the upload to complete.
+     *
+     * @return the response from the Shared File Store.
+     * @throws Exception the exception thrown by the upload.
+     */
+    public FileRefResponse getFileRefResponse() throws Exception
+    {
+        if (pipedOutputStream == null)
+        {
+            startUpload();
+        }
+        close();
+        try
+        {
+            return fileRefResponse.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+        }
+    }
+
+    private void checkAborted() throws IOException
+    {
+        if (aborted)
+        {
+            throw new IOException("The transform failed, so the content is incomplete");
+        }
+    }
+
+    /**
+     * Makes the upload fail, without waiting for it. Used when the transform fails after the upload has started. If
+     * the Shared File Store still returns a file reference, such as when all the content had already been read, the
+     * file is deleted.
+     */
+    public void abort()
+    {
+        aborted = true;
+        try
+        {
+            close();
+        }
+        catch (IOException ignore)
+        {
+        }
+        if (fileRefResponse != null)
+        {
+            fileRefResponse.thenAccept(response -> delete.accept(response.getEntry().getFileRef()));
+        }
+    }
+
+    // The upload closes its end of the pipe when it fails, so its cause is more useful than "Pipe closed".
+    private IOException withUploadFailure(IOException e)
+    {
+        if (fileRefResponse != null && !closed)
+        {
+            try
+            {
+                fileRefResponse.join();
+            }
+            catch (CompletionException uploadFailure)
+            {
+                return new IOException("Failed writing to SFS", uploadFailure.getCause());
+            }
+        }
+        return e;
+    }
+}
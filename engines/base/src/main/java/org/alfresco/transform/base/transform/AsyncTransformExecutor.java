@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.alfresco.transform.exceptions.TransformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Runs http transforms that upload the content and download the result on a bounded executor rather than the servlet
+ * container's request threads, so long running transforms do not stop cheap requests such as {@code /ready},
+ * {@code /live} and {@code /transform/config} from being handled. Only used if {@code transform.http.async.enabled}.
+ * See {@link org.alfresco.transform.base.AsyncTransformController}.
+ */
+@Component
+@ConditionalOnProperty(name = "transform.http.async.enabled", havingValue = "true")
+public class AsyncTransformExecutor
+{
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransformExecutor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transform.http.async.threads}")
+    private int threads;
+    @Value("${transform.http.async.queue-capacity}")
+    private int queueCapacity;
+    @Value("${transform.http.async.timeout}")
+    private long timeout;
+
+    private ThreadPoolExecutor executor;
+    private Timer queueTime;
+    private Timer executionTime;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("http-transform-"));
+        queueTime = Timer.builder("transform.http.queue.time")
+            .description("Time http transforms wait for a transform thread")
+            .register(meterRegistry);
+        executionTime = Timer.builder("transform.http.execution.time")
+            .description("Time taken by http transforms once they have a transform thread")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues a transform.
+     *
+     * @return the result of the transform, which is set once it completes. Fails with a {@code TOO_MANY_REQUESTS}
+     *         status if too many transforms are already queued.
+     */
+    public DeferredResult<ResponseEntity<Resource>> submit(Supplier<ResponseEntity<Resource>> transform)
+    {
+        // A timeout of 0 means the container will not time out the request, which matches synchronous transforms.
+        DeferredResult<ResponseEntity<Resource>> deferredResult = new DeferredResult<>(timeout);
+        long queued = System.nanoTime();
+        try
+        {
+            Future<?> future = executor.submit(() ->
+            {
+                long started = System.nanoTime();
+                queueTime.record(started - queued, NANOSECONDS);
+                if (deferredResult.isSetOrExpired())
+                {
+                    // The request timed out while queued, so its files have already been deleted.
+                    logger.debug("Skipped an http transform as the request has already timed out");
+                    return;
+                }
+                try
+                {
+                    ResponseEntity<Resource> responseEntity = transform.get();
+                    if (!deferredResult.setResult(responseEntity))
+                    {
+                        deleteTargetFile(responseEntity);
+                    }
+                }
+                catch (Throwable t)
+                {
+                    deferredResult.setErrorResult(t);
+                }
+                finally
+                {
+                    executionTime.record(System.nanoTime() - started, NANOSECONDS);
+                }
+            });
+            // Interrupts a running transform, so that it does not carry on with files that are about to be deleted.
+            deferredResult.onTimeout(() -> future.cancel(true));
+        }
+        catch (RejectedExecutionException e)
+        {
+            deferredResult.setErrorResult(
+                new TransformException(TOO_MANY_REQUESTS, "Too many http transform requests are queued", e));
+        }
+        return deferredResult;
+    }
+
+    // The request has already timed out, so the TransformInterceptor has run before the target file was created.
+    private static void deleteTargetFile(ResponseEntity<Resource> responseEntity)
+    {
+        if (responseEntity != null && responseEntity.getBody() instanceof FileSystemResource resource
+            && resource.getFile().exists() && !resource.getFile().delete())
+        {
+            logger.error("Failed to delete temporary target file {}", resource.getPath());
+        }
+    }
+}
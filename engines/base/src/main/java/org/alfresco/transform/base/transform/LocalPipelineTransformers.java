@@ -0,0 +1,773 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import org.alfresco.transform.base.CustomTransformer;
+import org.alfresco.transform.base.TransformManager;
+import org.alfresco.transform.base.fs.FileManager.TempFileProvider;
+import org.alfresco.transform.base.registry.CustomTransformers;
+import org.alfresco.transform.base.registry.TransformRegistry;
+import org.alfresco.transform.base.registry.TransformerBulkhead;
+import org.alfresco.transform.base.util.CustomTransformerFileAdaptor;
+import org.alfresco.transform.common.ExtensionService;
+import org.alfresco.transform.config.TransformStep;
+import org.alfresco.transform.config.Transformer;
+import org.alfresco.transform.exceptions.TransformException;
+import org.alfresco.transform.registry.TransformerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.alfresco.transform.registry.TransformerType.FAILOVER_TRANSFORMER;
+import static org.alfresco.transform.registry.TransformerType.PIPELINE_TRANSFORMER;
+import static org.springframework.http.HttpStatus.INSUFFICIENT_STORAGE;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+/**
+ * Runs pipeline and failover transformers within this t-engine, rather than leaving them to the t-router, if every
+ * transformer they use is a {@link CustomTransformer} in this t-engine, such as in the all-in-one t-engine. A
+ * failover transformer tries each of its transformers in turn, until one succeeds. Only used if
+ * {@code transform.pipeline.local.enabled}.
+ * <p>
+ * Adjacent pipeline steps that use streams run at the same time on separate threads, connected by a
+ * {@link RingBufferPipe} of {@code transform.pipeline.local.stream-buffer-size}, so a pipeline takes roughly as long
+ * as its slowest step. The intermediate content is only held in a temporary file if either step needs a file, such as
+ * a {@link CustomTransformerFileAdaptor} or failover transformer, or streaming is disabled with a size of 0.
+ */
+@Component
+public class LocalPipelineTransformers
+{
+    private static final Logger logger = LoggerFactory.getLogger(LocalPipelineTransformers.class);
+
+    @Autowired
+    private TransformRegistry transformRegistry;
+    @Autowired(required = false)
+    private CustomTransformers customTransformers;
+
+    @Value("${transform.pipeline.local.enabled}")
+    private boolean enabled;
+    @Value("${transform.pipeline.local.stream-buffer-size}")
+    private DataSize streamBufferSize;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init()
+    {
+        executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("pipeline-step-"));
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return a {@link CustomTransformer} that runs the named pipeline or failover transformer, or {@code null} if
+     * local pipelines are not enabled, it is not a pipeline or failover transformer, or one of the transformers it
+     * uses is not available in this t-engine.
+     */
+    public CustomTransformer get(String transformerName)
+    {
+        return enabled && customTransformers != null
+            ? get(transformerName, new HashSet<>())
+            : null;
+    }
+
+    private CustomTransformer get(String transformerName, Set<String> parentNames)
+    {
+        Transformer transformer = transformRegistry.getTransformer(transformerName);
+        TransformerType type = TransformerType.valueOf(transformer);
+        if ((type != PIPELINE_TRANSFORMER && type != FAILOVER_TRANSFORMER) || !parentNames.add(transformerName))
+        {
+            return null;
+        }
+
+        try
+        {
+            List<Step> steps = new ArrayList<>();
+            if (type == PIPELINE_TRANSFORMER)
+            {
+                for (TransformStep transformStep : transformer.getTransformerPipeline())
+                {
+                    Step step = getStep(transformStep.getTransformerName(), transformStep.getTargetMediaType(),
+                        parentNames);
+                    if (step == null)
+                    {
+                        return null;
+                    }
+                    steps.add(step);
+                }
+                return new Pipeline(transformerName, steps);
+            }
+
+            for (String stepTransformerName : transformer.getTransformerFailover())
+            {
+                Step step = getStep(stepTransformerName, null, parentNames);
+                if (step == null)
+                {
+                    return null;
+                }
+                steps.add(step);
+            }
+            return new Failover(transformerName, steps);
+        }
+        finally
+        {
+            parentNames.remove(transformerName);
+        }
+    }
+
+    private Step getStep(String transformerName, String targetMimetype, Set<String> parentNames)
+    {
+        CustomTransformer customTransformer = customTransformers.getNamed(transformerName);
+        if (customTransformer != null)
+        {
+            return new Step(transformerName, customTransformer, targetMimetype, true);
+        }
+        customTransformer = get(transformerName, parentNames);
+        return customTransformer == null
+            ? null
+            : new Step(transformerName, customTransformer, targetMimetype, false);
+    }
+
+    /**
+     * Runs a single step. The source is either the supplied {@code inputStream} or, if not {@code null}, the
+     * {@code sourceFile}. Similarly the target is the {@code outputStream} or the {@code targetFile}. If
+     * {@code isPipedSource} or {@code isPipedTarget}, the streams are not those of the request, so a {@code File}
+     * requested from the {@link TransformManager} is created for the step rather than for the request.
+     * {@code heldPermits} are the names of the transformers for which permits have already been taken by an enclosing
+     * {@link #transformConcurrently}, so are not taken again by this step or any it contains.
+     */
+    private void transform(Step step, String sourceMimetype, InputStream inputStream, File sourceFile,
+        boolean isPipedSource, String targetMimetype, OutputStream outputStream, File targetFile,
+        boolean isPipedTarget, Map<String, String> transformOptions, TransformManager transformManager,
+        Set<String> heldPermits) throws Exception
+    {
+        // Each transformer is only given the options it declares, as the options may be for different steps.
+        Map<String, String> stepOptions = new HashMap<>(transformRegistry.filterOptions(step.transformerName,
+            transformOptions));
+        logger.debug("{} {} -> {}", step.transformerName, sourceMimetype, targetMimetype);
+
+        // Only the streams of intermediate files are closed here. Others are closed by their owner.
+        try (InputStream fileInputStream = sourceFile == null ? null
+                : new BufferedInputStream(new FileInputStream(sourceFile));
+             OutputStream fileOutputStream = targetFile == null ? null
+                : new BufferedOutputStream(new FileOutputStream(targetFile)))
+        {
+            InputStream stepInputStream = fileInputStream == null ? inputStream : fileInputStream;
+            OutputStream stepOutputStream = fileOutputStream == null ? outputStream : fileOutputStream;
+            try (StepTransformManager stepTransformManager = new StepTransformManager(transformManager,
+                    sourceMimetype, targetMimetype, sourceFile, targetFile,
+                    isPipedSource ? stepInputStream : null, isPipedTarget ? stepOutputStream : null);
+                 TransformerBulkhead.Permit permit = step.isCustomTransformer &&
+                    !heldPermits.contains(step.transformerName)
+                    ? customTransformers.acquirePermit(step.transformerName) : null)
+            {
+                if (step.customTransformer instanceof LocalTransformer)
+                {
+                    ((LocalTransformer) step.customTransformer).transform(sourceMimetype, stepInputStream,
+                        targetMimetype, stepOutputStream, stepOptions, stepTransformManager, heldPermits);
+                }
+                else
+                {
+                    step.customTransformer.transform(sourceMimetype, stepInputStream, targetMimetype,
+                        stepOutputStream, stepOptions, stepTransformManager);
+                }
+                stepTransformManager.copyTargetFileToOutputStream();
+            }
+        }
+    }
+
+    /**
+     * Runs adjacent pipeline steps at the same time, each connected to the next by a {@link RingBufferPipe}. The
+     * final step runs on the calling thread, so that it, like the rest of the request, may use the request's target.
+     * A failure in one step aborts the pipes either side of it, so that the other steps also stop.
+     * <p>
+     * The permits of all the steps, including those of any pipeline or failover transformers they contain, are taken
+     * before any of them start, in the same order by every request, rather than by each step's thread. Otherwise two
+     * requests could each hold a permit the other is waiting for.
+     */
+    private void transformConcurrently(List<Step> steps, List<String> mimetypes, InputStream inputStream,
+        File sourceFile, OutputStream outputStream, File targetFile, Map<String, String> transformOptions,
+        TransformManager transformManager, Set<String> heldPermits) throws Exception
+    {
+        Set<String> transformerNames = new TreeSet<>();
+        addTransformerNames(steps, transformerNames);
+        transformerNames.removeAll(heldPermits);
+        List<TransformerBulkhead.Permit> permits = acquirePermits(transformerNames);
+        try
+        {
+            transformerNames.addAll(heldPermits);
+            transformConcurrentlyWithPermits(steps, mimetypes, inputStream, sourceFile, outputStream, targetFile,
+                transformOptions, transformManager, transformerNames);
+        }
+        finally
+        {
+            permits.forEach(TransformerBulkhead.Permit::close);
+        }
+    }
+
+    /**
+     * Adds the names of the transformers used by the steps, and by the steps of any pipeline or failover transformers
+     * they contain. A transformer used by more than one step is only given one permit, as it would otherwise wait for
+     * itself.
+     */
+    private static void addTransformerNames(List<Step> steps, Set<String> transformerNames)
+    {
+        for (Step step : steps)
+        {
+            if (step.isCustomTransformer)
+            {
+                transformerNames.add(step.transformerName);
+            }
+            else
+            {
+                addTransformerNames(((LocalTransformer) step.customTransformer).getSteps(), transformerNames);
+            }
+        }
+    }
+
+    private List<TransformerBulkhead.Permit> acquirePermits(Set<String> transformerNames)
+    {
+        List<TransformerBulkhead.Permit> permits = new ArrayList<>();
+        try
+        {
+            for (String transformerName : transformerNames)
+            {
+                permits.add(customTransformers.acquirePermit(transformerName));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            permits.forEach(TransformerBulkhead.Permit::close);
+            throw e;
+        }
+        return permits;
+    }
+
+    private void transformConcurrentlyWithPermits(List<Step> steps, List<String> mimetypes, InputStream inputStream,
+        File sourceFile, OutputStream outputStream, File targetFile, Map<String, String> transformOptions,
+        TransformManager transformManager, Set<String> heldPermits) throws Exception
+    {
+        int last = steps.size() - 1;
+        int bufferSize = (int) streamBufferSize.toBytes();
+        RingBufferPipe[] pipes = new RingBufferPipe[last];
+        for (int i = 0; i < last; i++)
+        {
+            pipes[i] = new RingBufferPipe(bufferSize);
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < last; i++)
+        {
+            int index = i;
+            futures.add(executor.submit(() ->
+            {
+                // The pipe is aborted before the stream is closed, so a partial result is not seen as complete.
+                RingBufferPipe pipe = pipes[index];
+                OutputStream stepOutputStream = new BufferedOutputStream(pipe.getOutputStream());
+                try
+                {
+                    transform(steps.get(index), mimetypes.get(index),
+                        index == 0 ? inputStream : pipes[index - 1].getInputStream(),
+                        index == 0 ? sourceFile : null, true, mimetypes.get(index + 1), stepOutputStream,
+                        null, true, transformOptions, transformManager, heldPermits);
+                    stepOutputStream.close();
+                }
+                catch (Throwable t)
+                {
+                    // Including Errors, as the next step would otherwise wait for more content forever.
+                    pipe.abort(t);
+                    throw t;
+                }
+                finally
+                {
+                    if (index > 0)
+                    {
+                        pipes[index - 1].closeInput();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try
+        {
+            transform(steps.get(last), mimetypes.get(last), pipes[last - 1].getInputStream(), null, true,
+                mimetypes.get(last + 1), outputStream, targetFile, false, transformOptions, transformManager,
+                heldPermits);
+        }
+        catch (Throwable t)
+        {
+            // Including Errors, as the earlier steps would otherwise wait for space in their pipe forever.
+            for (RingBufferPipe pipe : pipes)
+            {
+                pipe.abort(t);
+            }
+            if (t instanceof Exception)
+            {
+                throw getUpstreamFailure(futures, (Exception) t);
+            }
+            throw t;
+        }
+        finally
+        {
+            pipes[last - 1].closeInput();
+        }
+
+        // The final step succeeded. Earlier steps may only have failed because a later step did not need all its
+        // content.
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (!isCausedByReaderClosing(e.getCause()))
+                {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the earlier steps once the final step has failed, so that they no longer use the request's streams.
+     * If the final step only failed because an earlier one did, the earliest step's failure is returned rather than
+     * {@code failure}, so that its status and message are not lost.
+     */
+    private static Exception getUpstreamFailure(List<Future<?>> futures, Exception failure)
+    {
+        Exception upstreamFailure = null;
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+                if (upstreamFailure == null && cause instanceof Exception && !isCausedByReaderClosing(cause) &&
+                    !isCausedBy(cause, failure))
+                {
+                    upstreamFailure = (Exception) cause;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return upstreamFailure == null ? failure : upstreamFailure;
+    }
+
+    private static boolean isCausedBy(Throwable t, Throwable cause)
+    {
+        for (; t != null; t = t.getCause())
+        {
+            if (t == cause)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCausedByReaderClosing(Throwable t)
+    {
+        for (; t != null; t = t.getCause())
+        {
+            if (t instanceof RingBufferPipe.ReaderClosedException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the step needs its content in a {@code File}, so there is no point in streaming it.
+     */
+    private static boolean isFileBased(Step step)
+    {
+        return step.customTransformer instanceof CustomTransformerFileAdaptor ||
+               step.customTransformer instanceof Failover;
+    }
+
+    private static File createIntermediateFile(String sourceMimetype, String targetMimetype)
+    {
+        try
+        {
+            String extension = "."+ExtensionService.getExtensionForTargetMimetype(targetMimetype, sourceMimetype);
+            return TempFileProvider.createTempFile("intermediate_", extension);
+        }
+        catch (Exception e)
+        {
+            throw new TransformException(INSUFFICIENT_STORAGE, "Failed to create an intermediate file", e);
+        }
+    }
+
+    private static void deleteIntermediateFile(File file)
+    {
+        if (file != null && !file.delete())
+        {
+            logger.error("Failed to delete temporary intermediate file {}", file.getPath());
+        }
+    }
+
+    private static class Step
+    {
+        private final String transformerName;
+        private final CustomTransformer customTransformer;
+        private final String targetMimetype;
+        private final boolean isCustomTransformer;
+
+        private Step(String transformerName, CustomTransformer customTransformer, String targetMimetype,
+            boolean isCustomTransformer)
+        {
+            this.transformerName = transformerName;
+            this.customTransformer = customTransformer;
+            this.targetMimetype = targetMimetype;
+            this.isCustomTransformer = isCustomTransformer;
+        }
+    }
+
+    /**
+     * A pipeline or failover transformer run by this t-engine. It is told which permits are already held, so that its
+     * steps do not wait for a permit held by the request itself.
+     */
+    private interface LocalTransformer extends CustomTransformer
+    {
+        List<Step> getSteps();
+
+        @Override
+        default void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+            OutputStream outputStream, Map<String, String> transformOptions, TransformManager transformManager)
+            throws Exception
+        {
+            transform(sourceMimetype, inputStream, targetMimetype, outputStream, transformOptions, transformManager,
+                Set.of());
+        }
+
+        void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+            OutputStream outputStream, Map<String, String> transformOptions, TransformManager transformManager,
+            Set<String> heldPermits) throws Exception;
+    }
+
+    private class Pipeline implements LocalTransformer
+    {
+        private final String transformerName;
+        private final List<Step> steps;
+
+        private Pipeline(String transformerName, List<Step> steps)
+        {
+            this.transformerName = transformerName;
+            this.steps = steps;
+        }
+
+        @Override
+        public String getTransformerName()
+        {
+            return transformerName;
+        }
+
+        @Override
+        public List<Step> getSteps()
+        {
+            return steps;
+        }
+
+        @Override
+        public void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+            OutputStream outputStream, Map<String, String> transformOptions, TransformManager transformManager,
+            Set<String> heldPermits) throws Exception
+        {
+            // mimetypes.get(i) is the source of step i and mimetypes.get(i + 1) its target.
+            List<String> mimetypes = new ArrayList<>();
+            mimetypes.add(sourceMimetype);
+            steps.subList(0, steps.size() - 1).forEach(step -> mimetypes.add(step.targetMimetype));
+            mimetypes.add(targetMimetype);
+
+            // The first step reads the inputStream and the last writes to the outputStream. The steps are split into
+            // runs of steps that stream to each other, with files between the runs.
+            File sourceFile = null;
+            try
+            {
+                int last = steps.size() - 1;
+                for (int first = 0; first <= last; )
+                {
+                    int end = first;
+                    while (end < last && streamBufferSize.toBytes() > 0 &&
+                           !isFileBased(steps.get(end)) && !isFileBased(steps.get(end + 1)))
+                    {
+                        end++;
+                    }
+
+                    File targetFile = end == last ? null
+                        : createIntermediateFile(mimetypes.get(end), mimetypes.get(end + 1));
+                    try
+                    {
+                        if (first == end)
+                        {
+                            LocalPipelineTransformers.this.transform(steps.get(first), mimetypes.get(first),
+                                inputStream, sourceFile, false, mimetypes.get(first + 1), outputStream, targetFile,
+                                false, transformOptions, transformManager, heldPermits);
+                        }
+                        else
+                        {
+                            transformConcurrently(steps.subList(first, end + 1), mimetypes.subList(first, end + 2),
+                                inputStream, sourceFile, outputStream, targetFile, transformOptions, transformManager,
+                                heldPermits);
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        deleteIntermediateFile(targetFile);
+                        throw e;
+                    }
+                    deleteIntermediateFile(sourceFile);
+                    sourceFile = targetFile;
+                    first = end + 1;
+                }
+            }
+            finally
+            {
+                deleteIntermediateFile(sourceFile);
+            }
+        }
+    }
+
+    private class Failover implements LocalTransformer
+    {
+        private final String transformerName;
+        private final List<Step> steps;
+
+        private Failover(String transformerName, List<Step> steps)
+        {
+            this.transformerName = transformerName;
+            this.steps = steps;
+        }
+
+        @Override
+        public String getTransformerName()
+        {
+            return transformerName;
+        }
+
+        @Override
+        public List<Step> getSteps()
+        {
+            return steps;
+        }
+
+        @Override
+        public void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+            OutputStream outputStream, Map<String, String> transformOptions, TransformManager transformManager,
+            Set<String> heldPermits) throws Exception
+        {
+            // Each attempt reads the source from a file and writes to its own file, so that a failed attempt does not
+            // consume the source or leave partial content in the outputStream. The source file belongs to the caller.
+            File sourceFile = transformManager.createSourceFile();
+            File targetFile = createIntermediateFile(sourceMimetype, targetMimetype);
+            try
+            {
+                Exception failure = null;
+                for (Step step : steps)
+                {
+                    try
+                    {
+                        LocalPipelineTransformers.this.transform(step, sourceMimetype, null, sourceFile, false,
+                            targetMimetype, null, targetFile, false, transformOptions, transformManager, heldPermits);
+                        Files.copy(targetFile.toPath(), outputStream);
+                        return;
+                    }
+                    catch (Exception e)
+                    {
+                        logger.debug("{} failed: {}", step.transformerName, e.getMessage());
+                        if (failure != null)
+                        {
+                            e.addSuppressed(failure);
+                        }
+                        failure = e;
+                    }
+                }
+                throw failure;
+            }
+            finally
+            {
+                deleteIntermediateFile(targetFile);
+            }
+        }
+    }
+
+    /**
+     * Provides the source and target {@code File}s of a step. These are the intermediate files if there are any. If
+     * the step is connected to another by a pipe, they are created for the step and hold a copy of its content.
+     * Otherwise, they are those of the request.
+     */
+    private static class StepTransformManager implements TransformManager, AutoCloseable
+    {
+        private final TransformManager transformManager;
+        private final String sourceMimetype;
+        private final String targetMimetype;
+        private final File sourceFile;
+        private final File targetFile;
+        private final InputStream pipedInputStream;
+        private final OutputStream pipedOutputStream;
+        private File pipedSourceFile;
+        private File pipedTargetFile;
+
+        private StepTransformManager(TransformManager transformManager, String sourceMimetype, String targetMimetype,
+            File sourceFile, File targetFile, InputStream pipedInputStream, OutputStream pipedOutputStream)
+        {
+            this.transformManager = transformManager;
+            this.sourceMimetype = sourceMimetype;
+            this.targetMimetype = targetMimetype;
+            this.sourceFile = sourceFile;
+            this.targetFile = targetFile;
+            this.pipedInputStream = pipedInputStream;
+            this.pipedOutputStream = pipedOutputStream;
+        }
+
+        @Override
+        public String getRequestId()
+        {
+            return transformManager.getRequestId();
+        }
+
+        @Override
+        public File createSourceFile()
+        {
+            if (sourceFile != null)
+            {
+                return sourceFile;
+            }
+            if (pipedInputStream == null)
+            {
+                return transformManager.createSourceFile();
+            }
+            if (pipedSourceFile == null)
+            {
+                pipedSourceFile = createIntermediateFile(sourceMimetype, sourceMimetype);
+                try
+                {
+                    Files.copy(pipedInputStream, pipedSourceFile.toPath(), REPLACE_EXISTING);
+                }
+                catch (IOException e)
+                {
+                    throw new TransformException(INSUFFICIENT_STORAGE, "Failed to store the source file", e);
+                }
+            }
+            return pipedSourceFile;
+        }
+
+        @Override
+        public File createTargetFile()
+        {
+            if (targetFile != null)
+            {
+                return targetFile;
+            }
+            if (pipedOutputStream == null)
+            {
+                return transformManager.createTargetFile();
+            }
+            if (pipedTargetFile == null)
+            {
+                pipedTargetFile = createIntermediateFile(sourceMimetype, targetMimetype);
+            }
+            return pipedTargetFile;
+        }
+
+        void copyTargetFileToOutputStream() throws IOException
+        {
+            if (pipedTargetFile != null)
+            {
+                Files.copy(pipedTargetFile.toPath(), pipedOutputStream);
+            }
+        }
+
+        @Override
+        public OutputStream respondWithFragment(Integer index, boolean finished) throws IOException
+        {
+            if (targetFile != null || pipedOutputStream != null)
+            {
+                throw new TransformException(INTERNAL_SERVER_ERROR,
+                    "Fragments may only be sent by the final step of a pipeline");
+            }
+            return transformManager.respondWithFragment(index, finished);
+        }
+
+        @Override
+        public boolean isRespondWithFragmentSupported()
+        {
+            return targetFile == null && pipedOutputStream == null && transformManager.isRespondWithFragmentSupported();
+        }
+
+        @Override
+        public void close()
+        {
+            deleteIntermediateFile(pipedSourceFile);
+            deleteIntermediateFile(pipedTargetFile);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.alfresco.transform.base.TransformController;
 import org.alfresco.transform.base.logging.LogEntry;
 import org.alfresco.transform.base.probes.ProbeTransform;
 import org.alfresco.transform.base.registry.CustomTransformers;
+import org.alfresco.transform.base.registry.TransformerBulkhead;
 import org.alfresco.transform.client.model.TransformRequest;
 import org.alfresco.transform.exceptions.TransformException;
 import org.alfresco.transform.common.TransformerDebug;
@@ -76,10 +77,12 @@ abstract class ProcessHandler extends FragmentHandler
     private final TransformerDebug transformerDebug;
     private final ProbeTransform probeTransform;
     private final CustomTransformers customTransformers;
+    private final LocalPipelineTransformers localPipelineTransformers;
 
     ProcessHandler(String sourceMimetype, String targetMimetype, Map<String, String> transformOptions,
         String reference, TransformServiceRegistry transformRegistry, TransformerDebug transformerDebug,
-        ProbeTransform probeTransform, CustomTransformers customTransformers)
+        ProbeTransform probeTransform, CustomTransformers customTransformers,
+        LocalPipelineTransformers localPipelineTransformers)
     {
         this.sourceMimetype = sourceMimetype;
         this.targetMimetype = targetMimetype;
@@ -90,6 +93,7 @@ abstract class ProcessHandler extends FragmentHandler
         this.transformerDebug = transformerDebug;
         this.probeTransform = probeTransform;
         this.customTransformers = customTransformers;
+        this.localPipelineTransformers = localPipelineTransformers;
     }
 
     private static Map<String, String> cleanTransformOptions(Map<String, String> requestParameters)
@@ -127,7 +131,10 @@ abstract class ProcessHandler extends FragmentHandler
             CustomTransformer customTransformer = getCustomTransformer(transformName);
             transformerDebug.pushTransform(reference, sourceMimetype, targetMimetype, sourceSizeInBytes, transformName);
             transformerDebug.logOptions(reference, transformOptions);
-            handleTransform(customTransformer);
+            try (TransformerBulkhead.Permit permit = acquirePermit(transformName))
+            {
+                handleTransform(customTransformer);
+            }
         }
         catch (TransformException e)
         {
@@ -150,6 +157,14 @@ abstract class ProcessHandler extends FragmentHandler
         }
     }
 
+    /**
+     * Limits the number of transforms each transformer may run at the same time. See {@link TransformerBulkhead}.
+     */
+    protected TransformerBulkhead.Permit acquirePermit(String transformName)
+    {
+        return customTransformers.acquirePermit(transformName);
+    }
+
     @Override
     protected void logFragment(Integer index, Long outputLength)
     {
@@ -207,7 +222,14 @@ abstract class ProcessHandler extends FragmentHandler
 
     private CustomTransformer getCustomTransformer(String transformName)
     {
-        CustomTransformer customTransformer = customTransformers.get(transformName);
+        // Pipeline and failover transformers are normally only run by the t-router. See LocalPipelineTransformers.
+        CustomTransformer customTransformer = localPipelineTransformers == null
+            ? null
+            : localPipelineTransformers.get(transformName);
+        if (customTransformer == null)
+        {
+            customTransformer = customTransformers.get(transformName);
+        }
         if (customTransformer == null)
         {
             throw new TransformException(INTERNAL_SERVER_ERROR, "Custom Transformer "+transformName+" not found");
@@ -0,0 +1,240 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * A bounded pipe between two threads, which passes content from one pipeline step's {@code OutputStream} to the next
+ * step's {@code InputStream} without it being written to disk. The writer waits while the buffer is full and the
+ * reader waits while it is empty.
+ * <p>
+ * Unlike {@link java.io.PipedInputStream} it does not check whether the other thread is still alive, which does not
+ * work with threads from a pool. Instead each side is explicitly closed, or the pipe is {@link #abort aborted} if a
+ * step fails, so that the reader does not mistake a failure for the end of the content.
+ */
+class RingBufferPipe
+{
+    /**
+     * Thrown to the writer once the reader has closed its end of the pipe.
+     */
+    static class ReaderClosedException extends IOException
+    {
+        ReaderClosedException()
+        {
+            super("The next step has stopped reading");
+        }
+    }
+
+    private final byte[] buffer;
+    private int readPosition;
+    private int count;
+    private boolean writerClosed;
+    private boolean readerClosed;
+    private Throwable failure;
+
+    private final InputStream inputStream = new InputStream()
+    {
+        @Override
+        public int read() throws IOException
+        {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            return RingBufferPipe.this.read(b, off, len);
+        }
+
+        @Override
+        public int available()
+        {
+            synchronized (RingBufferPipe.this)
+            {
+                return count;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            closeInput();
+        }
+    };
+
+    private final OutputStream outputStream = new OutputStream()
+    {
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            RingBufferPipe.this.write(b, off, len);
+        }
+
+        @Override
+        public void close()
+        {
+            closeOutput();
+        }
+    };
+
+    RingBufferPipe(int capacity)
+    {
+        buffer = new byte[capacity];
+    }
+
+    InputStream getInputStream()
+    {
+        return inputStream;
+    }
+
+    OutputStream getOutputStream()
+    {
+        return outputStream;
+    }
+
+    private synchronized int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        while (count == 0 && !writerClosed && failure == null && !readerClosed)
+        {
+            await();
+        }
+        if (failure != null)
+        {
+            throw new IOException("The previous step failed", failure);
+        }
+        if (readerClosed)
+        {
+            throw new IOException("Pipe closed");
+        }
+        if (count == 0)
+        {
+            return -1;
+        }
+
+        int n = Math.min(len, count);
+        int first = Math.min(n, buffer.length - readPosition);
+        System.arraycopy(buffer, readPosition, b, off, first);
+        System.arraycopy(buffer, 0, b, off + first, n - first);
+        readPosition = (readPosition + n) % buffer.length;
+        count -= n;
+        notifyAll();
+        return n;
+    }
+
+    private synchronized void write(byte[] b, int off, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            while (count == buffer.length && !readerClosed && failure == null && !writerClosed)
+            {
+                await();
+            }
+            if (readerClosed)
+            {
+                throw new ReaderClosedException();
+            }
+            if (failure != null)
+            {
+                throw new IOException("Pipe aborted", failure);
+            }
+            if (writerClosed)
+            {
+                throw new IOException("Pipe closed");
+            }
+
+            int writePosition = (readPosition + count) % buffer.length;
+            int n = Math.min(len, buffer.length - count);
+            int first = Math.min(n, buffer.length - writePosition);
+            System.arraycopy(b, off, buffer, writePosition, first);
+            System.arraycopy(b, off + first, buffer, 0, n - first);
+            count += n;
+            off += n;
+            len -= n;
+            notifyAll();
+        }
+    }
+
+    private void await() throws InterruptedIOException
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a pipeline step");
+        }
+    }
+
+    /**
+     * Indicates there is no more content. The reader sees the end of the stream once it has read what is buffered.
+     */
+    synchronized void closeOutput()
+    {
+        writerClosed = true;
+        notifyAll();
+    }
+
+    /**
+     * Indicates the reader does not need any more content. Any further writes fail.
+     */
+    synchronized void closeInput()
+    {
+        readerClosed = true;
+        count = 0;
+        notifyAll();
+    }
+
+    /**
+     * Fails any waiting or future reads and writes, even if content is still buffered, so that a partial result is
+     * not used.
+     */
+    synchronized void abort(Throwable cause)
+    {
+        if (failure == null)
+        {
+            failure = cause;
+        }
+        notifyAll();
+    }
+}
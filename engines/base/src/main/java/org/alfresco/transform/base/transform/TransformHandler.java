@@ -26,11 +26,16 @@
  */
 package org.alfresco.transform.base.transform;
 
+import org.alfresco.transform.base.logging.LogEntry;
 import org.alfresco.transform.base.sfs.SharedFileStoreClient;
+import org.alfresco.transform.base.sfs.SharedFileStoreOutputStream;
+import org.alfresco.transform.base.messaging.QueuePipeline;
 import org.alfresco.transform.base.messaging.TransformReplySender;
 import org.alfresco.transform.base.model.FileRefResponse;
 import org.alfresco.transform.base.probes.ProbeTransform;
 import org.alfresco.transform.base.registry.CustomTransformers;
+import org.alfresco.transform.base.registry.TransformerBulkhead;
+import org.alfresco.transform.base.registry.TransformerBusyException;
 import org.alfresco.transform.client.model.InternalContext;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.client.model.TransformRequest;
@@ -43,6 +48,7 @@ import org.alfresco.transform.registry.TransformServiceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -64,6 +70,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -89,6 +96,8 @@ public class TransformHandler
 
     @Autowired(required = false)
     private CustomTransformers customTransformers;
+    @Autowired(required = false)
+    private LocalPipelineTransformers localPipelineTransformers;
     @Autowired
     private SharedFileStoreClient alfrescoSharedFileStoreClient;
     @Autowired
@@ -99,6 +108,10 @@ public class TransformHandler
     private TransformReplySender transformReplySender;
     @Autowired
     private TransformerDebug transformerDebug;
+    @Autowired
+    private QueuePipeline queuePipeline;
+    @Value("${filestore-streaming-upload}")
+    private boolean streamingUpload;
 
     private final AtomicInteger httpRequestCount = new AtomicInteger(1);
 
@@ -110,12 +123,16 @@ public class TransformHandler
 
         new ProcessHandler(sourceMimetype, targetMimetype, requestParameters,
             "e" + httpRequestCount.getAndIncrement(), transformRegistry,
-            transformerDebug, probeTransform, customTransformers)
+            transformerDebug, probeTransform, customTransformers, localPipelineTransformers)
         {
             @Override
             protected void init() throws IOException
             {
                 transformManager.setRequest(request);
+                if (requestParameters.getOrDefault(DIRECT_ACCESS_URL, "").isBlank())
+                {
+                    transformManager.setSourceMultipartFile(sourceMultipartFile);
+                }
                 transformManager.setTargetFile(createTargetFile(request, sourceMimetype, targetMimetype));
                 transformManager.keepTargetFile(); // Will be deleted in TransformInterceptor.afterCompletion()
                 super.init();
@@ -150,12 +167,74 @@ public class TransformHandler
         return responseEntity.get();
     }
 
+    /**
+     * Handles an http request whose source (unless it is read from a {@code DIRECT_ACCESS_URL}) and target files have
+     * already been created on the servlet container's thread, so that it may be run on another thread without using
+     * the {@code HttpServletRequest} or {@code MultipartFile}, which may have been recycled by the time it runs.
+     * Both files are still deleted in {@code TransformInterceptor.afterCompletion()}.
+     */
+    public ResponseEntity<Resource> handleHttpRequestFromFiles(File sourceFile, File targetFile,
+            String sourceMimetype, String targetMimetype, Map<String, String> requestParameters,
+            ProbeTransform probeTransform)
+    {
+        AtomicReference<ResponseEntity<Resource>> responseEntity = new AtomicReference<>();
+
+        new ProcessHandler(sourceMimetype, targetMimetype, requestParameters,
+            "e" + httpRequestCount.getAndIncrement(), transformRegistry,
+            transformerDebug, probeTransform, customTransformers, localPipelineTransformers)
+        {
+            @Override
+            protected void init() throws IOException
+            {
+                transformManager.setHttpRequest();
+                if (sourceFile != null)
+                {
+                    transformManager.setSourceFile(sourceFile);
+                    LogEntry.setSource(sourceFile.getName(), sourceFile.length());
+                }
+                transformManager.setTargetFile(targetFile);
+                LogEntry.setTarget(targetFile.getName());
+                transformManager.keepTargetFile();
+                super.init();
+            }
+
+            @Override
+            protected InputStream getInputStream()
+            {
+                return sourceFile == null
+                    ? getInputStreamForHandleHttpRequest(requestParameters, null)
+                    : getInputStreamFromFile(sourceFile);
+            }
+
+            @Override
+            protected OutputStream getOutputStream() throws IOException
+            {
+                return getOutputStreamFromFile(transformManager.getTargetFile());
+            }
+
+            @Override
+            protected long getSourceSize()
+            {
+                return sourceFile == null ? -1 : sourceFile.length();
+            }
+
+            @Override
+            protected void sendTransformResponse(TransformManagerImpl transformManager)
+            {
+                String extension = ExtensionService.getExtensionForTargetMimetype(targetMimetype, sourceMimetype);
+                responseEntity.set(createAttachment("transform."+extension, transformManager.getTargetFile()));
+            }
+        }.handleTransformRequest();
+
+        return responseEntity.get();
+    }
+
     public void handleProbeRequest(String sourceMimetype, String targetMimetype, Map<String, String> transformOptions,
         File sourceFile, File targetFile, ProbeTransform probeTransform)
     {
         new ProcessHandler(sourceMimetype, targetMimetype, transformOptions,
             "p" + httpRequestCount.getAndIncrement(), transformRegistry,
-            transformerDebug, probeTransform, customTransformers)
+            transformerDebug, probeTransform, customTransformers, localPipelineTransformers)
         {
             @Override
             protected void init() throws IOException
@@ -169,7 +248,7 @@ public class TransformHandler
             @Override
             protected InputStream getInputStream()
             {
-                return getInputStreamForHandleProbeRequest(sourceFile);
+                return getInputStreamFromFile(sourceFile);
             }
 
             @Override
@@ -178,6 +257,13 @@ public class TransformHandler
                 return sourceFile.length();
             }
 
+            @Override
+            protected TransformerBulkhead.Permit acquirePermit(String transformName)
+            {
+                // Probes must not fail just because the t-engine is busy
+                return () -> {};
+            }
+
             @Override
             protected OutputStream getOutputStream() throws IOException
             {
@@ -190,29 +276,71 @@ public class TransformHandler
         ProbeTransform probeTransform)
     {
         TransformReply reply = createBasicTransformReply(request);
+        try (QueuePipeline.Stages stages = queuePipeline.startStages())
+        {
+            handleMessageRequest(request, timeout, replyToQueue, probeTransform, reply, stages);
+        }
+        return reply;
+    }
+
+    private void handleMessageRequest(TransformRequest request, Long timeout, Destination replyToQueue,
+        ProbeTransform probeTransform, TransformReply reply, QueuePipeline.Stages stages)
+    {
         new ProcessHandler(request.getSourceMediaType(), request.getTargetMediaType(),
             request.getTransformRequestOptions(),"unset", transformRegistry,
-            transformerDebug, probeTransform, customTransformers)
+            transformerDebug, probeTransform, customTransformers, localPipelineTransformers)
         {
+            private SharedFileStoreOutputStream sharedFileStoreOutputStream;
+
             @Override
             protected void init() throws IOException
             {
                 checkTransformRequestValid(request, reply);
                 reference = TransformStack.getReference(reply.getInternalContext());
                 initTarget();
+                if (queuePipeline.isEnabled())
+                {
+                    transformManager.setSourceFile(stages.spoolSource(
+                        () -> getInputStreamForHandleMessageRequest(request), request.getSourceSize(), sourceMimetype));
+                }
                 super.init();
             }
 
+            @Override
+            protected TransformerBulkhead.Permit acquirePermit(String transformName)
+            {
+                // The pipeline's transform slot is only taken once the transformer may run, so that a request
+                // waiting for a busy transformer does not stop requests for other transformers.
+                TransformerBulkhead.Permit permit = super.acquirePermit(transformName);
+                try
+                {
+                    stages.startTransform();
+                }
+                catch (RuntimeException e)
+                {
+                    permit.close();
+                    throw e;
+                }
+                return permit;
+            }
+
             @Override
             protected void initTarget()
             {
-                transformManager.setTargetFile(createTargetFile(null, sourceMimetype, targetMimetype));
+                // When streaming, the target is uploaded to the SFS as it is written, so there is no target file.
+                if (!streamingUpload)
+                {
+                    transformManager.setTargetFile(createTargetFile(null, sourceMimetype, targetMimetype));
+                }
             }
 
             @Override
             protected InputStream getInputStream()
             {
-                return getInputStreamForHandleMessageRequest(request);
+                File sourceFile = transformManager.getSourceFile();
+                return sourceFile == null
+                    ? getInputStreamForHandleMessageRequest(request)
+                    : getInputStreamFromFile(sourceFile);
             }
 
             @Override
@@ -224,30 +352,65 @@ public class TransformHandler
             @Override
             protected OutputStream getOutputStream() throws IOException
             {
+                if (streamingUpload)
+                {
+                    String filename = "target."+ExtensionService.getExtensionForTargetMimetype(targetMimetype, sourceMimetype);
+                    LogEntry.setTarget(filename);
+                    sharedFileStoreOutputStream = alfrescoSharedFileStoreClient.saveFileAsStream(filename);
+                    return new BufferedOutputStream(sharedFileStoreOutputStream);
+                }
                 return getOutputStreamFromFile(transformManager.getTargetFile());
             }
 
             @Override
             protected void sendTransformResponse(TransformManagerImpl transformManager)
             {
+                stages.endTransform();
                 reply.getInternalContext().setCurrentSourceSize(transformManager.getOutputLength());
-                saveTargetFileInSharedFileStore(transformManager.getTargetFile(), reply);
+                if (streamingUpload)
+                {
+                    saveTargetInSharedFileStore(() ->
+                    {
+                        transformManager.getOutputStream().close();
+                        return sharedFileStoreOutputStream.getFileRefResponse();
+                    }, reply);
+                }
+                else
+                {
+                    saveTargetInSharedFileStore(() ->
+                        alfrescoSharedFileStoreClient.saveFile(transformManager.getTargetFile()), reply);
+                }
                 sendSuccessfulResponse(timeout, reply, replyToQueue);
             }
 
             @Override
             protected void handleTransformException(TransformException e)
             {
+                abortStreamingUpload();
+                if (e instanceof TransformerBusyException && replyToQueue != null)
+                {
+                    // The message is redelivered after a delay, rather than replying with a failure.
+                    // See QueueTransformService.
+                    throw e;
+                }
                 sendFailedResponse(reply, e, e.getStatus(), replyToQueue);
             }
 
             @Override
             protected void handleException(Exception e)
             {
+                abortStreamingUpload();
                 sendFailedResponse(reply, e, INTERNAL_SERVER_ERROR, replyToQueue);
             }
+
+            private void abortStreamingUpload()
+            {
+                if (sharedFileStoreOutputStream != null)
+                {
+                    sharedFileStoreOutputStream.abort();
+                }
+            }
         }.handleTransformRequest();
-        return reply;
     }
 
     private void sendSuccessfulResponse(Long timeout, TransformReply reply, Destination replyToQueue)
@@ -345,7 +508,7 @@ public class TransformHandler
             : getDirectAccessUrlInputStream(directUrl));
     }
 
-    private InputStream getInputStreamForHandleProbeRequest(File sourceFile)
+    private InputStream getInputStreamFromFile(File sourceFile)
     {
         try
         {
@@ -353,7 +516,7 @@ public class TransformHandler
         }
         catch (FileNotFoundException e)
         {
-            throw new TransformException(INTERNAL_SERVER_ERROR, messageWithCause("Failed to read the probe source", e));
+            throw new TransformException(INTERNAL_SERVER_ERROR, messageWithCause("Failed to read the source file", e));
         }
     }
 
@@ -370,10 +533,6 @@ public class TransformHandler
         {
             throw new TransformException(e.getStatus(), messageWithCause("Failed to read the source", e));
         }
-        catch (HttpClientErrorException e)
-        {
-            throw new TransformException(HttpStatus.resolve(e.getStatusCode().value()), messageWithCause("Failed to read the source from the SFS", e));
-        }
     }
 
     private OutputStream getOutputStreamFromFile(File targetFile) throws IOException
@@ -381,12 +540,12 @@ public class TransformHandler
         return new BufferedOutputStream(new FileOutputStream(targetFile));
     }
 
-    private void saveTargetFileInSharedFileStore(File targetFile, TransformReply reply)
+    private void saveTargetInSharedFileStore(Callable<FileRefResponse> save, TransformReply reply)
     {
         FileRefResponse targetRef;
         try
         {
-            targetRef = alfrescoSharedFileStoreClient.saveFile(targetFile);
+            targetRef = save.call();
         }
         catch (TransformException e)
         {
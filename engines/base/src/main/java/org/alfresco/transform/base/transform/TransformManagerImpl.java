@@ -32,6 +32,7 @@ import org.alfresco.transform.base.util.OutputStreamLengthRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.File;
@@ -48,8 +49,10 @@ public class TransformManagerImpl implements TransformManager
     private static final Logger logger = LoggerFactory.getLogger(TransformManagerImpl.class);
 
     private HttpServletRequest request;
+    private boolean httpRequest;
     private ProcessHandler processHandler;
     private InputStream inputStream;
+    private MultipartFile sourceMultipartFile;
     private OutputStreamLengthRecorder outputStreamLengthRecorder;
     private String sourceMimetype;
     private String targetMimetype;
@@ -64,6 +67,16 @@ public class TransformManagerImpl implements TransformManager
     public void setRequest(HttpServletRequest request)
     {
         this.request = request;
+        httpRequest = request != null;
+    }
+
+    /**
+     * Marks this as an http request, when the {@code HttpServletRequest} itself may not be used, because the source and
+     * target files have already been created.
+     */
+    public void setHttpRequest()
+    {
+        httpRequest = true;
     }
 
     public void setProcessHandler(ProcessHandler processHandler)
@@ -86,6 +99,15 @@ public class TransformManagerImpl implements TransformManager
         return inputStream;
     }
 
+    /**
+     * Allows {@link #createSourceFile()} to take the content directly from an upload, rather than copying the
+     * {@code InputStream}.
+     */
+    public void setSourceMultipartFile(MultipartFile sourceMultipartFile)
+    {
+        this.sourceMultipartFile = sourceMultipartFile;
+    }
+
     public OutputStream getOutputStream()
     {
         return outputStreamLengthRecorder;
@@ -159,7 +181,9 @@ public class TransformManagerImpl implements TransformManager
 
         if (sourceFile == null)
         {
-            sourceFile = FileManager.createSourceFile(request, inputStream, sourceMimetype);
+            sourceFile = sourceMultipartFile == null
+                ? FileManager.createSourceFile(request, inputStream, sourceMimetype)
+                : FileManager.createSourceFile(request, sourceMultipartFile, sourceMimetype);
         }
         return sourceFile;
     }
@@ -205,6 +229,7 @@ public class TransformManagerImpl implements TransformManager
             logger.error("Failed to delete temporary source file {}", sourceFile.getPath());
         }
         outputStreamLengthRecorder = null;
+        sourceMultipartFile = null;
         sourceFile = null;
         createSourceFileCalled = false;
         startedWithSourceFile = null;
@@ -221,10 +246,16 @@ public class TransformManagerImpl implements TransformManager
         startedWithTargetFile = null;
     }
 
+    @Override
+    public boolean isRespondWithFragmentSupported()
+    {
+        return !httpRequest;
+    }
+
     @Override
     public OutputStream respondWithFragment(Integer index, boolean finished) throws IOException
     {
-        if (request != null)
+        if (httpRequest)
         {
             throw new IllegalStateException("Fragments may only be sent via message queues. This an http request");
         }
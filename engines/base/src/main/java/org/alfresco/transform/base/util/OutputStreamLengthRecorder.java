@@ -56,9 +56,11 @@ public class OutputStreamLengthRecorder extends FilterOutputStream
         byteCount++;
     }
 
+    // FilterOutputStream would otherwise write each byte separately
     @Override
     public void write(byte b[], int off, int len) throws IOException
     {
-        super.write(b, off, len);
+        out.write(b, off, len);
+        byteCount += len;
     }
 }
\ No newline at end of file
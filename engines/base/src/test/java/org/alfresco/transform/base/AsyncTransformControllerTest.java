@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_TEXT_PLAIN;
+import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_TRANSFORM;
+import static org.alfresco.transform.common.RequestParamMap.PAGE_REQUEST_PARAM;
+import static org.alfresco.transform.common.RequestParamMap.SOURCE_MIMETYPE;
+import static org.alfresco.transform.common.RequestParamMap.TARGET_MIMETYPE;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import org.alfresco.transform.base.fakes.FakeTransformEngineWithTwoCustomTransformers;
+import org.alfresco.transform.base.fakes.FakeTransformerPdf2Png;
+import org.alfresco.transform.base.fakes.FakeTransformerTxT2Pdf;
+import org.alfresco.transform.base.logging.LogEntry;
+import org.alfresco.transform.base.sfs.SharedFileStoreClient;
+
+/**
+ * Tests the /transform endpoint that uploads and downloads content, when transforms are run asynchronously.
+ *
+ * Also see {@link TransformControllerTest}.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(classes={org.alfresco.transform.base.Application.class},
+    properties = {"transform.http.async.enabled=true"})
+@ContextConfiguration(classes = {
+    FakeTransformEngineWithTwoCustomTransformers.class,
+    FakeTransformerTxT2Pdf.class,
+    FakeTransformerPdf2Png.class})
+public class AsyncTransformControllerTest
+{
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @MockBean
+    protected SharedFileStoreClient fakeSfsClient;
+
+    private MvcResult transform(String... extraParam) throws Exception
+    {
+        MvcResult mvcResult = mockMvc.perform(
+                MockMvcRequestBuilders.multipart(ENDPOINT_TRANSFORM)
+                    .file(new MockMultipartFile("file", null, MIMETYPE_TEXT_PLAIN,
+                        "Start".getBytes(StandardCharsets.UTF_8)))
+                    .param(SOURCE_MIMETYPE, MIMETYPE_TEXT_PLAIN)
+                    .param(TARGET_MIMETYPE, MIMETYPE_PDF)
+                    .param(extraParam[0], extraParam[1]))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvcResult.getAsyncResult(5000); // There is no async request timeout, so wait for the transform
+        return mvcResult;
+    }
+
+    @Test
+    public void testTransformEndpointThatUploadsAndDownloadsContent() throws Exception
+    {
+        long count = meterRegistry.get("transform.http.execution.time").timer().count();
+
+        MvcResult mvcResult = transform(PAGE_REQUEST_PARAM, "1");
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition",
+                "attachment; filename*=UTF-8''transform.pdf"))
+            .andExpect(content().string("Start -> TxT2Pdf(page=1)"));
+
+        assertEquals(count + 1, meterRegistry.get("transform.http.execution.time").timer().count());
+        assertEquals(count + 1, meterRegistry.get("transform.http.queue.time").timer().count());
+    }
+
+    @Test
+    public void testTransformIsLoggedOnceWithItsSourceAndTarget() throws Exception
+    {
+        int lastId = LogEntry.getLog().stream().mapToInt(LogEntry::getId).max().orElse(0);
+
+        MvcResult mvcResult = transform(PAGE_REQUEST_PARAM, "1");
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk());
+
+        List<LogEntry> entries = LogEntry.getLog().stream()
+            .filter(logEntry -> logEntry.getId() > lastId)
+            .collect(Collectors.toList());
+        assertEquals(1, entries.size());
+        assertEquals(200, entries.get(0).getStatusCode());
+        assertEquals("txt", entries.get(0).getSource());
+        assertEquals("5bytes", entries.get(0).getSourceSize());
+        assertEquals("pdf", entries.get(0).getTarget());
+    }
+
+    @Test
+    public void testInterceptOfTransformException_noTransformers() throws Exception
+    {
+        MvcResult mvcResult = transform("unknown", "1");
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("TwoCustomTransformers Error Page")))
+            .andExpect(content().string(containsString(
+                "No transforms for: text/plain (5 bytes) -&gt; application/pdf unknown=1")));
+    }
+}
@@ -27,6 +27,7 @@
 package org.alfresco.transform.base;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -36,6 +37,8 @@ import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -45,8 +48,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import static org.alfresco.transform.base.AbstractBaseTest.getTestFile;
 import static org.alfresco.transform.common.Mimetype.MIMETYPE_IMAGE_BMP;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_IMAGE_PNG;
 import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
 import static org.alfresco.transform.common.Mimetype.MIMETYPE_TEXT_PLAIN;
+import static org.alfresco.transform.common.RequestParamMap.CONFIG_DELTA_SINCE;
 import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_ERROR;
 import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_LIVE;
 import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_LOG;
@@ -94,6 +99,7 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import org.alfresco.transform.base.fakes.FakeTransformEngineWithTwoCustomTransformers;
@@ -102,7 +108,9 @@ import org.alfresco.transform.base.fakes.FakeTransformerTxT2Pdf;
 import org.alfresco.transform.base.model.FileRefEntity;
 import org.alfresco.transform.base.model.FileRefResponse;
 import org.alfresco.transform.base.probes.ProbeTransform;
+import org.alfresco.transform.base.registry.TransformRegistry;
 import org.alfresco.transform.base.sfs.SharedFileStoreClient;
+import org.alfresco.transform.base.transform.LocalPipelineTransformers;
 import org.alfresco.transform.base.transform.TransformHandler;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.client.model.TransformRequest;
@@ -129,6 +137,10 @@ public class TransformControllerTest
     protected ObjectMapper objectMapper;
     @Autowired
     private String coreVersion;
+    @Autowired
+    private LocalPipelineTransformers localPipelineTransformers;
+    @Autowired
+    private TransformRegistry transformRegistry;
     @TempDir
     public File tempDir;
     @MockBean
@@ -339,6 +351,54 @@ public class TransformControllerTest
             "directAccessUrl,docOptions,imageOptions", mockMvc, objectMapper);
     }
 
+    @Test
+    public void testConfigEndpointReturns304WhenETagMatches() throws Exception
+    {
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG))
+                             .andExpect(status().isOk())
+                             .andReturn()
+                             .getResponse()
+                             .getHeader(ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG).header(IF_NONE_MATCH, eTag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(ETAG, eTag))
+               .andExpect(content().string(""));
+
+        // The latest config has different content, so a different ETag
+        mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG_LATEST).header(IF_NONE_MATCH, eTag))
+               .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testConfigEndpointReturnsDelta() throws Exception
+    {
+        // The registry is loaded asynchronously, so may not be ready if this is the first test in a new context.
+        await().until(transformRegistry::isReadyForTransformRequests);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG))
+                             .andReturn()
+                             .getResponse()
+                             .getHeader(ETAG);
+
+        TransformConfig delta = objectMapper.readValue(
+            mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG).param(CONFIG_DELTA_SINCE, eTag))
+                   .andExpect(status().isOk())
+                   .andExpect(header().string("X-Alfresco-Config-Delta-Since", eTag))
+                   .andExpect(header().string(ETAG,
+                       eTag.substring(0, eTag.length() - 1) + "-delta-" + eTag.substring(1)))
+                   .andReturn()
+                   .getResponse()
+                   .getContentAsString(), TransformConfig.class);
+        assertEquals(0, delta.getTransformers().size());
+        assertEquals(0, delta.getTransformOptions().size());
+
+        // An unknown ETag gets the full config
+        mockMvc.perform(MockMvcRequestBuilders.get(ENDPOINT_TRANSFORM_CONFIG).param(CONFIG_DELTA_SINCE, "\"unknown\""))
+               .andExpect(status().isOk())
+               .andExpect(header().doesNotExist("X-Alfresco-Config-Delta-Since"))
+               .andExpect(header().string(ETAG, eTag));
+    }
+
     static void assertConfig(String url, String expectedTransformers, String expectedOptions,
         MockMvc mockMvc, ObjectMapper objectMapper) throws Exception
     {
@@ -435,6 +495,33 @@ public class TransformControllerTest
             .andExpect(content().string("Start -> TxT2Pdf(page=1)"));
     }
 
+    @Test
+    public void testPipelineRunLocally() throws Exception
+    {
+        RequestBuilder request = MockMvcRequestBuilders.multipart(ENDPOINT_TRANSFORM)
+            .file(new MockMultipartFile("file", null, MIMETYPE_TEXT_PLAIN,
+                "Start".getBytes(StandardCharsets.UTF_8)))
+            .param(SOURCE_MIMETYPE, MIMETYPE_TEXT_PLAIN)
+            .param(TARGET_MIMETYPE, MIMETYPE_IMAGE_PNG)
+            .param("width", "10");
+
+        // Left to the t-router by default
+        mockMvc.perform(request)
+            .andExpect(status().isInternalServerError());
+
+        ReflectionTestUtils.setField(localPipelineTransformers, "enabled", true);
+        try
+        {
+            mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().string("Start -> TxT2Pdf() -> Pdf2Png(width=10)"));
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(localPipelineTransformers, "enabled", false);
+        }
+    }
+
     @Test
     public void testTestTransformEndpointWhichConvertsRequestParameters() throws Exception
     {
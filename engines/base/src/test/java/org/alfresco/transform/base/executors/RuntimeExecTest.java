@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.executors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.condition.OS.WINDOWS;
+
+/**
+ * Tests {@link RuntimeExec} with a {@link ProcessSupervisor}.
+ */
+@DisabledOnOs(WINDOWS)
+public class RuntimeExecTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp()
+    {
+        RuntimeExec.setProcessSupervisor(new ProcessSupervisor(meterRegistry, Duration.ofMillis(500), 10_000, 100,
+            null));
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        RuntimeExec.setProcessSupervisor(null);
+    }
+
+    private static RuntimeExec shell(String script)
+    {
+        RuntimeExec runtimeExec = new RuntimeExec();
+        runtimeExec.setCommand(new String[]{"sh", "-c", script});
+        return runtimeExec;
+    }
+
+    @Test
+    public void outputIsCaptured()
+    {
+        RuntimeExec.ExecutionResult result = shell("echo out; echo err >&2; exit 3").execute(Map.of());
+
+        assertEquals(3, result.getExitValue());
+        assertEquals("out\n", result.getStdOut());
+        assertEquals("err\n", result.getStdErr());
+        assertEquals(1.0, meterRegistry.get("transform.process.spawned").counter().count());
+    }
+
+    @Test
+    public void stdErrIsBounded()
+    {
+        RuntimeExec.ExecutionResult result = shell("head -c 1000 /dev/zero | tr '\\0' x >&2").execute(Map.of());
+
+        assertTrue(result.getStdErr().startsWith("x".repeat(100) + "\n... (900 more bytes)"),
+            result.getStdErr());
+    }
+
+    @Test
+    public void processIsKilledWhenItsOutputIsTooLarge()
+    {
+        long start = System.currentTimeMillis();
+        RuntimeExec.ExecutionResult result = shell("yes").execute(Map.of(), 60_000);
+        long duration = System.currentTimeMillis() - start;
+
+        assertTrue(duration < 10_000, "Took " + duration + " ms");
+        assertFalse(result.getExitValue() == 0);
+        assertTrue(result.getStdOut().startsWith("y\ny\n"), result.getStdOut());
+        assertTrue(result.getStdOut().length() < 10_100, "Kept " + result.getStdOut().length() + " chars");
+        assertTrue(result.getStdErr().contains("Process killed as its output exceeded 10000 bytes"),
+            result.getStdErr());
+        assertEquals(1.0, meterRegistry.get("transform.process.output.exceeded").counter().count());
+    }
+
+    @Test
+    public void outputHeldOpenByAChildDoesNotBlock()
+    {
+        // The child inherits the output of the shell and keeps it open after the shell has exited.
+        long start = System.currentTimeMillis();
+        RuntimeExec.ExecutionResult result = shell("sleep 5 & echo out").execute(Map.of());
+        long duration = System.currentTimeMillis() - start;
+
+        assertTrue(duration < 4_000, "Took " + duration + " ms");
+        assertEquals(0, result.getExitValue());
+        assertEquals("out\n", result.getStdOut());
+    }
+
+    @Test
+    public void processTreeIsKilledOnTimeout() throws Exception
+    {
+        // The shell and the child it is waiting for ignore SIGTERM, so both have to be forcibly killed.
+        long start = System.currentTimeMillis();
+        RuntimeExec.ExecutionResult result = shell("trap '' TERM; sleep 30 & wait; sleep 30").execute(Map.of(), 200);
+        long duration = System.currentTimeMillis() - start;
+
+        assertTrue(duration < 10_000, "Took " + duration + " ms");
+        assertFalse(result.getExitValue() == 0);
+        assertTrue(result.getStdErr().contains("Process killed as it took longer than 200 ms"), result.getStdErr());
+        assertEquals(1.0, meterRegistry.get("transform.process.timed.out").counter().count());
+        // The metrics are recorded on other threads, which may still be running.
+        awaitCount("transform.process.killed", 2.0);
+        assertEquals(2.0, meterRegistry.get("transform.process.killed").counter().count());
+    }
+
+    private void awaitCount(String counterName, double expected) throws InterruptedException
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            Counter counter = meterRegistry.find(counterName).counter();
+            if (counter != null && counter.count() >= expected)
+            {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+}
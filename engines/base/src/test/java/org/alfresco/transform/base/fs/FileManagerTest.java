@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.fs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.alfresco.transform.base.fs.FileManager.createAttachment;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
+
+public class FileManagerTest
+{
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void attachmentTransfersTheWholeTarget() throws Exception
+    {
+        byte[] content = new byte[1_000_000];
+        new Random(42).nextBytes(content);
+        File targetFile = new File(tempDir, "target.pdf");
+        Files.write(targetFile.toPath(), content);
+
+        ResponseEntity<Resource> responseEntity = createAttachment("transform.pdf", targetFile);
+
+        assertEquals("attachment; filename*=UTF-8''transform.pdf",
+            responseEntity.getHeaders().getFirst(CONTENT_DISPOSITION));
+        assertEquals(content.length, responseEntity.getBody().contentLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = responseEntity.getBody().getInputStream())
+        {
+            assertEquals(content.length, in.transferTo(out));
+        }
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    public void attachmentTransfersTheRemainderOfAPartlyReadTarget() throws Exception
+    {
+        byte[] content = "Hello world".getBytes();
+        File targetFile = new File(tempDir, "target.txt");
+        Files.write(targetFile.toPath(), content);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = createAttachment("transform.txt", targetFile).getBody().getInputStream())
+        {
+            assertEquals(6, in.readNBytes(6).length);
+            assertEquals(5, in.transferTo(out));
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, 6, content.length), out.toByteArray());
+    }
+}
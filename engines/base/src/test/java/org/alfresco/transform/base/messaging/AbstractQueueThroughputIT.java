@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.jms.Queue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.alfresco.transform.client.model.TransformReply;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+
+/**
+ * Measures how many requests a t-engine can take from its message queue and reply to per second, so that the
+ * default transacted sessions may be compared with {@code jms-listener.dups-ok-acknowledge.enabled}, by running a
+ * subclass with each. The transforms fail quickly (the shared file store does not exist), so the figure is mainly
+ * the overhead of the broker.
+ */
+@SpringBootTest(classes={org.alfresco.transform.base.Application.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"activemq.url=nio://localhost:61616"})
+public abstract class AbstractQueueThroughputIT
+{
+    private static final Logger logger = LoggerFactory.getLogger(AbstractQueueThroughputIT.class);
+
+    private static final int REQUESTS = 500;
+
+    @Autowired
+    private Queue engineRequestQueue;
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    @Value("${jms-listener.dups-ok-acknowledge.enabled}")
+    private boolean dupsOkAcknowledge;
+    private final ActiveMQQueue testingQueue = new ActiveMQQueue("org.alfresco.transform.engine.throughput.IT");
+
+    @Test
+    public void queueThroughputIT()
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++)
+        {
+            TransformRequest request = buildRequest();
+            jmsTemplate.convertAndSend(engineRequestQueue, request, m -> {
+                m.setJMSCorrelationID(request.getRequestId());
+                m.setJMSReplyTo(testingQueue);
+                return m;
+            });
+        }
+
+        jmsTemplate.setReceiveTimeout(10_000);
+        Set<String> requestIds = new HashSet<>();
+        for (int i = 0; i < REQUESTS; i++)
+        {
+            TransformReply reply = (TransformReply) jmsTemplate.receiveAndConvert(testingQueue);
+            requestIds.add(reply.getRequestId());
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("{} requests with {} sessions took {} ms: {} requests per second", REQUESTS,
+            dupsOkAcknowledge ? "DUPS_OK_ACKNOWLEDGE" : "transacted", millis, REQUESTS * 1000L / Math.max(1, millis));
+        assertEquals(REQUESTS, requestIds.size());
+    }
+
+    protected abstract TransformRequest buildRequest();
+}
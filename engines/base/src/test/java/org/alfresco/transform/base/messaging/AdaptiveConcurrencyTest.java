@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the decisions made by {@link AdaptiveConcurrency}, without any JMS listeners.
+ */
+public class AdaptiveConcurrencyTest
+{
+    private static final double NONE = Double.NaN;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrency adaptiveConcurrency;
+
+    @BeforeEach
+    public void before()
+    {
+        adaptiveConcurrency = new AdaptiveConcurrency();
+        ReflectionTestUtils.setField(adaptiveConcurrency, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "enabled", true);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "min", 2);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "max", 8);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "targetCpu", 0.85);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "maxProcesses", 4);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "latencyTolerance", 2.0);
+        ReflectionTestUtils.setField(adaptiveConcurrency, "backoff", 0.5);
+        adaptiveConcurrency.init();
+    }
+
+    private double decisions(String action)
+    {
+        return meterRegistry.get("transform.concurrency.decisions").tag("action", action).counter().count();
+    }
+
+    @Test
+    public void testIncreaseWhenAllListenersAreBusy()
+    {
+        assertEquals(4, adaptiveConcurrency.decide(0.9, 0, NONE, 8));
+        assertEquals(5, adaptiveConcurrency.decide(0.5, 0, NONE, 4));
+        assertEquals(5, adaptiveConcurrency.decide(0.5, 0, NONE, 3));
+        assertEquals(1, decisions("increase"));
+        assertEquals(1, decisions("hold"));
+    }
+
+    @Test
+    public void testNeverAboveMaxOrBelowMin()
+    {
+        assertEquals(8, adaptiveConcurrency.decide(0.1, 0, NONE, 8));
+        assertEquals(4, adaptiveConcurrency.decide(0.95, 0, NONE, 8));
+        assertEquals(2, adaptiveConcurrency.decide(0.95, 0, NONE, 4));
+        assertEquals(2, adaptiveConcurrency.decide(0.95, 0, NONE, 2));
+    }
+
+    @Test
+    public void testDecreaseWhenTooManyChildProcesses()
+    {
+        assertEquals(4, adaptiveConcurrency.decide(0.1, 5, NONE, 8));
+        assertEquals(5, adaptiveConcurrency.decide(0.1, 4, NONE, 4));
+    }
+
+    @Test
+    public void testDecreaseWhenTransformsSlowDown()
+    {
+        assertEquals(8, adaptiveConcurrency.decide(0.1, 0, 100, 3));
+        assertEquals(8, adaptiveConcurrency.decide(0.1, 0, 150, 3));
+        assertEquals(4, adaptiveConcurrency.decide(0.1, 0, 400, 3));
+        assertEquals(1, decisions("decrease"));
+    }
+
+    @Test
+    public void testUnknownCpuIsIgnored()
+    {
+        assertEquals(8, adaptiveConcurrency.decide(-1, 0, NONE, 1));
+    }
+}
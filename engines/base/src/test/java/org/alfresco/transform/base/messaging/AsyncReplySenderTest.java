@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.alfresco.transform.client.model.TransformReply;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link AsyncReplySender} without a message broker.
+ */
+public class AsyncReplySenderTest
+{
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    private final Connection connection = mock(Connection.class);
+    private final Session session = mock(Session.class);
+    private final MessageProducer producer = mock(MessageProducer.class);
+    private final ActiveMQQueue destination = new ActiveMQQueue("replies");
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private AsyncReplySender asyncReplySender;
+
+    @BeforeEach
+    public void before() throws JMSException
+    {
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+        when(session.createProducer(destination)).thenReturn(producer);
+        when(session.createBytesMessage()).thenAnswer(invocation -> new ActiveMQBytesMessage());
+
+        asyncReplySender = new AsyncReplySender();
+        ReflectionTestUtils.setField(asyncReplySender, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(asyncReplySender, "transformMessageConverter", new TransformMessageConverter());
+        ReflectionTestUtils.setField(asyncReplySender, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(asyncReplySender, "enabled", true);
+        ReflectionTestUtils.setField(asyncReplySender, "threads", 2);
+        ReflectionTestUtils.setField(asyncReplySender, "queueCapacity", 10);
+        ReflectionTestUtils.setField(asyncReplySender, "maxAttempts", 3);
+        ReflectionTestUtils.setField(asyncReplySender, "retryDelay", 1L);
+        asyncReplySender.init();
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException
+    {
+        asyncReplySender.shutdown();
+    }
+
+    private void recordSends(int failuresFirst) throws JMSException
+    {
+        int[] failures = {failuresFirst};
+        doAnswer(invocation ->
+        {
+            if (failures[0]-- > 0)
+            {
+                throw new JMSException("broker unavailable");
+            }
+            sent.add(((Message) invocation.getArgument(0)).getJMSCorrelationID());
+            return null;
+        }).when(producer).send(any(Message.class));
+    }
+
+    private void send(String correlationId)
+    {
+        asyncReplySender.send(destination, TransformReply.builder().withRequestId(correlationId).build(),
+            correlationId);
+    }
+
+    @Test
+    public void testRepliesWithTheSameCorrelationIdAreSentInOrder() throws Exception
+    {
+        recordSends(0);
+        for (int i = 0; i < 20; i++)
+        {
+            send("c1");
+            send("c2");
+        }
+        asyncReplySender.shutdown();
+
+        assertEquals(40, sent.size());
+        assertEquals(40, meterRegistry.get("transform.reply.send.time").timer().count());
+        // A single producer is used for the destination by each thread
+        verify(session, times(2)).createProducer(destination);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedProducersAreClosed() throws Exception
+    {
+        List<MessageProducer> producers = new ArrayList<>();
+        when(session.createProducer(any())).thenAnswer(invocation ->
+        {
+            MessageProducer producer = mock(MessageProducer.class);
+            producers.add(producer);
+            return producer;
+        });
+        // The same correlation id is used, so that all the replies are sent by the same thread.
+        for (int i = 0; i <= AsyncReplySender.MAX_PRODUCERS; i++)
+        {
+            asyncReplySender.send(new ActiveMQQueue("replies" + i), TransformReply.builder().build(), "c1");
+        }
+        asyncReplySender.send(new ActiveMQQueue("replies1"), TransformReply.builder().build(), "c1");
+        asyncReplySender.send(new ActiveMQQueue("replies" + (AsyncReplySender.MAX_PRODUCERS + 1)),
+            TransformReply.builder().build(), "c1");
+        // Closes the producers that are still open
+        asyncReplySender.shutdown();
+
+        assertEquals(AsyncReplySender.MAX_PRODUCERS + 2, producers.size());
+        for (MessageProducer producer : producers)
+        {
+            verify(producer).close();
+        }
+        // "replies1" was used again, so "replies2" was the least recently used when the last producer was added.
+        InOrder closeOrder = inOrder(producers.get(0), producers.get(2), producers.get(1));
+        closeOrder.verify(producers.get(0)).close();
+        closeOrder.verify(producers.get(2)).close();
+        closeOrder.verify(producers.get(1)).close();
+    }
+
+    @Test
+    public void testFailedSendIsRetriedOnANewSession() throws Exception
+    {
+        recordSends(2);
+        send("c1");
+        asyncReplySender.shutdown();
+
+        assertEquals(List.of("c1"), sent);
+        assertEquals(2, meterRegistry.get("transform.reply.send.retries").counter().count());
+        assertEquals(0, meterRegistry.get("transform.reply.send.failures").counter().count());
+        verify(connectionFactory, times(3)).createConnection();
+    }
+
+    @Test
+    public void testReplyIsAbandonedAfterMaxAttempts() throws Exception
+    {
+        recordSends(3);
+        send("c1");
+        send("c1");
+        asyncReplySender.shutdown();
+
+        assertEquals(List.of("c1"), sent);
+        assertEquals(1, meterRegistry.get("transform.reply.send.failures").counter().count());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link QueuePipeline} without a message broker.
+ */
+public class QueuePipelineTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private QueuePipeline createPipeline(boolean enabled, String concurrency, String prefetchMaxBytes)
+    {
+        QueuePipeline queuePipeline = new QueuePipeline();
+        ReflectionTestUtils.setField(queuePipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queuePipeline, "enabled", enabled);
+        ReflectionTestUtils.setField(queuePipeline, "concurrency", concurrency);
+        ReflectionTestUtils.setField(queuePipeline, "prefetchDepth", 2);
+        ReflectionTestUtils.setField(queuePipeline, "prefetchMaxBytes", DataSize.parse(prefetchMaxBytes));
+        queuePipeline.init();
+        return queuePipeline;
+    }
+
+    private static ByteArrayInputStream source(int size)
+    {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+
+    @Test
+    public void testListenerConcurrency()
+    {
+        assertEquals("1-10", createPipeline(false, "1-10", "1MB").getListenerConcurrency());
+        assertEquals("1-12", createPipeline(true, "1-10", "1MB").getListenerConcurrency());
+        assertEquals("6-6", createPipeline(true, "4", "1MB").getListenerConcurrency());
+    }
+
+    @Test
+    public void testDisabledStagesDoNotWait()
+    {
+        QueuePipeline queuePipeline = createPipeline(false, "1", "1MB");
+        try (QueuePipeline.Stages first = queuePipeline.startStages();
+             QueuePipeline.Stages second = queuePipeline.startStages())
+        {
+            first.startTransform();
+            second.startTransform();
+        }
+    }
+
+    @Test
+    public void testSpoolSourceIsDeletedOnClose() throws Exception
+    {
+        QueuePipeline queuePipeline = createPipeline(true, "1", "1MB");
+        File sourceFile;
+        try (QueuePipeline.Stages stages = queuePipeline.startStages())
+        {
+            sourceFile = stages.spoolSource(() -> source(2000), 2000, "text/plain");
+            assertEquals(2000, Files.size(sourceFile.toPath()));
+            assertEquals(2000.0, meterRegistry.get("transform.pipeline.spooled.bytes").gauge().value());
+        }
+        assertFalse(sourceFile.exists());
+        assertEquals(0.0, meterRegistry.get("transform.pipeline.spooled.bytes").gauge().value());
+    }
+
+    @Test
+    public void testTransformSlotIsReleasedByEndTransform() throws Exception
+    {
+        QueuePipeline queuePipeline = createPipeline(true, "1", "1MB");
+        try (QueuePipeline.Stages first = queuePipeline.startStages();
+             QueuePipeline.Stages second = queuePipeline.startStages())
+        {
+            first.startTransform();
+            assertEquals(1.0, meterRegistry.get("transform.pipeline.transforms.active").gauge().value());
+
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(second::startTransform);
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+            first.endTransform();
+            waiting.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0.0, meterRegistry.get("transform.pipeline.transforms.active").gauge().value());
+    }
+
+    @Test
+    public void testSpoolWaitsForPrefetchSpace() throws Exception
+    {
+        QueuePipeline queuePipeline = createPipeline(true, "1", "4KB");
+        try (QueuePipeline.Stages first = queuePipeline.startStages();
+             QueuePipeline.Stages second = queuePipeline.startStages())
+        {
+            first.spoolSource(() -> source(3000), 3000, "text/plain");
+
+            CompletableFuture<File> waiting = CompletableFuture.supplyAsync(
+                () -> second.spoolSource(() -> source(3000), 3000, "text/plain"));
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+            first.endTransform();
+            assertTrue(waiting.get(5, TimeUnit.SECONDS).exists());
+        }
+    }
+}
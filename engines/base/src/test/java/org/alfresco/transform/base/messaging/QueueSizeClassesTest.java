@@ -0,0 +1,196 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+
+import static org.alfresco.transform.base.messaging.QueueSizeClasses.DISPATCHED_AT_PROPERTY;
+import static org.alfresco.transform.base.messaging.QueueSizeClasses.LARGE;
+import static org.alfresco.transform.base.messaging.QueueSizeClasses.SMALL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link QueueSizeClasses} without a message broker.
+ */
+public class QueueSizeClassesTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private QueueSizeClasses createSizeClasses(boolean enabled)
+    {
+        QueuePipeline queuePipeline = new QueuePipeline();
+        ReflectionTestUtils.setField(queuePipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queuePipeline, "concurrency", "1-10");
+        ReflectionTestUtils.setField(queuePipeline, "prefetchMaxBytes", DataSize.parse("1MB"));
+        queuePipeline.init();
+
+        QueueSizeClasses queueSizeClasses = new QueueSizeClasses();
+        ReflectionTestUtils.setField(queueSizeClasses, "queuePipeline", queuePipeline);
+        ReflectionTestUtils.setField(queueSizeClasses, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queueSizeClasses, "engineRequestQueue", "org.alfresco.transform.engine.test.acs");
+        ReflectionTestUtils.setField(queueSizeClasses, "enabled", enabled);
+        ReflectionTestUtils.setField(queueSizeClasses, "smallMaxSize", DataSize.parse("1MB"));
+        ReflectionTestUtils.setField(queueSizeClasses, "smallConcurrency", "1-4");
+        ReflectionTestUtils.setField(queueSizeClasses, "dispatchConcurrency", "1-2");
+        return queueSizeClasses;
+    }
+
+    private static TransformRequest request(Long sourceSize)
+    {
+        return TransformRequest.builder().withSourceSize(sourceSize).build();
+    }
+
+    @Test
+    public void testSizeClass()
+    {
+        QueueSizeClasses queueSizeClasses = createSizeClasses(true);
+
+        assertEquals(SMALL, queueSizeClasses.getSizeClass(request(0L)));
+        assertEquals(SMALL, queueSizeClasses.getSizeClass(request(1024L * 1024)));
+        assertEquals(LARGE, queueSizeClasses.getSizeClass(request(1024L * 1024 + 1)));
+        assertEquals(LARGE, queueSizeClasses.getSizeClass(request(null)));
+        assertEquals(LARGE, queueSizeClasses.getSizeClass(request(-1L)));
+    }
+
+    @Test
+    public void testQueueNamesAndConcurrency()
+    {
+        QueueSizeClasses queueSizeClasses = createSizeClasses(true);
+
+        assertEquals("1-2", queueSizeClasses.getRequestQueueConcurrency());
+        assertEquals("org.alfresco.transform.engine.test.acs.small", queueSizeClasses.getQueueName(SMALL));
+        assertEquals("org.alfresco.transform.engine.test.acs.large", queueSizeClasses.getQueueName(LARGE));
+        assertEquals("1-4", queueSizeClasses.getConcurrency(SMALL));
+        assertEquals("1-10", queueSizeClasses.getConcurrency(LARGE));
+    }
+
+    @Test
+    public void testDisabledRequestQueueConcurrency()
+    {
+        assertEquals("1-10", createSizeClasses(false).getRequestQueueConcurrency());
+    }
+
+    @Test
+    public void testQueueWaitIsRecordedPerSizeClass() throws JMSException
+    {
+        QueueSizeClasses queueSizeClasses = createSizeClasses(true);
+        ActiveMQTextMessage msg = new ActiveMQTextMessage();
+        msg.setLongProperty(DISPATCHED_AT_PROPERTY, System.currentTimeMillis() - 100);
+
+        queueSizeClasses.recordQueueWait(msg, SMALL);
+        queueSizeClasses.recordQueueWait(new ActiveMQTextMessage(), SMALL);
+
+        assertEquals(1, meterRegistry.get("transform.queue.wait").tag("sizeClass", SMALL).timer().count());
+        assertNull(meterRegistry.find("transform.queue.wait").tag("sizeClass", LARGE).timer());
+    }
+
+    @Test
+    public void testDispatchKeepsTheQosAndPropertiesOfTheRequest() throws Exception
+    {
+        QueueSizeClasses queueSizeClasses = createSizeClasses(true);
+        JmsTemplate jmsTemplate = mock(JmsTemplate.class);
+        Session session = mock(Session.class);
+        MessageProducer producer = mock(MessageProducer.class);
+        ActiveMQQueue smallQueue = new ActiveMQQueue("org.alfresco.transform.engine.test.acs.small");
+        ReflectionTestUtils.setField(queueSizeClasses, "jmsTemplate", jmsTemplate);
+        ReflectionTestUtils.setField(queueSizeClasses, "transformMessageConverter", new TransformMessageConverter());
+        doAnswer(invocation -> invocation.<SessionCallback<?>>getArgument(0).doInJms(session))
+            .when(jmsTemplate).execute(any(SessionCallback.class), anyBoolean());
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        when(session.createQueue(smallQueue.getQueueName())).thenReturn(smallQueue);
+        when(session.createProducer(smallQueue)).thenReturn(producer);
+
+        ActiveMQTextMessage msg = new ActiveMQTextMessage();
+        msg.setJMSDeliveryMode(DeliveryMode.PERSISTENT);
+        msg.setJMSPriority(9);
+        msg.setJMSExpiration(System.currentTimeMillis() + 60_000);
+        msg.setStringProperty("custom", "value");
+        msg.setRedeliveryCounter(2);
+        ActiveMQQueue replyToQueue = new ActiveMQQueue("replyTo");
+
+        queueSizeClasses.dispatch(request(1L), msg, replyToQueue, "1234");
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<Long> timeToLive = ArgumentCaptor.forClass(Long.class);
+        verify(producer).send(sent.capture(), eq(DeliveryMode.PERSISTENT), eq(9), timeToLive.capture());
+        verify(producer).close();
+        assertTrue(timeToLive.getValue() > 0 && timeToLive.getValue() <= 60_000);
+        assertEquals("value", sent.getValue().getStringProperty("custom"));
+        assertEquals("1234", sent.getValue().getJMSCorrelationID());
+        assertEquals(replyToQueue, sent.getValue().getJMSReplyTo());
+        assertTrue(sent.getValue().propertyExists(DISPATCHED_AT_PROPERTY));
+        // The delivery count is set by the broker, so is not copied
+        assertEquals(0, ((ActiveMQBytesMessage) sent.getValue()).getRedeliveryCounter());
+    }
+
+    @Test
+    public void testDispatchOfARequestThatDoesNotExpire() throws Exception
+    {
+        QueueSizeClasses queueSizeClasses = createSizeClasses(true);
+        JmsTemplate jmsTemplate = mock(JmsTemplate.class);
+        Session session = mock(Session.class);
+        MessageProducer producer = mock(MessageProducer.class);
+        ReflectionTestUtils.setField(queueSizeClasses, "jmsTemplate", jmsTemplate);
+        ReflectionTestUtils.setField(queueSizeClasses, "transformMessageConverter", new TransformMessageConverter());
+        doAnswer(invocation -> invocation.<SessionCallback<?>>getArgument(0).doInJms(session))
+            .when(jmsTemplate).execute(any(SessionCallback.class), anyBoolean());
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        when(session.createProducer(any())).thenReturn(producer);
+
+        queueSizeClasses.dispatch(request(null), new ActiveMQTextMessage(), null, "1234");
+
+        verify(session).createQueue("org.alfresco.transform.engine.test.acs.large");
+        verify(producer).send(any(Message.class), anyInt(), anyInt(), eq(Message.DEFAULT_TIME_TO_LIVE));
+    }
+}
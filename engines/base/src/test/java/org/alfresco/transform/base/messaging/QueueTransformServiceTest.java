@@ -28,29 +28,39 @@
 package org.alfresco.transform.base.messaging;
 
 import org.alfresco.transform.base.TransformController;
+import org.alfresco.transform.base.registry.TransformerBusyException;
+import org.alfresco.transform.client.model.InternalContext;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.client.model.TransformRequest;
 import org.apache.activemq.command.ActiveMQObjectMessage;
 import org.apache.activemq.command.ActiveMQQueue;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import jakarta.jms.Destination;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @SpringBootTest(classes={org.alfresco.transform.base.Application.class})
 public class QueueTransformServiceTest
@@ -61,6 +71,12 @@ public class QueueTransformServiceTest
     private TransformMessageConverter transformMessageConverter;
     @Mock
     private TransformReplySender transformReplySender;
+    @Mock
+    private QueueSizeClasses queueSizeClasses;
+    @Mock
+    private RecentReplies recentReplies;
+    @Mock
+    private AdaptiveConcurrency adaptiveConcurrency;
 
     @InjectMocks
     private QueueTransformService queueTransformService;
@@ -229,4 +245,113 @@ public class QueueTransformServiceTest
         verify(transformController).transform(request, null, destination);
         verify(transformReplySender).send(destination, reply);
     }
+
+    @Test
+    public void testWhenTransformerIsBusyThenMessageIsRedelivered() throws JMSException
+    {
+        ReflectionTestUtils.setField(queueTransformService, "maxBusyRedeliveries", 2);
+        ActiveMQObjectMessage msg = new ActiveMQObjectMessage();
+        ActiveMQQueue destination = new ActiveMQQueue();
+        msg.setJMSReplyTo(destination);
+        msg.setRedeliveryCounter(1);
+
+        TransformRequest request = new TransformRequest();
+        doReturn(request).when(transformMessageConverter).fromMessage(msg);
+        doThrow(new TransformerBusyException("busy")).when(transformController).transform(request, null, destination);
+
+        assertThrows(TransformerBusyException.class, () -> queueTransformService.receive(msg));
+
+        verifyNoInteractions(transformReplySender);
+    }
+
+    @Test
+    public void testWhenTransformerIsStillBusyAfterRedeliveriesThenReplyWithError() throws JMSException
+    {
+        ReflectionTestUtils.setField(queueTransformService, "maxBusyRedeliveries", 2);
+        ActiveMQObjectMessage msg = new ActiveMQObjectMessage();
+        ActiveMQQueue destination = new ActiveMQQueue();
+        msg.setJMSReplyTo(destination);
+        msg.setRedeliveryCounter(2);
+
+        TransformRequest request = TransformRequest
+            .builder()
+            .withRequestId("1")
+            .withSourceReference("source")
+            .withSchema(1)
+            .withClientData("clientData")
+            .withInternalContext(new InternalContext())
+            .build();
+        doReturn(request).when(transformMessageConverter).fromMessage(msg);
+        doThrow(new TransformerBusyException("busy")).when(transformController).transform(request, null, destination);
+
+        queueTransformService.receive(msg);
+
+        ArgumentCaptor<TransformReply> captor = ArgumentCaptor.forClass(TransformReply.class);
+        verify(transformReplySender).send(eq(destination), captor.capture(), eq(msg.getCorrelationId()));
+        TransformReply reply = captor.getValue();
+        assertEquals(TOO_MANY_REQUESTS.value(), reply.getStatus());
+        assertEquals("busy", reply.getErrorDetails());
+        assertEquals("1", reply.getRequestId());
+        assertEquals("source", reply.getSourceReference());
+        assertEquals(1, reply.getSchema());
+        assertEquals("clientData", reply.getClientData());
+        assertSame(request.getInternalContext(), reply.getInternalContext());
+    }
+
+    @Test
+    public void testWhenSizeClassesEnabledThenRequestIsDispatched() throws JMSException
+    {
+        ActiveMQObjectMessage msg = new ActiveMQObjectMessage();
+        msg.setCorrelationId("1234");
+        ActiveMQQueue destination = new ActiveMQQueue();
+        msg.setJMSReplyTo(destination);
+
+        TransformRequest request = new TransformRequest();
+        doReturn(request).when(transformMessageConverter).fromMessage(msg);
+        doReturn(true).when(queueSizeClasses).isEnabled();
+
+        queueTransformService.receive(msg);
+
+        verify(queueSizeClasses).dispatch(request, msg, destination, "1234");
+        verifyNoInteractions(transformController);
+        verifyNoInteractions(transformReplySender);
+    }
+
+    @Test
+    public void testWhenReceivedFromSizeClassQueueThenTransform() throws JMSException
+    {
+        ActiveMQObjectMessage msg = new ActiveMQObjectMessage();
+        msg.setCorrelationId("1234");
+        ActiveMQQueue destination = new ActiveMQQueue();
+        msg.setJMSReplyTo(destination);
+
+        TransformRequest request = new TransformRequest();
+        doReturn(request).when(transformMessageConverter).fromMessage(msg);
+        doReturn(true).when(queueSizeClasses).isEnabled();
+
+        queueTransformService.receive(msg, QueueSizeClasses.SMALL);
+
+        verify(queueSizeClasses).recordQueueWait(msg, QueueSizeClasses.SMALL);
+        verify(queueSizeClasses, never()).dispatch(request, msg, destination, "1234");
+        verify(transformController).transform(request, null, destination);
+    }
+
+    @Test
+    public void testWhenRequestWasAlreadyRepliedToThenResendReply() throws JMSException
+    {
+        ActiveMQObjectMessage msg = new ActiveMQObjectMessage();
+        msg.setCorrelationId("1234");
+        ActiveMQQueue destination = new ActiveMQQueue();
+        msg.setJMSReplyTo(destination);
+
+        TransformRequest request = new TransformRequest();
+        TransformReply reply = TransformReply.builder().withRequestId("1234").withStatus(CREATED.value()).build();
+        doReturn(request).when(transformMessageConverter).fromMessage(msg);
+        doReturn(reply).when(recentReplies).get(request);
+
+        queueTransformService.receive(msg);
+
+        verify(transformReplySender).send(destination, reply);
+        verifyNoInteractions(transformController);
+    }
 }
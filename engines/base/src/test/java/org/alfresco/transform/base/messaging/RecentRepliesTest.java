@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.alfresco.transform.client.model.InternalContext;
+import org.alfresco.transform.client.model.TransformReply;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.alfresco.transform.messages.TransformStack;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CREATED;
+
+public class RecentRepliesTest
+{
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RecentReplies createRecentReplies(boolean enabled, int maxSize)
+    {
+        RecentReplies recentReplies = new RecentReplies();
+        ReflectionTestUtils.setField(recentReplies, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(recentReplies, "enabled", enabled);
+        ReflectionTestUtils.setField(recentReplies, "maxSize", maxSize);
+        recentReplies.init();
+        return recentReplies;
+    }
+
+    private static TransformRequest request(String requestId, String sourceReference)
+    {
+        return TransformRequest.builder()
+            .withRequestId(requestId)
+            .withSourceReference(sourceReference)
+            .withTargetMediaType("text/plain")
+            .build();
+    }
+
+    private static TransformReply reply(String requestId)
+    {
+        return TransformReply.builder().withRequestId(requestId).withStatus(CREATED.value()).build();
+    }
+
+    private static TransformRequest pipelineStep(String transformerName)
+    {
+        InternalContext internalContext = InternalContext.initialise(null);
+        TransformStack.setInitialTransformRequestOptions(internalContext, Map.of());
+        TransformStack.setInitialSourceReference(internalContext, "s1");
+        TransformStack.addTransformLevel(internalContext, TransformStack.levelBuilder(TransformStack.FAILOVER_FLAG)
+            .withStep(transformerName, "image/png", "text/plain"));
+        TransformStack.setReference(internalContext, "1");
+        TransformRequest request = request("r1", "s1");
+        request.setInternalContext(internalContext);
+        return request;
+    }
+
+    @Test
+    public void testDuplicateRequestGetsSameReply()
+    {
+        RecentReplies recentReplies = createRecentReplies(true, 10);
+        TransformReply reply = reply("r1");
+        recentReplies.put(request("r1", "s1"), reply);
+
+        assertSame(reply, recentReplies.get(request("r1", "s1")));
+        assertNull(recentReplies.get(request("r1", "s2")), "A later step of a pipeline shares the request id");
+        assertNull(recentReplies.get(request("r2", "s1")));
+        assertEquals(1, meterRegistry.get("transform.queue.duplicates").counter().count());
+    }
+
+    @Test
+    public void testOldestRepliesAreForgotten()
+    {
+        RecentReplies recentReplies = createRecentReplies(true, 2);
+        recentReplies.put(request("r1", "s1"), reply("r1"));
+        recentReplies.put(request("r2", "s2"), reply("r2"));
+        recentReplies.put(request("r3", "s3"), reply("r3"));
+
+        assertNull(recentReplies.get(request("r1", "s1")));
+        assertEquals("r3", recentReplies.get(request("r3", "s3")).getRequestId());
+    }
+
+    @Test
+    public void testFailedRepliesAreNotRemembered()
+    {
+        RecentReplies recentReplies = createRecentReplies(true, 10);
+        recentReplies.put(request("r1", "s1"),
+            TransformReply.builder().withRequestId("r1").withStatus(BAD_REQUEST.value()).build());
+
+        assertNull(recentReplies.get(request("r1", "s1")));
+    }
+
+    @Test
+    public void testFailoverAttemptsHaveTheirOwnReplies()
+    {
+        RecentReplies recentReplies = createRecentReplies(true, 10);
+        TransformReply reply = reply("r1");
+        recentReplies.put(pipelineStep("first"), reply);
+
+        assertSame(reply, recentReplies.get(pipelineStep("first")));
+        assertNull(recentReplies.get(pipelineStep("second")));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        RecentReplies recentReplies = createRecentReplies(false, 10);
+        recentReplies.put(request("r1", "s1"), reply("r1"));
+
+        assertNull(recentReplies.get(request("r1", "s1")));
+    }
+}
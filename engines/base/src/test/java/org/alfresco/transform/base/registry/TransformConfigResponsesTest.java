@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.alfresco.transform.config.SupportedSourceAndTarget;
+import org.alfresco.transform.config.TransformConfig;
+import org.alfresco.transform.config.TransformOption;
+import org.alfresco.transform.config.TransformOptionValue;
+import org.alfresco.transform.config.Transformer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransformConfigResponsesTest
+{
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TransformConfigResponses responses = new TransformConfigResponses();
+
+    @BeforeEach
+    public void before()
+    {
+        ReflectionTestUtils.setField(responses, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(responses, "deltaHistory", 2);
+    }
+
+    private static Transformer transformer(String name, String target)
+    {
+        return Transformer.builder()
+            .withTransformerName(name)
+            .withSupportedSourceAndTargetList(Set.of(SupportedSourceAndTarget.builder()
+                .withSourceMediaType("text/plain")
+                .withTargetMediaType(target)
+                .build()))
+            .build();
+    }
+
+    private static TransformConfig config(Transformer... transformers)
+    {
+        return config(Map.of("options", Set.of(new TransformOptionValue(false, "page"))), transformers);
+    }
+
+    private static TransformConfig config(Map<String, Set<TransformOption>> transformOptions,
+        Transformer... transformers)
+    {
+        return TransformConfig.builder()
+            .withTransformers(List.of(transformers))
+            .withTransformOptions(transformOptions)
+            .build();
+    }
+
+    private static String names(TransformConfig config)
+    {
+        return config.getTransformers().stream()
+            .map(Transformer::getTransformerName)
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    @Test
+    public void testResponseIsCachedPerSnapshot()
+    {
+        TransformConfig config = config(transformer("a", "application/pdf"));
+        TransformConfigResponses.Response response = responses.getResponse(config, 1);
+
+        assertSame(response, responses.getResponse(config, 1));
+
+        TransformConfigResponses.Response next = responses.getResponse(config(transformer("a", "image/png")), 1);
+        assertNotEquals(response.getETag(), next.getETag());
+        assertTrue(next.matches("\"other\", " + next.getETag()));
+        assertFalse(next.matches(response.getETag()));
+        assertNull(next.getGzip());
+    }
+
+    @Test
+    public void testDelta() throws IOException
+    {
+        TransformConfigResponses.Response first = responses.getResponse(config(
+            transformer("a", "application/pdf"),
+            transformer("b", "application/pdf"),
+            transformer("c", "application/pdf")), 1);
+        TransformConfigResponses.Response second = responses.getResponse(config(
+            transformer("a", "application/pdf"),
+            transformer("b", "image/png"),
+            transformer("d", "application/pdf")), 1);
+
+        TransformConfig delta = objectMapper.readValue(responses.getDelta(second, first.getETag()), TransformConfig.class);
+        assertEquals("b,d", names(delta));
+        assertEquals(Set.of("c"), delta.getRemoveTransformers());
+        assertTrue(delta.getTransformOptions().isEmpty());
+        assertTrue(delta.getRemoveTransformOptions().isEmpty());
+
+        // Quotes are optional
+        String unquoted = first.getETag().substring(1, first.getETag().length() - 1);
+        assertArrayEquals(responses.getDelta(second, first.getETag()), responses.getDelta(second, unquoted));
+
+        // Only the most recent are remembered
+        responses.getResponse(config(transformer("e", "application/pdf")), 1);
+        assertNull(responses.getDelta(second, first.getETag()));
+    }
+
+    @Test
+    public void testDeltaOfOptions() throws IOException
+    {
+        TransformConfigResponses.Response first = responses.getResponse(config(Map.of(
+            "a", Set.of(new TransformOptionValue(false, "page")),
+            "b", Set.of(new TransformOptionValue(false, "width")),
+            "c", Set.of(new TransformOptionValue(false, "height")))), 1);
+        TransformConfigResponses.Response second = responses.getResponse(config(Map.of(
+            "a", Set.of(new TransformOptionValue(false, "page")),
+            "b", Set.of(new TransformOptionValue(true, "width")),
+            "d", Set.of(new TransformOptionValue(false, "height")))), 1);
+
+        TransformConfig delta = objectMapper.readValue(responses.getDelta(second, first.getETag()), TransformConfig.class);
+        assertEquals(Set.of("b", "d"), delta.getTransformOptions().keySet());
+        assertEquals(Set.of("c"), delta.getRemoveTransformOptions());
+    }
+
+    @Test
+    public void testVariantsHaveTheirOwnETags()
+    {
+        TransformConfigResponses.Response first = responses.getResponse(config(transformer("a", "application/pdf")), 1);
+        TransformConfigResponses.Response second = responses.getResponse(config(transformer("a", "image/png")), 1);
+
+        assertEquals(3, Set.of(second.getETag(), second.getGzipETag(), second.getDeltaETag(first.getETag())).size());
+        assertNotEquals(second.getDeltaETag(first.getETag()), second.getDeltaETag(second.getETag()));
+
+        // Each variant holds the same config
+        assertTrue(second.matches(second.getGzipETag()));
+        assertTrue(second.matches(second.getDeltaETag(first.getETag())));
+        assertFalse(second.matches(first.getGzipETag()));
+
+        // and may be the base of a delta
+        assertArrayEquals(responses.getDelta(second, first.getETag()), responses.getDelta(second, first.getGzipETag()));
+    }
+
+    @Test
+    public void testGzip() throws IOException
+    {
+        ReflectionTestUtils.setField(responses, "gzipEnabled", true);
+        TransformConfigResponses.Response response = responses.getResponse(config(transformer("a", "application/pdf")), 1);
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getGzip())))
+        {
+            assertArrayEquals(response.getJson(), gzip.readAllBytes());
+        }
+    }
+}
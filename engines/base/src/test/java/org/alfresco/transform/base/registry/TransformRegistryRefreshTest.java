@@ -22,9 +22,17 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Collections.emptyMap;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_TEXT_PLAIN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.verify;
 
@@ -64,6 +72,42 @@ public class TransformRegistryRefreshTest
         });
     }
 
+    @Test
+    public void checkReadsDuringRefreshSeeACompleteRegistry() throws InterruptedException
+    {
+        waitForRegistryReady();
+        AtomicBoolean refreshing = new AtomicBoolean(true);
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger incompleteReads = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++)
+        {
+            readers.submit(() ->
+            {
+                while (refreshing.get())
+                {
+                    reads.incrementAndGet();
+                    if (!transformRegistry.isReadyForTransformRequests() ||
+                        transformRegistry.getTransformer(MIMETYPE_TEXT_PLAIN, 10L, MIMETYPE_PDF, emptyMap()) == null)
+                    {
+                        incompleteReads.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        for (int i = 0; i < 20; i++)
+        {
+            transformRegistry.retrieveConfig();
+        }
+        refreshing.set(false);
+        readers.shutdown();
+        assertTrue(readers.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(reads.get() > 0);
+        assertEquals(0, incompleteReads.get());
+    }
+
     private void waitForRegistryReady() throws InterruptedException
     {
         Awaitility.await().atMost(1, TimeUnit.SECONDS)
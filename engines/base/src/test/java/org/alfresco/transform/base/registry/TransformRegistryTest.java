@@ -36,6 +36,7 @@ import org.alfresco.transform.base.fakes.FakeTransformEngineWithTwoCustomTransfo
 import org.alfresco.transform.config.SupportedSourceAndTarget;
 import org.alfresco.transform.config.TransformConfig;
 import org.alfresco.transform.config.Transformer;
+import org.alfresco.transform.registry.TransformCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,6 +53,8 @@ import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
 import static org.alfresco.transform.common.Mimetype.MIMETYPE_WORD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 
@@ -220,6 +223,36 @@ public class TransformRegistryTest
         assertEquals("A2Z", getTransformerNames(transformRegistry.getTransformConfig()));
     }
 
+    @Test
+    public void unchangedConfigIsNotRecombined()
+    {
+        // A t-engine may return the same instance each time, so it must not be changed when it is combined.
+        TransformConfig sameInstance = new FakeTransformEngineWithOneCustomTransformer().getTransformConfig();
+        ReflectionTestUtils.setField(transformConfigFromTransformEngines, "transformEngines", ImmutableList.of(
+            new AbstractFakeTransformEngine()
+            {
+                @Override public TransformConfig getTransformConfig()
+                {
+                    return sameInstance;
+                }
+            }));
+        transformConfigFromTransformEngines.initTransformEngineConfig();
+        transformRegistry.retrieveConfig();
+        TransformCache data = transformRegistry.getData();
+
+        transformRegistry.retrieveConfig();
+        assertSame(data, transformRegistry.getData());
+
+        ReflectionTestUtils.setField(transformConfigFromTransformEngines, "transformEngines", ImmutableList.of(
+            new FakeTransformEngineWithAllInOne(),
+            new FakeTransformEngineWithTwoCustomTransformers()));
+        transformConfigFromTransformEngines.initTransformEngineConfig();
+        transformRegistry.retrieveConfig();
+        assertNotSame(data, transformRegistry.getData());
+        assertEquals("Pdf2Jpg, Pdf2Png, TxT2Pdf, Txt2JpgViaPdf, Txt2PngViaPdf",
+            getTransformerNames(transformRegistry.getTransformConfig()));
+    }
+
     @Test
     public void isReadyForTransformRequests()
     {
@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.registry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Tests {@link TransformerBulkhead}.
+ */
+public class TransformerBulkheadTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private double rejected()
+    {
+        return meterRegistry.get("transform.bulkhead.rejected").tag("transformer", "slow").counter().count();
+    }
+
+    private double waiting()
+    {
+        return meterRegistry.get("transform.bulkhead.waiting").tag("transformer", "slow").gauge().value();
+    }
+
+    @Test
+    public void testUnlimited()
+    {
+        try (TransformerBulkhead.Permit first = TransformerBulkhead.UNLIMITED.acquire();
+             TransformerBulkhead.Permit second = TransformerBulkhead.UNLIMITED.acquire())
+        {
+            assertEquals(0, meterRegistry.getMeters().size());
+        }
+    }
+
+    @Test
+    public void testWaitsForPermit() throws Exception
+    {
+        TransformerBulkhead bulkhead = new TransformerBulkhead("slow", 1, 1, Duration.ofSeconds(30), meterRegistry);
+        TransformerBulkhead.Permit first = bulkhead.acquire();
+
+        CompletableFuture<TransformerBulkhead.Permit> second = CompletableFuture.supplyAsync(bulkhead::acquire);
+        await().until(() -> waiting() == 1);
+        assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, waiting());
+        assertEquals(2, meterRegistry.get("transform.bulkhead.wait").tag("transformer", "slow").timer().count());
+        assertEquals(0, rejected());
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception
+    {
+        TransformerBulkhead bulkhead = new TransformerBulkhead("slow", 1, 1, Duration.ofSeconds(30), meterRegistry);
+        try (TransformerBulkhead.Permit first = bulkhead.acquire())
+        {
+            CompletableFuture<TransformerBulkhead.Permit> second = CompletableFuture.supplyAsync(bulkhead::acquire);
+            await().until(() -> waiting() == 1);
+
+            TransformerBusyException e = assertThrows(TransformerBusyException.class, bulkhead::acquire);
+            assertEquals(TOO_MANY_REQUESTS, e.getStatus());
+            assertEquals("Transformer slow is busy, too many transforms are waiting", e.getMessage());
+            assertEquals(1, rejected());
+
+            first.close();
+            second.get(5, TimeUnit.SECONDS).close();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenWaitTimesOut()
+    {
+        TransformerBulkhead bulkhead = new TransformerBulkhead("slow", 1, 1, Duration.ofMillis(50), meterRegistry);
+        try (TransformerBulkhead.Permit first = bulkhead.acquire())
+        {
+            TransformerBusyException e = assertThrows(TransformerBusyException.class, bulkhead::acquire);
+            assertEquals("Transformer slow is busy, timed out waiting", e.getMessage());
+            assertEquals(1, rejected());
+            assertEquals(0, waiting());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.sfs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link SharedFileStoreInputStream} with a body made from in memory buffers.
+ */
+public class SharedFileStoreInputStreamTest
+{
+    private final List<Long> byteCounts = new CopyOnWriteArrayList<>();
+
+    private static Flux<DataBuffer> body(String... chunks)
+    {
+        return Flux.fromArray(chunks)
+            .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private InputStream createInputStream(Flux<DataBuffer> body)
+    {
+        return new SharedFileStoreInputStream(body, 2, byteCounts::add);
+    }
+
+    @Test
+    public void testReadAllBytes() throws IOException
+    {
+        try (InputStream inputStream = createInputStream(body("Hello ", "", "big ", "wide ", "world")))
+        {
+            assertEquals("Hello big wide world", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(-1, inputStream.read());
+        }
+        assertEquals(List.of(20L), byteCounts);
+    }
+
+    @Test
+    public void testReadSingleBytes() throws IOException
+    {
+        try (InputStream inputStream = createInputStream(body("ab", "c")))
+        {
+            assertEquals('a', inputStream.read());
+            assertEquals('b', inputStream.read());
+            assertEquals('c', inputStream.read());
+            assertEquals(-1, inputStream.read());
+        }
+        assertEquals(List.of(3L), byteCounts);
+    }
+
+    @Test
+    public void testEmptyBody() throws IOException
+    {
+        try (InputStream inputStream = createInputStream(Flux.empty()))
+        {
+            assertEquals(-1, inputStream.read(new byte[10]));
+        }
+        assertEquals(List.of(0L), byteCounts);
+    }
+
+    @Test
+    public void testFailedDownload() throws IOException
+    {
+        Flux<DataBuffer> body = body("Hello ").concatWith(Flux.error(new IllegalStateException("Connection reset")));
+        try (InputStream inputStream = createInputStream(body))
+        {
+            IOException e = assertThrows(IOException.class, inputStream::readAllBytes);
+            assertEquals("Connection reset", e.getCause().getMessage());
+        }
+        assertTrue(byteCounts.isEmpty());
+    }
+
+    @Test
+    public void testCloseCancelsDownload() throws IOException
+    {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<DataBuffer> body = body("Hello ").concatWith(Flux.never()).doOnCancel(() -> cancelled.set(true));
+        InputStream inputStream = createInputStream(body);
+        assertEquals('H', inputStream.read());
+        inputStream.close();
+
+        await().untilTrue(cancelled);
+        assertThrows(IOException.class, inputStream::read);
+        assertTrue(byteCounts.isEmpty());
+    }
+}
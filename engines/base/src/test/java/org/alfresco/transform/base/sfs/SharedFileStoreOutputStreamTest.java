@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.sfs;
+
+import org.alfresco.transform.base.model.FileRefEntity;
+import org.alfresco.transform.base.model.FileRefResponse;
+import org.alfresco.transform.exceptions.TransformException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpStatus.INSUFFICIENT_STORAGE;
+
+/**
+ * Tests {@link SharedFileStoreOutputStream} with a fake upload that reads the pipe on another thread.
+ */
+public class SharedFileStoreOutputStreamTest
+{
+    private static final String FILE_REF = "fileRef";
+
+    private final List<String> uploads = new CopyOnWriteArrayList<>();
+    private final List<String> deletes = new CopyOnWriteArrayList<>();
+
+    private final Function<InputStream, CompletableFuture<FileRefResponse>> upload = inputStream ->
+        CompletableFuture.supplyAsync(() ->
+        {
+            try (inputStream)
+            {
+                uploads.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                return new FileRefResponse(new FileRefEntity(FILE_REF));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+    private SharedFileStoreOutputStream createOutputStream(
+        Function<InputStream, CompletableFuture<FileRefResponse>> upload)
+    {
+        return new SharedFileStoreOutputStream(16, upload, deletes::add);
+    }
+
+    private static void write(OutputStream outputStream, String text) throws IOException
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        outputStream.write(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void testContentLargerThanThePipeIsUploaded() throws Exception
+    {
+        SharedFileStoreOutputStream outputStream = createOutputStream(upload);
+        String content = "The content is longer than the pipe's buffer, so is written in several parts";
+        write(outputStream, content);
+
+        FileRefResponse response = outputStream.getFileRefResponse();
+
+        assertEquals(FILE_REF, response.getEntry().getFileRef());
+        assertEquals(List.of(content), uploads);
+        assertTrue(deletes.isEmpty());
+    }
+
+    @Test
+    public void testNothingWrittenUploadsAnEmptyFile() throws Exception
+    {
+        SharedFileStoreOutputStream outputStream = createOutputStream(upload);
+
+        outputStream.getFileRefResponse();
+
+        assertEquals(List.of(""), uploads);
+    }
+
+    @Test
+    public void testClosedWithoutWritingDoesNotUpload() throws Exception
+    {
+        SharedFileStoreOutputStream outputStream = createOutputStream(upload);
+
+        outputStream.close();
+        outputStream.abort();
+
+        assertTrue(uploads.isEmpty());
+        assertTrue(deletes.isEmpty());
+    }
+
+    @Test
+    public void testAbortFailsTheUpload() throws Exception
+    {
+        SharedFileStoreOutputStream outputStream = createOutputStream(upload);
+        write(outputStream, "partial");
+
+        outputStream.abort();
+
+        Exception e = assertThrows(Exception.class, outputStream::getFileRefResponse);
+        assertEquals("The transform failed, so the content is incomplete", e.getCause().getMessage());
+        assertTrue(uploads.isEmpty());
+        assertTrue(deletes.isEmpty());
+    }
+
+    @Test
+    public void testAbortDeletesAFileThatIsStillStored() throws Exception
+    {
+        // An upload that ignores the failure to read the rest of the content.
+        SharedFileStoreOutputStream outputStream = createOutputStream(inputStream ->
+            CompletableFuture.supplyAsync(() ->
+            {
+                try (inputStream)
+                {
+                    inputStream.readAllBytes();
+                }
+                catch (IOException ignore)
+                {
+                }
+                return new FileRefResponse(new FileRefEntity(FILE_REF));
+            }));
+        write(outputStream, "partial");
+
+        outputStream.abort();
+
+        await().until(() -> !deletes.isEmpty());
+        assertEquals(List.of(FILE_REF), deletes);
+    }
+
+    @Test
+    public void testUploadFailureIsReported()
+    {
+        SharedFileStoreOutputStream outputStream = createOutputStream(inputStream ->
+            CompletableFuture.supplyAsync(() ->
+            {
+                try (inputStream)
+                {
+                    throw new TransformException(INSUFFICIENT_STORAGE, "SFS is full");
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+
+        IOException e = assertThrows(IOException.class, () ->
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                write(outputStream, "line " + i);
+            }
+        });
+        assertEquals("Failed writing to SFS", e.getMessage());
+        assertEquals("SFS is full", e.getCause().getMessage());
+        TransformException transformException = assertThrows(TransformException.class, outputStream::getFileRefResponse);
+        assertEquals(INSUFFICIENT_STORAGE, transformException.getStatus());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link AsyncTransformExecutor}.
+ */
+public class AsyncTransformExecutorTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AsyncTransformExecutor executor = new AsyncTransformExecutor();
+
+    @BeforeEach
+    public void before()
+    {
+        ReflectionTestUtils.setField(executor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(executor, "threads", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "timeout", 0L);
+        executor.init();
+    }
+
+    @AfterEach
+    public void after()
+    {
+        executor.shutdown();
+    }
+
+    private long queued()
+    {
+        return meterRegistry.get("transform.http.queue.time").timer().count();
+    }
+
+    @Test
+    public void testTransform()
+    {
+        DeferredResult<ResponseEntity<Resource>> result = executor.submit(() -> ResponseEntity.ok().build());
+
+        await().until(result::hasResult);
+        assertEquals(200, ((ResponseEntity<?>) result.getResult()).getStatusCode().value());
+    }
+
+    @Test
+    public void testSkipsTransformsThatHaveAlreadyExpired() throws Exception
+    {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() ->
+        {
+            running.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok().build();
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean called = new AtomicBoolean();
+        DeferredResult<ResponseEntity<Resource>> queued = executor.submit(() ->
+        {
+            called.set(true);
+            return ResponseEntity.ok().build();
+        });
+        queued.setErrorResult("timed out"); // As the container does when the request times out
+        release.countDown();
+
+        await().until(() -> queued() == 2);
+        assertFalse(called.get());
+    }
+}
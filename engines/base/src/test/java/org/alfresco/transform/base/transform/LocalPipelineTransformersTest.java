@@ -0,0 +1,290 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import org.alfresco.transform.base.CustomTransformer;
+import org.alfresco.transform.base.TransformManager;
+import org.alfresco.transform.base.registry.CustomTransformers;
+import org.alfresco.transform.base.registry.TransformRegistry;
+import org.alfresco.transform.base.registry.TransformerBulkhead;
+import org.alfresco.transform.config.TransformStep;
+import org.alfresco.transform.config.Transformer;
+import org.alfresco.transform.exceptions.TransformException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_IMAGE_PNG;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_TEXT_PLAIN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+
+/**
+ * Tests {@link LocalPipelineTransformers} failures, which are not covered by the TransformControllerTest.
+ */
+public class LocalPipelineTransformersTest
+{
+    private final TransformRegistry transformRegistry = mock(TransformRegistry.class);
+    private final CustomTransformers customTransformers = mock(CustomTransformers.class);
+    private final TransformManager transformManager = mock(TransformManager.class);
+    private final LocalPipelineTransformers localPipelineTransformers = new LocalPipelineTransformers();
+    private final Map<String, Transformer> transformers = new HashMap<>();
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    @TempDir
+    public File tempDir;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        ReflectionTestUtils.setField(localPipelineTransformers, "transformRegistry", transformRegistry);
+        ReflectionTestUtils.setField(localPipelineTransformers, "customTransformers", customTransformers);
+        ReflectionTestUtils.setField(localPipelineTransformers, "enabled", true);
+        ReflectionTestUtils.setField(localPipelineTransformers, "streamBufferSize", DataSize.ofKilobytes(1));
+        localPipelineTransformers.init();
+
+        File sourceFile = new File(tempDir, "source.txt");
+        Files.writeString(sourceFile.toPath(), "Start");
+        when(transformManager.createSourceFile()).thenReturn(sourceFile);
+
+        when(transformRegistry.getTransformer(anyString())).thenAnswer(i -> transformers.get(i.getArgument(0)));
+        when(transformRegistry.filterOptions(anyString(), anyMap())).thenAnswer(i -> i.getArgument(1));
+        when(customTransformers.acquirePermit(anyString())).thenAnswer(i ->
+        {
+            // Each transformer may only run one transform at a time.
+            Semaphore semaphore = permits.computeIfAbsent(i.getArgument(0), name -> new Semaphore(1));
+            semaphore.acquire();
+            return (TransformerBulkhead.Permit) semaphore::release;
+        });
+
+        addCustomTransformer("Appends", (sourceMimetype, inputStream, targetMimetype, outputStream, options, tm) ->
+            outputStream.write((new String(inputStream.readAllBytes(), StandardCharsets.UTF_8) + " -> Appends")
+                .getBytes(StandardCharsets.UTF_8)));
+        addCustomTransformer("Fails", (sourceMimetype, inputStream, targetMimetype, outputStream, options, tm) ->
+        {
+            throw new TransformException(UNSUPPORTED_MEDIA_TYPE, "Fails failed");
+        });
+    }
+
+    @AfterEach
+    public void after()
+    {
+        localPipelineTransformers.shutdown();
+    }
+
+    private interface Transform
+    {
+        void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+            OutputStream outputStream, Map<String, String> transformOptions, TransformManager transformManager)
+            throws Exception;
+    }
+
+    private void addCustomTransformer(String name, Transform transform)
+    {
+        transformers.put(name, Transformer.builder().withTransformerName(name).build());
+        when(customTransformers.getNamed(name)).thenReturn(new CustomTransformer()
+        {
+            @Override
+            public String getTransformerName()
+            {
+                return name;
+            }
+
+            @Override
+            public void transform(String sourceMimetype, InputStream inputStream, String targetMimetype,
+                OutputStream outputStream, Map<String, String> transformOptions,
+                TransformManager transformManager) throws Exception
+            {
+                transform.transform(sourceMimetype, inputStream, targetMimetype, outputStream, transformOptions,
+                    transformManager);
+            }
+        });
+    }
+
+    private void addPipeline(String name, String... stepNames)
+    {
+        transformers.put(name, Transformer.builder()
+            .withTransformerName(name)
+            .withTransformerPipeline(List.of(
+                new TransformStep(stepNames[0], MIMETYPE_PDF),
+                new TransformStep(stepNames[1], null)))
+            .build());
+    }
+
+    private void addFailover(String name, String... stepNames)
+    {
+        transformers.put(name, Transformer.builder()
+            .withTransformerName(name)
+            .withTransformerFailover(List.of(stepNames))
+            .build());
+    }
+
+    private String transform(String transformerName) throws Exception
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        localPipelineTransformers.get(transformerName).transform(MIMETYPE_TEXT_PLAIN,
+            new ByteArrayInputStream("Start".getBytes(StandardCharsets.UTF_8)), MIMETYPE_IMAGE_PNG, outputStream,
+            Collections.emptyMap(), transformManager);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPipeline() throws Exception
+    {
+        addPipeline("Pipeline", "Appends", "Appends");
+
+        assertEquals("Start -> Appends -> Appends", transform("Pipeline"));
+    }
+
+    @Test
+    public void testPipelineReportsTheFailureOfAnEarlierStep()
+    {
+        // Rather than the IOException of the final step, which only failed because it could not read its source.
+        addPipeline("Pipeline", "Fails", "Appends");
+
+        TransformException e = assertThrows(TransformException.class, () -> transform("Pipeline"));
+        assertEquals(UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+        assertEquals("Fails failed", e.getMessage());
+    }
+
+    @Test
+    public void testPipelineReportsTheFailureOfTheFinalStep()
+    {
+        addPipeline("Pipeline", "Appends", "Fails");
+
+        TransformException e = assertThrows(TransformException.class, () -> transform("Pipeline"));
+        assertEquals(UNSUPPORTED_MEDIA_TYPE, e.getStatus());
+    }
+
+    @Test
+    public void testPipelineFailsRatherThanWaitsWhenAnEarlierStepThrowsAnError()
+    {
+        addCustomTransformer("Errors", (sourceMimetype, inputStream, targetMimetype, outputStream, options, tm) ->
+        {
+            throw new AssertionError("Errors failed");
+        });
+        addPipeline("Pipeline", "Errors", "Appends");
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+            assertThrows(Exception.class, () -> transform("Pipeline")));
+    }
+
+    @Test
+    public void testNestedPipelineUsingTheSameTransformerDoesNotWaitForItself()
+    {
+        addPipeline("Inner", "Appends", "Appends");
+        addPipeline("Outer", "Appends", "Inner");
+
+        assertEquals("Start -> Appends -> Appends -> Appends",
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> transform("Outer")));
+        permits.values().forEach(semaphore -> assertEquals(1, semaphore.availablePermits()));
+    }
+
+    @Test
+    public void testPipelinesUsingTheSameTransformersInADifferentOrderDoNotDeadlock() throws Exception
+    {
+        addCustomTransformer("AlsoAppends", (sourceMimetype, inputStream, targetMimetype, outputStream, options, tm) ->
+            outputStream.write((new String(inputStream.readAllBytes(), StandardCharsets.UTF_8) + " -> AlsoAppends")
+                .getBytes(StandardCharsets.UTF_8)));
+        addPipeline("Forwards", "Appends", "AlsoAppends");
+        addPipeline("Backwards", "AlsoAppends", "Appends");
+
+        ExecutorService requests = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++)
+            {
+                String transformerName = i % 2 == 0 ? "Forwards" : "Backwards";
+                results.add(requests.submit((Callable<String>) () -> transform(transformerName)));
+            }
+            for (Future<String> result : results)
+            {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            requests.shutdownNow();
+        }
+        permits.values().forEach(semaphore -> assertEquals(1, semaphore.availablePermits()));
+    }
+
+    @Test
+    public void testFailoverUsesTheNextTransformer() throws Exception
+    {
+        addFailover("Failover", "Fails", "Appends");
+
+        assertEquals("Start -> Appends", transform("Failover"));
+    }
+
+    @Test
+    public void testFailoverReportsTheLastFailure()
+    {
+        addCustomTransformer("AlsoFails", (sourceMimetype, inputStream, targetMimetype, outputStream, options, tm) ->
+        {
+            throw new TransformException(BAD_REQUEST, "AlsoFails failed");
+        });
+        addFailover("Failover", "Fails", "AlsoFails");
+
+        TransformException e = assertThrows(TransformException.class, () -> transform("Failover"));
+        assertEquals(BAD_REQUEST, e.getStatus());
+        assertEquals(1, e.getSuppressed().length);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link RingBufferPipe}.
+ */
+public class RingBufferPipeTest
+{
+    private static byte[] createContent(int length)
+    {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    @Test
+    public void contentLargerThanTheBufferIsPassedBetweenThreads() throws Exception
+    {
+        byte[] content = createContent(100_000);
+        RingBufferPipe pipe = new RingBufferPipe(7);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+        {
+            try (OutputStream outputStream = pipe.getOutputStream())
+            {
+                for (int i = 0; i < content.length; i += 1000)
+                {
+                    outputStream.write(content, i, Math.min(1000, content.length - i));
+                }
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream inputStream = pipe.getInputStream())
+        {
+            inputStream.transferTo(result);
+        }
+        writer.get();
+
+        assertArrayEquals(content, result.toByteArray());
+    }
+
+    @Test
+    public void abortFailsTheReaderEvenIfContentIsBuffered() throws Exception
+    {
+        RingBufferPipe pipe = new RingBufferPipe(100);
+        pipe.getOutputStream().write(createContent(10));
+        pipe.abort(new IllegalStateException("step failed"));
+
+        IOException e = assertThrows(IOException.class, () -> pipe.getInputStream().read(new byte[10]));
+        assertEquals("step failed", e.getCause().getMessage());
+    }
+
+    @Test
+    public void closingTheInputStopsAWaitingWriter() throws Exception
+    {
+        RingBufferPipe pipe = new RingBufferPipe(10);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+        {
+            try
+            {
+                pipe.getOutputStream().write(createContent(1000));
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(10, pipe.getInputStream().read(new byte[20]));
+        pipe.getInputStream().close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, writer::get);
+        assertTrue(e.getCause().getCause() instanceof RingBufferPipe.ReaderClosedException);
+    }
+
+    @Test
+    public void endOfStreamOnceBufferedContentIsRead() throws Exception
+    {
+        RingBufferPipe pipe = new RingBufferPipe(10);
+        pipe.getOutputStream().write(createContent(5));
+        pipe.getOutputStream().close();
+
+        InputStream inputStream = pipe.getInputStream();
+        assertEquals(5, inputStream.read(new byte[20]));
+        assertEquals(-1, inputStream.read());
+    }
+}
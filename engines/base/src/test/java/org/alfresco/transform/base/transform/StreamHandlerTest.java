@@ -29,6 +29,7 @@ package org.alfresco.transform.base.transform;
 import org.alfresco.transform.base.CustomTransformer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -177,6 +178,35 @@ public class StreamHandlerTest
         }
     }
 
+    @Test
+    public void testStartWithMultipartFileAndCallCreateSourceFile() throws Exception
+    {
+        MockMultipartFile sourceMultipartFile = new MockMultipartFile("file", "original.txt", "text/plain",
+            ORIGINAL.getBytes(StandardCharsets.ISO_8859_1));
+        try (InputStream inputStream = sourceMultipartFile.getInputStream();
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream())
+        {
+            transformManager.setSourceMultipartFile(sourceMultipartFile);
+            transformManager.setInputStream(inputStream);
+            OutputStream outputStreamLengthRecorder = transformManager.setOutputStream(outputStream);
+
+            File sourceFileCreatedByTransform = transformManager.createSourceFile();
+            assertTrue(sourceFileCreatedByTransform.exists());
+            write(outputStreamLengthRecorder, read(sourceFileCreatedByTransform)+CHANGE);
+
+            transformManager.copyTargetFileToOutputStream();
+            transformManager.getOutputStream().close();
+            closeInputStreamWithoutException(inputStream);
+            Long outputLength = transformManager.getOutputLength();
+            transformManager.deleteSourceFile();
+            transformManager.deleteTargetFile();
+
+            assertEquals(EXPECTED, read(outputStream));
+            assertEquals(EXPECTED.length(), outputLength);
+            assertFalse(sourceFileCreatedByTransform.exists());
+        }
+    }
+
     @Test
     public void testStartWithSourceFile() throws Exception
     {
@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.transform;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.alfresco.transform.base.fakes.FakeTransformEngineWithFragments;
+import org.alfresco.transform.base.fakes.FakeTransformerFragments;
+import org.alfresco.transform.base.messaging.TransformReplySender;
+import org.alfresco.transform.base.model.FileRefEntity;
+import org.alfresco.transform.base.model.FileRefResponse;
+import org.alfresco.transform.base.probes.ProbeTransform;
+import org.alfresco.transform.base.registry.CustomTransformers;
+import org.alfresco.transform.base.registry.TransformRegistry;
+import org.alfresco.transform.base.registry.TransformerBulkhead;
+import org.alfresco.transform.base.sfs.SharedFileStoreClient;
+import org.alfresco.transform.client.model.TransformReply;
+import org.alfresco.transform.client.model.TransformRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_IMAGE_JPEG;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Tests how queue requests interact with the {@link org.alfresco.transform.base.messaging.QueuePipeline} and
+ * {@link TransformerBulkhead}.
+ */
+@SpringBootTest(classes={org.alfresco.transform.base.Application.class},
+    properties = {"jms-listener.pipeline.enabled=true", "jms-listener.concurrency=1",
+        "transform.bulkhead.limits=Fragments=1"})
+@ContextConfiguration(classes = {
+    FakeTransformEngineWithFragments.class,
+    FakeTransformerFragments.class})
+public class TransformHandlerPipelineTest
+{
+    @Autowired
+    private TransformHandler transformHandler;
+    @Autowired
+    private CustomTransformers customTransformers;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TransformRegistry transformRegistry;
+
+    @MockBean
+    protected SharedFileStoreClient fakeSfsClient;
+    @MockBean
+    private TransformReplySender transformReplySender;
+    @MockBean
+    private ProbeTransform probeTransform;
+
+    @Test
+    public void transformSlotIsNotHeldWhileWaitingForABusyTransformer() throws Exception
+    {
+        await().until(transformRegistry::isReadyForTransformRequests);
+        when(fakeSfsClient.retrieveFile(any()))
+            .thenReturn(new ResponseEntity<>(new ByteArrayResource("Finished".getBytes(StandardCharsets.UTF_8)),
+                new HttpHeaders(), OK));
+        when(fakeSfsClient.saveFile(any()))
+            .thenReturn(new FileRefResponse(new FileRefEntity(UUID.randomUUID().toString())));
+
+        TransformRequest request = TransformRequest
+            .builder()
+            .withRequestId(UUID.randomUUID().toString())
+            .withSourceMediaType(MIMETYPE_PDF)
+            .withTargetMediaType(MIMETYPE_IMAGE_JPEG)
+            .withTargetExtension("jpeg")
+            .withSchema(1)
+            .withClientData("ACS")
+            .withSourceReference(UUID.randomUUID().toString())
+            .withSourceSize(8L)
+            .withInternalContextForTransformEngineTests()
+            .build();
+
+        CompletableFuture<TransformReply> reply;
+        try (TransformerBulkhead.Permit busy = customTransformers.acquirePermit("Fragments"))
+        {
+            reply = CompletableFuture.supplyAsync(() ->
+                transformHandler.handleMessageRequest(request, Long.MAX_VALUE, null, probeTransform));
+
+            await()
+                .atMost(10, TimeUnit.SECONDS)
+                .until(() -> meterRegistry.get("transform.bulkhead.waiting").tag("transformer", "Fragments")
+                    .gauge().value() == 1.0);
+            assertEquals(0.0, meterRegistry.get("transform.pipeline.transforms.active").gauge().value());
+        }
+
+        assertEquals(CREATED.value(), reply.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(0.0, meterRegistry.get("transform.pipeline.transforms.active").gauge().value());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.base.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OutputStreamLengthRecorderTest
+{
+    @Test
+    public void bulkWritesAreCountedOnce() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStreamLengthRecorder recorder = new OutputStreamLengthRecorder(out);
+
+        recorder.write("Hello world".getBytes(), 6, 5);
+        recorder.write("!!".getBytes());
+        recorder.write('?');
+        recorder.write(new byte[10], 0, 0);
+
+        assertEquals(8, recorder.getLength());
+        assertArrayEquals("world!!?".getBytes(), out.toByteArray());
+    }
+
+    @Test
+    public void countStartsFromTheGivenByteCount() throws Exception
+    {
+        OutputStreamLengthRecorder recorder = new OutputStreamLengthRecorder(new ByteArrayOutputStream());
+        recorder.setByteCount(100);
+
+        recorder.write(new byte[4096], 0, 4096);
+
+        assertEquals(4196, recorder.getLength());
+    }
+}
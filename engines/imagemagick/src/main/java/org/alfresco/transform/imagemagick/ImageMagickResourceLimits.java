@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.imagemagick;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Shares the CPUs and memory of the container between the ImageMagick processes that run at the same time, by giving
+ * each one {@code -limit} options. Without them, each process sizes its OpenMP threads and pixel cache for the whole
+ * host, so concurrent transforms oversubscribe the CPUs and are pushed into swap or killed.
+ * <p>
+ * The limits of a transform are chosen when it starts, from the number of ImageMagick transforms running at that
+ * moment including itself, so they follow the concurrency of the t-engine as it changes. The most recent limits are
+ * available as {@code transform.imagemagick.limit.*} gauges.
+ */
+public class ImageMagickResourceLimits
+{
+    // Minimum memory given to a process, below which ImageMagick would use its disk cache for even small images.
+    private static final long MIN_MEMORY = 32L * 1024 * 1024;
+
+    // The pixel cache of a Q16 ImageMagick uses 8 bytes for each RGBA pixel.
+    private static final int BYTES_PER_PIXEL = 8;
+
+    /**
+     * Held while an ImageMagick process runs. Closing it more than once has no effect.
+     */
+    public interface Lease extends AutoCloseable
+    {
+        /**
+         * @return the {@code -limit} options of the process.
+         */
+        String getOptions();
+
+        @Override
+        void close();
+    }
+
+    private final int processors;
+    private final long memory;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong threadLimit = new AtomicLong();
+    private final AtomicLong memoryLimit = new AtomicLong();
+    private final AtomicLong mapLimit = new AtomicLong();
+    private final AtomicLong areaLimit = new AtomicLong();
+
+    /**
+     * @param processors the number of CPUs shared between the processes.
+     * @param memory     the number of bytes of memory shared between the processes, or 0 if it is unknown, in which
+     *                   case only the number of threads is limited.
+     */
+    public ImageMagickResourceLimits(int processors, long memory, MeterRegistry meterRegistry)
+    {
+        this.processors = Math.max(1, processors);
+        this.memory = Math.max(0, memory);
+
+        Gauge.builder("transform.imagemagick.active", active::get)
+            .description("ImageMagick processes sharing the resource limits")
+            .register(meterRegistry);
+        Gauge.builder("transform.imagemagick.limit.thread", threadLimit::get)
+            .description("Most recent -limit thread given to an ImageMagick process")
+            .register(meterRegistry);
+        Gauge.builder("transform.imagemagick.limit.memory", memoryLimit::get)
+            .description("Most recent -limit memory given to an ImageMagick process")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("transform.imagemagick.limit.map", mapLimit::get)
+            .description("Most recent -limit map given to an ImageMagick process")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("transform.imagemagick.limit.area", areaLimit::get)
+            .description("Most recent -limit area given to an ImageMagick process")
+            .baseUnit("pixels")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Creates limits that share the resources of the container. The JVM already reads the CPU quota and memory limit
+     * of its cgroup, so the number of CPUs and total memory it reports are those of the container rather than the
+     * host. The memory that may be used by the JVM's heap is excluded.
+     *
+     * @param memoryFraction the fraction of the remaining memory shared between the ImageMagick processes.
+     */
+    public static ImageMagickResourceLimits forContainer(double memoryFraction, MeterRegistry meterRegistry)
+    {
+        long memory = 0;
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean)
+        {
+            long total = ((com.sun.management.OperatingSystemMXBean) operatingSystem).getTotalMemorySize();
+            memory = (long) ((total - Runtime.getRuntime().maxMemory()) * memoryFraction);
+        }
+        return new ImageMagickResourceLimits(Runtime.getRuntime().availableProcessors(), memory, meterRegistry);
+    }
+
+    /**
+     * Chooses the limits of a process that is about to start.
+     *
+     * @return a lease which must be closed once the process has finished.
+     */
+    public Lease acquire()
+    {
+        int processes = active.incrementAndGet();
+        long threads = Math.max(1, processors / processes);
+        threadLimit.set(threads);
+
+        StringJoiner options = new StringJoiner(" ");
+        options.add("-limit thread " + threads);
+        if (memory > 0)
+        {
+            long processMemory = Math.max(MIN_MEMORY, memory / processes);
+            memoryLimit.set(processMemory);
+            mapLimit.set(processMemory * 2);
+            areaLimit.set(processMemory / BYTES_PER_PIXEL);
+            options.add("-limit memory " + processMemory)
+                .add("-limit map " + processMemory * 2)
+                .add("-limit area " + processMemory / BYTES_PER_PIXEL);
+        }
+
+        String limits = options.toString();
+        AtomicBoolean released = new AtomicBoolean();
+        return new Lease()
+        {
+            @Override
+            public String getOptions()
+            {
+                return limits;
+            }
+
+            @Override
+            public void close()
+            {
+                if (released.compareAndSet(false, true))
+                {
+                    active.decrementAndGet();
+                }
+            }
+        };
+    }
+}
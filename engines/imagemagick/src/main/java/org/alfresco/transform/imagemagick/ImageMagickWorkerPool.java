@@ -0,0 +1,360 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.imagemagick;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.alfresco.transform.base.executors.ExecParameterTokenizer;
+import org.alfresco.transform.base.logging.LogEntry;
+import org.alfresco.transform.exceptions.TransformException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of long-lived ImageMagick processes, which read their commands from standard input ({@code magick -script -}),
+ * so that a transform does not pay for starting a process, loading the coder modules and parsing the policy files.
+ * <p>
+ * Each transform is a single script line that reads the source, applies the options, writes the target and then prints
+ * a marker line to standard output, which shows the transform is complete. The settings of the transform are scoped to
+ * it by {@code -respect-parentheses}, and its images are deleted afterwards.
+ * <p>
+ * A transform is only given to an idle worker. If there is none, the transform cannot be expressed as a script line or
+ * the worker fails, {@link #transform} returns {@code false} and the caller runs ImageMagick as a separate process, so
+ * errors are reported as before. A worker that fails or times out is discarded, and each worker is replaced after
+ * {@code maxJobs} transforms, to limit the effect of leaks and of state left behind by earlier transforms.
+ */
+public class ImageMagickWorkerPool implements AutoCloseable
+{
+    private static final Logger logger = LoggerFactory.getLogger(ImageMagickWorkerPool.class);
+
+    private static final String MARKER_PREFIX = "alfresco-transform-done-";
+    private static final long START_TIMEOUT_MS = 30_000;
+
+    // Options that could close the parentheses around the transform, or change settings that outlive it.
+    private static final Set<String> SCOPE_CHANGING_OPTIONS = Set.of("(", ")", "-respect-parentheses",
+        "+respect-parentheses", "-limit", "-define", "+define");
+
+    private final List<String> command;
+    private final Map<String, String> environment;
+    private final int size;
+    private final int maxJobs;
+    private final BlockingQueue<Worker> idleWorkers;
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final AtomicLong markerCount = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "imagemagick-worker-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param exe         the ImageMagick executable that supports {@code -script}, such as {@code /usr/bin/magick}.
+     * @param environment variables added to the environment of each worker, such as {@code MAGICK_HOME}.
+     * @param size        the maximum number of workers.
+     * @param maxJobs     the number of transforms after which a worker is replaced.
+     */
+    public ImageMagickWorkerPool(String exe, Map<String, String> environment, int size, int maxJobs)
+    {
+        if (size <= 0 || maxJobs <= 0)
+        {
+            throw new IllegalArgumentException("ImageMagickWorkerPool size and maxJobs must be greater than 0");
+        }
+        this.command = List.of(exe, "-script", "-");
+        this.environment = Map.copyOf(environment);
+        this.size = size;
+        this.maxJobs = maxJobs;
+        this.idleWorkers = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Transforms the source using an idle worker, if there is one.
+     *
+     * @param limits {@code -limit} options applied before the source is read, or {@code null}.
+     * @return {@code true} if the target was written, or {@code false} if the caller should run the transform itself.
+     * @throws TransformException if the transform took longer than the timeout.
+     */
+    public boolean transform(String limits, String options, File sourceFile, String pageRange, File targetFile,
+                             Long timeoutMs)
+    {
+        String marker = MARKER_PREFIX + markerCount.incrementAndGet();
+        String line = createScriptLine(limits, options, sourceFile.getAbsolutePath() + pageRange,
+            targetFile.getAbsolutePath(), marker);
+        if (line == null)
+        {
+            return false;
+        }
+        Worker worker = acquire();
+        if (worker == null)
+        {
+            return false;
+        }
+
+        LogEntry.setOptions(pageRange + (pageRange.isEmpty() ? "" : " ") + options);
+        boolean succeeded = false;
+        try
+        {
+            succeeded = worker.run(line, marker, timeoutMs == null ? 0 : timeoutMs)
+                && targetFile.exists() && targetFile.length() > 0;
+            if (!succeeded)
+            {
+                logger.debug("ImageMagick worker did not transform {}, so it will be run as a separate process",
+                    sourceFile.getName());
+            }
+            return succeeded;
+        }
+        finally
+        {
+            release(worker, succeeded);
+        }
+    }
+
+    /**
+     * @return the number of workers that have been started and not yet discarded.
+     */
+    public int getWorkerCount()
+    {
+        return workerCount.get();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed.compareAndSet(false, true))
+        {
+            timer.shutdownNow();
+            Worker worker;
+            while ((worker = idleWorkers.poll()) != null)
+            {
+                worker.destroy();
+                workerCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Builds a single script line for the transform, or returns {@code null} if its arguments cannot be quoted safely
+     * or its options could change the scope of the line or settings used by later transforms.
+     */
+    static String createScriptLine(String limits, String options, String source, String target, String marker)
+    {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-quiet");
+        if (limits != null && !limits.isBlank())
+        {
+            arguments.addAll(new ExecParameterTokenizer(limits).getAllTokens());
+        }
+        arguments.add("-respect-parentheses");
+        arguments.add("(");
+        arguments.add("-read");
+        arguments.add(source);
+        if (options != null && !options.isBlank())
+        {
+            List<String> tokens = new ExecParameterTokenizer(options).getAllTokens();
+            if (tokens.stream().anyMatch(SCOPE_CHANGING_OPTIONS::contains))
+            {
+                return null;
+            }
+            arguments.addAll(tokens);
+        }
+        arguments.add("-strip");
+        arguments.add("-write");
+        arguments.add(target);
+        arguments.add(")");
+        arguments.add("-delete");
+        arguments.add("0--1");
+        arguments.add("-print");
+        arguments.add(marker + "\\n");
+
+        StringBuilder line = new StringBuilder();
+        for (String argument : arguments)
+        {
+            if (argument.indexOf('\'') >= 0 || argument.indexOf('\n') >= 0 || argument.indexOf('\r') >= 0)
+            {
+                return null;
+            }
+            line.append(line.length() == 0 ? "" : " ").append('\'').append(argument).append('\'');
+        }
+        return line.append('\n').toString();
+    }
+
+    private Worker acquire()
+    {
+        Worker worker = idleWorkers.poll();
+        if (worker != null || closed.get())
+        {
+            return worker;
+        }
+        if (workerCount.incrementAndGet() > size)
+        {
+            workerCount.decrementAndGet();
+            return null;
+        }
+        try
+        {
+            return new Worker();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            workerCount.decrementAndGet();
+            logger.warn("Failed to start an ImageMagick worker: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void release(Worker worker, boolean succeeded)
+    {
+        if (!succeeded || worker.jobs >= maxJobs || closed.get() || !idleWorkers.offer(worker))
+        {
+            worker.destroy();
+            workerCount.decrementAndGet();
+        }
+    }
+
+    private class Worker
+    {
+        private final Process process;
+        private final Writer stdin;
+        private final BufferedReader stdout;
+        private int jobs;
+
+        private Worker() throws IOException
+        {
+            ProcessBuilder processBuilder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+            processBuilder.environment().putAll(environment);
+            process = processBuilder.start();
+            stdin = new OutputStreamWriter(process.getOutputStream(), UTF_8);
+            stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+
+            String marker = MARKER_PREFIX + markerCount.incrementAndGet();
+            boolean started;
+            try
+            {
+                started = run("'-print' '" + marker + "\\n'\n", marker, START_TIMEOUT_MS);
+            }
+            catch (TransformException e)
+            {
+                started = false;
+            }
+            if (!started)
+            {
+                destroy();
+                throw new IOException("The ImageMagick worker " + command + " did not respond");
+            }
+            logger.debug("Started ImageMagick worker {}", process.pid());
+        }
+
+        /**
+         * Sends the script line to the worker and waits for it to print the marker.
+         *
+         * @return {@code false} if the worker exited or could not be written to.
+         */
+        private boolean run(String line, String marker, long timeoutMs)
+        {
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> kill = timeoutMs <= 0 ? null : timer.schedule(() ->
+            {
+                timedOut.set(true);
+                destroyProcessTree();
+            }, timeoutMs, MILLISECONDS);
+            try
+            {
+                stdin.write(line);
+                stdin.flush();
+                String output;
+                while ((output = stdout.readLine()) != null)
+                {
+                    if (output.equals(marker))
+                    {
+                        jobs++;
+                        return !timedOut.get() || failed(timedOut, timeoutMs);
+                    }
+                }
+                return failed(timedOut, timeoutMs);
+            }
+            catch (IOException e)
+            {
+                return failed(timedOut, timeoutMs);
+            }
+            finally
+            {
+                if (kill != null)
+                {
+                    kill.cancel(false);
+                }
+            }
+        }
+
+        private boolean failed(AtomicBoolean timedOut, long timeoutMs)
+        {
+            if (timedOut.get())
+            {
+                throw new TransformException(BAD_REQUEST, "Transformer exit code was not 0: \n" +
+                    "Process killed as it took longer than " + timeoutMs + " ms");
+            }
+            return false;
+        }
+
+        private void destroy()
+        {
+            destroyProcessTree();
+            logger.debug("Discarded ImageMagick worker {} after {} transforms", process.pid(), jobs);
+        }
+
+        // Children, such as delegates run by ImageMagick, would otherwise keep standard output open after the worker
+        // is killed.
+        private void destroyProcessTree()
+        {
+            List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+            process.destroyForcibly();
+            descendants.forEach(ProcessHandle::destroyForcibly);
+        }
+    }
+}
@@ -26,6 +26,7 @@
  */
 package org.alfresco.transform.imagemagick.transformers;
 
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.alfresco.transform.base.util.Util.stringToInteger;
 import static org.alfresco.transform.base.util.Util.stringToLong;
 import static org.alfresco.transform.common.Mimetype.MIMETYPE_IMAGE_BMP;
@@ -45,26 +46,47 @@ import static org.alfresco.transform.common.RequestParamMap.CROP_X_OFFSET;
 import static org.alfresco.transform.common.RequestParamMap.CROP_Y_OFFSET;
 import static org.alfresco.transform.common.RequestParamMap.END_PAGE;
 import static org.alfresco.transform.common.RequestParamMap.MAINTAIN_ASPECT_RATIO;
+import static org.alfresco.transform.common.RequestParamMap.RENDITIONS;
 import static org.alfresco.transform.common.RequestParamMap.RESIZE_HEIGHT;
 import static org.alfresco.transform.common.RequestParamMap.RESIZE_PERCENTAGE;
 import static org.alfresco.transform.common.RequestParamMap.RESIZE_WIDTH;
 import static org.alfresco.transform.common.RequestParamMap.START_PAGE;
 import static org.alfresco.transform.common.RequestParamMap.THUMBNAIL;
 import static org.alfresco.transform.common.RequestParamMap.TIMEOUT;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.util.StringUtils.getFilenameExtension;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 
 import org.alfresco.transform.base.TransformManager;
 import org.alfresco.transform.base.executors.AbstractCommandExecutor;
 import org.alfresco.transform.base.executors.RuntimeExec;
+import org.alfresco.transform.base.fs.FileManager.TempFileProvider;
+import org.alfresco.transform.base.logging.LogEntry;
 import org.alfresco.transform.base.util.CustomTransformerFileAdaptor;
 import org.alfresco.transform.exceptions.TransformException;
 import org.alfresco.transform.imagemagick.ImageMagickOptionsBuilder;
+import org.alfresco.transform.imagemagick.ImageMagickResourceLimits;
+import org.alfresco.transform.imagemagick.ImageMagickWorkerPool;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -75,6 +97,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class ImageMagickTransformer extends AbstractCommandExecutor implements CustomTransformerFileAdaptor
 {
+    private static final Logger logger = LoggerFactory.getLogger(ImageMagickTransformer.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Options that may differ between the renditions of a request. The others, such as the pages, are shared.
+    private static final Set<String> RENDITION_OPTIONS = Set.of(ALPHA_REMOVE, AUTO_ORIENT, CROP_GRAVITY, CROP_WIDTH,
+        CROP_HEIGHT, CROP_PERCENTAGE, CROP_X_OFFSET, CROP_Y_OFFSET, THUMBNAIL, RESIZE_WIDTH, RESIZE_HEIGHT,
+        RESIZE_PERCENTAGE, ALLOW_ENLARGEMENT, MAINTAIN_ASPECT_RATIO, COMMAND_OPTIONS);
+
+    private static final String ERROR_CODES =
+        "1,2,255,400,405,410,415,420,425,430,435,440,450,455,460,465,470,475,480,485,490,495,499,700,705,710,715,720,725,730,735,740,750,755,760,765,770,775,780,785,790,795,799";
+
     private final List<String> singlePageFormats = List.of(MIMETYPE_IMAGE_BMP, MIMETYPE_IMAGE_JP2, MIMETYPE_IMAGE_JPEG, MIMETYPE_IMAGE_PNG, MIMETYPE_IMAGE_XWD);
 
     @Value("${transform.core.imagemagick.exe}")
@@ -90,6 +124,25 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
     @Value("${transform.core.imagemagick.config}")
     private String config;
 
+    @Value("${transform.core.imagemagick.workers.size}")
+    private int workers;
+    @Value("${transform.core.imagemagick.workers.max-jobs}")
+    private int workerMaxJobs;
+    @Value("${transform.core.imagemagick.workers.exe}")
+    private String workerExe;
+
+    @Value("${transform.core.imagemagick.limits.enabled}")
+    private boolean limitsEnabled;
+    @Value("${transform.core.imagemagick.limits.memory-fraction}")
+    private double limitsMemoryFraction;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RuntimeExec renditionsCommand;
+    private ImageMagickWorkerPool workerPool;
+    private ImageMagickResourceLimits resourceLimits;
+
     @PostConstruct
     private void createCommands()
     {
@@ -108,6 +161,36 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
 
         super.transformCommand = createTransformCommand();
         super.checkCommand = createCheckCommand();
+        renditionsCommand = createRenditionsCommand();
+
+        if (limitsEnabled)
+        {
+            resourceLimits = ImageMagickResourceLimits.forContainer(limitsMemoryFraction, meterRegistry);
+        }
+
+        if (workers > 0)
+        {
+            // Only use workers if the executable that runs them is healthy, otherwise each transform would try and
+            // fail to start one before running ImageMagick as a separate process.
+            if (createVersionCommand(workerExe).execute().getSuccess())
+            {
+                workerPool = new ImageMagickWorkerPool(workerExe, createProcessProperties(), workers, workerMaxJobs);
+                logger.info("ImageMagick transforms will use up to {} {} workers", workers, workerExe);
+            }
+            else
+            {
+                logger.warn("ImageMagick workers are disabled, as {} -version failed", workerExe);
+            }
+        }
+    }
+
+    @PreDestroy
+    private void closeWorkerPool()
+    {
+        if (workerPool != null)
+        {
+            workerPool.close();
+        }
     }
 
     @Override
@@ -122,9 +205,39 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
         RuntimeExec runtimeExec = new RuntimeExec();
         Map<String, String[]> commandsAndArguments = new HashMap<>();
         commandsAndArguments.put(".*",
-            new String[]{exe, "${source}", "SPLIT:${options}", "-strip", "-quiet", "${target}"});
+            new String[]{exe, "SPLIT:${limits}", "${source}", "SPLIT:${options}", "-strip", "-quiet", "${target}"});
         runtimeExec.setCommandsAndArguments(commandsAndArguments);
+        runtimeExec.setProcessProperties(createProcessProperties());
+
+        Map<String, String> defaultProperties = new HashMap<>();
+        defaultProperties.put("options", null);
+        defaultProperties.put("limits", null);
+        runtimeExec.setDefaultProperties(defaultProperties);
+
+        runtimeExec.setErrorCodes(ERROR_CODES);
+
+        return runtimeExec;
+    }
 
+    private RuntimeExec createRenditionsCommand()
+    {
+        RuntimeExec runtimeExec = new RuntimeExec();
+        Map<String, String[]> commandsAndArguments = new HashMap<>();
+        commandsAndArguments.put(".*",
+            new String[]{exe, "-quiet", "SPLIT:${limits}", "-respect-parentheses", "${source}", "-write",
+                "mpr:source", "+delete", "SPLIT:${options}", "${target}"});
+        runtimeExec.setCommandsAndArguments(commandsAndArguments);
+        runtimeExec.setProcessProperties(createProcessProperties());
+
+        Map<String, String> defaultProperties = new HashMap<>();
+        defaultProperties.put("limits", null);
+        runtimeExec.setDefaultProperties(defaultProperties);
+        runtimeExec.setErrorCodes(ERROR_CODES);
+        return runtimeExec;
+    }
+
+    private Map<String, String> createProcessProperties()
+    {
         Map<String, String> processProperties = new HashMap<>();
         processProperties.put("MAGICK_HOME", root);
         processProperties.put("DYLD_FALLBACK_LIBRARY_PATH", dyn);
@@ -139,20 +252,16 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
         {
             processProperties.put("MAGICK_CONFIGURE_PATH", config);
         }
-        runtimeExec.setProcessProperties(processProperties);
-
-        Map<String, String> defaultProperties = new HashMap<>();
-        defaultProperties.put("options", null);
-        runtimeExec.setDefaultProperties(defaultProperties);
-
-        runtimeExec.setErrorCodes(
-            "1,2,255,400,405,410,415,420,425,430,435,440,450,455,460,465,470,475,480,485,490,495,499,700,705,710,715,720,725,730,735,740,750,755,760,765,770,775,780,785,790,795,799");
-
-        return runtimeExec;
+        return processProperties;
     }
 
     @Override
     protected RuntimeExec createCheckCommand()
+    {
+        return createVersionCommand(exe);
+    }
+
+    private static RuntimeExec createVersionCommand(String exe)
     {
         RuntimeExec runtimeExec = new RuntimeExec();
         Map<String, String[]> commandsAndArguments = new HashMap<>();
@@ -179,10 +288,171 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
             }
         }
 
-        final String options = ImageMagickOptionsBuilder
+        String pageRange = calculatePageRange(
+                stringToInteger(startPageString),
+                stringToInteger(endPageString)
+        );
+
+        Long timeout = stringToLong(transformOptions.get(TIMEOUT));
+
+        String renditions = transformOptions.get(RENDITIONS);
+        List<Map<String, String>> renditionOptions = renditions == null || renditions.isBlank()
+            ? null
+            : parseRenditions(renditions);
+        if (renditionOptions != null && !transformManager.isRespondWithFragmentSupported())
+        {
+            throw new TransformException(BAD_REQUEST,
+                "Renditions are returned as fragments, so may only be requested via message queues");
+        }
+        final String options = renditionOptions == null ? buildOptions(transformOptions) : null;
+
+        try (ImageMagickResourceLimits.Lease lease = resourceLimits == null ? null : resourceLimits.acquire())
+        {
+            String limits = lease == null ? null : lease.getOptions();
+            if (renditionOptions != null)
+            {
+                transformRenditions(renditionOptions, transformOptions, sourceFile, pageRange, targetFile, timeout,
+                    limits, transformManager);
+            }
+            // Command options could change settings that would outlive the transform in a shared worker.
+            else if (workerPool == null || StringUtils.isNotBlank(transformOptions.get(COMMAND_OPTIONS)) ||
+                     !workerPool.transform(limits, options, sourceFile, pageRange, targetFile, timeout))
+            {
+                run(limits, options, sourceFile, pageRange, targetFile, timeout);
+            }
+        }
+    }
+
+    private void run(String limits, String options, File sourceFile, String pageRange, File targetFile, Long timeout)
+    {
+        if (limits == null)
+        {
+            run(options, sourceFile, pageRange, targetFile, timeout);
+            return;
+        }
+
+        LogEntry.setOptions(pageRange + (pageRange.isEmpty() ? "" : " ") + options);
+        Map<String, String> properties = new HashMap<>();
+        properties.put("options", options);
+        properties.put("source", sourceFile.getAbsolutePath() + pageRange);
+        properties.put("target", targetFile.getAbsolutePath());
+        properties.put("limits", limits);
+        run(properties, targetFile, timeout);
+    }
+
+    /**
+     * Decodes the source once and creates a rendition from it for each of the supplied sets of options, which
+     * override those of the request. Each rendition is returned as a fragment, with its position as the index.
+     */
+    private void transformRenditions(List<Map<String, String>> renditions, Map<String, String> transformOptions,
+                                     File sourceFile, String pageRange, File targetFile, Long timeout,
+                                     String limits, TransformManager transformManager)
+    {
+        String extension = getFilenameExtension(targetFile.getName());
+        String suffix = extension == null ? "" : '.' + extension;
+        List<File> renditionFiles = new ArrayList<>();
+        renditionFiles.add(targetFile);
+        try
+        {
+            for (int i = 1; i < renditions.size(); i++)
+            {
+                renditionFiles.add(TempFileProvider.createTempFile("rendition_", suffix));
+            }
+
+            // The last rendition is the target of the command, and the others are written from clones of the
+            // decoded source, held in memory by the mpr: coder.
+            StringJoiner options = new StringJoiner(" ");
+            StringJoiner logOptions = new StringJoiner(" ; ");
+            for (int i = 0; i < renditions.size(); i++)
+            {
+                Map<String, String> renditionOptions = new HashMap<>(transformOptions);
+                renditionOptions.putAll(renditions.get(i));
+                String renditionOption = buildOptions(renditionOptions);
+                logOptions.add(renditionOption);
+                if (i < renditions.size() - 1)
+                {
+                    options.add("( mpr:source").add(renditionOption).add("-strip -write")
+                        .add('"' + renditionFiles.get(i).getAbsolutePath() + '"').add("+delete )");
+                }
+                else
+                {
+                    options.add("mpr:source").add(renditionOption).add("-strip");
+                }
+            }
+            File lastFile = renditionFiles.get(renditionFiles.size() - 1);
+
+            LogEntry.setOptions(pageRange + (pageRange.isEmpty() ? "" : " ") + logOptions);
+            Map<String, String> properties = new HashMap<>();
+            properties.put("options", options.toString());
+            properties.put("source", sourceFile.getAbsolutePath() + pageRange);
+            properties.put("target", lastFile.getAbsolutePath());
+            if (limits != null)
+            {
+                properties.put("limits", limits);
+            }
+            run(renditionsCommand, properties, timeout, renditionFiles.toArray(new File[0]));
+
+            for (int i = 0; i < renditionFiles.size(); i++)
+            {
+                if (i > 0)
+                {
+                    Files.move(renditionFiles.get(i).toPath(), transformManager.createTargetFile().toPath(),
+                        REPLACE_EXISTING);
+                }
+                transformManager.respondWithFragment(i, i == renditionFiles.size() - 1);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new TransformException(INTERNAL_SERVER_ERROR, "Failed to return renditions: " + e.getMessage(), e);
+        }
+        finally
+        {
+            // Files that have not been moved to a fragment, because the transform failed.
+            for (File renditionFile : renditionFiles.subList(1, renditionFiles.size()))
+            {
+                if (renditionFile.exists() && !renditionFile.delete())
+                {
+                    logger.error("Failed to delete temporary rendition file {}", renditionFile.getPath());
+                }
+            }
+        }
+    }
+
+    private static List<Map<String, String>> parseRenditions(String renditions)
+    {
+        List<Map<String, String>> parsed;
+        try
+        {
+            parsed = objectMapper.readValue(renditions, new TypeReference<>() {});
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new TransformException(BAD_REQUEST, "Invalid renditions value, which should be a JSON array of " +
+                "objects of transform options: " + e.getOriginalMessage());
+        }
+        if (parsed == null || parsed.isEmpty())
+        {
+            throw new TransformException(BAD_REQUEST, "Invalid renditions value, which has no renditions");
+        }
+        for (Map<String, String> rendition : parsed)
+        {
+            for (String name : rendition.keySet())
+            {
+                if (!RENDITION_OPTIONS.contains(name))
+                {
+                    throw new TransformException(BAD_REQUEST, "Invalid renditions value, as " + name +
+                        " may not be set for each rendition");
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static String buildOptions(Map<String, String> transformOptions)
+    {
+        return ImageMagickOptionsBuilder
                 .builder()
-                .withStartPage(startPageString)
-                .withEndPage(endPageString)
                 .withAlphaRemove(transformOptions.get(ALPHA_REMOVE))
                 .withAutoOrient(transformOptions.get(AUTO_ORIENT))
                 .withCropGravity(transformOptions.get(CROP_GRAVITY))
@@ -199,15 +469,6 @@ public class ImageMagickTransformer extends AbstractCommandExecutor implements C
                 .withMaintainAspectRatio(transformOptions.get(MAINTAIN_ASPECT_RATIO))
                 .withCommandOptions(transformOptions.get(COMMAND_OPTIONS))
                 .build();
-
-        String pageRange = calculatePageRange(
-                stringToInteger(startPageString),
-                stringToInteger(endPageString)
-        );
-
-        Long timeout = stringToLong(transformOptions.get(TIMEOUT));
-
-        run(options, sourceFile, pageRange, targetFile, timeout);
     }
 
     private static String calculatePageRange(Integer startPage, Integer endPage)
@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.imagemagick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class ImageMagickResourceLimitsTest
+{
+    private static final long MB = 1024L * 1024;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testLimitsAreSharedBetweenProcesses()
+    {
+        ImageMagickResourceLimits limits = new ImageMagickResourceLimits(8, 1024 * MB, meterRegistry);
+
+        try (ImageMagickResourceLimits.Lease first = limits.acquire())
+        {
+            assertEquals("-limit thread 8 -limit memory " + 1024 * MB + " -limit map " + 2048 * MB +
+                " -limit area " + 128 * MB, first.getOptions());
+
+            try (ImageMagickResourceLimits.Lease second = limits.acquire())
+            {
+                assertEquals("-limit thread 4 -limit memory " + 512 * MB + " -limit map " + 1024 * MB +
+                    " -limit area " + 64 * MB, second.getOptions());
+                assertEquals(2, gauge("transform.imagemagick.active"));
+                assertEquals(4, gauge("transform.imagemagick.limit.thread"));
+                assertEquals(512 * MB, gauge("transform.imagemagick.limit.memory"));
+            }
+        }
+
+        assertEquals(0, gauge("transform.imagemagick.active"));
+        try (ImageMagickResourceLimits.Lease next = limits.acquire())
+        {
+            assertEquals(8, gauge("transform.imagemagick.limit.thread"));
+        }
+    }
+
+    @Test
+    public void testMinimums()
+    {
+        ImageMagickResourceLimits limits = new ImageMagickResourceLimits(1, 64 * MB, meterRegistry);
+
+        try (ImageMagickResourceLimits.Lease first = limits.acquire();
+             ImageMagickResourceLimits.Lease second = limits.acquire();
+             ImageMagickResourceLimits.Lease third = limits.acquire())
+        {
+            assertEquals("-limit thread 1 -limit memory " + 32 * MB + " -limit map " + 64 * MB +
+                " -limit area " + 4 * MB, third.getOptions());
+        }
+    }
+
+    @Test
+    public void testUnknownMemory()
+    {
+        ImageMagickResourceLimits limits = new ImageMagickResourceLimits(4, 0, meterRegistry);
+
+        try (ImageMagickResourceLimits.Lease lease = limits.acquire())
+        {
+            assertEquals("-limit thread 4", lease.getOptions());
+        }
+    }
+
+    @Test
+    public void testCloseMoreThanOnce()
+    {
+        ImageMagickResourceLimits limits = new ImageMagickResourceLimits(4, 0, meterRegistry);
+
+        ImageMagickResourceLimits.Lease lease = limits.acquire();
+        lease.close();
+        lease.close();
+
+        assertEquals(0, gauge("transform.imagemagick.active"));
+    }
+
+    private long gauge(String name)
+    {
+        return (long) meterRegistry.get(name).gauge().value();
+    }
+}
@@ -27,12 +27,14 @@
 package org.alfresco.transform.imagemagick;
 
 import org.alfresco.transform.base.AbstractBaseTest;
+import org.alfresco.transform.base.TransformManager;
 import org.alfresco.transform.base.executors.RuntimeExec;
 import org.alfresco.transform.base.executors.RuntimeExec.ExecutionResult;
 import org.alfresco.transform.base.model.FileRefEntity;
 import org.alfresco.transform.base.model.FileRefResponse;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.client.model.TransformRequest;
+import org.alfresco.transform.exceptions.TransformException;
 import org.alfresco.transform.imagemagick.transformers.ImageMagickTransformer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -50,21 +52,33 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.UUID;
 
 import static org.alfresco.transform.common.RequestParamMap.ENDPOINT_TRANSFORM;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
@@ -403,4 +417,142 @@ public class ImageMagickTest extends AbstractBaseTest
         assertEquals(DYN, System.getProperty("IMAGEMAGICK_DYN"));
         assertEquals(ROOT, System.getProperty("IMAGEMAGICK_ROOT"));
     }
+
+    @Test
+    public void testRenditions() throws Exception
+    {
+        File sourceFile = File.createTempFile("source_", ".tiff");
+        File targetFile = File.createTempFile("target_", ".png");
+        List<File> fragmentFiles = new ArrayList<>();
+        List<String> fragments = new ArrayList<>();
+        RuntimeExec mockRenditionsCommand = mock(RuntimeExec.class);
+        TransformManager transformManager = mock(TransformManager.class);
+        Object renditionsCommand = ReflectionTestUtils.getField(imageMagickTransformer, "renditionsCommand");
+        ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", mockRenditionsCommand);
+        try
+        {
+            // Each rendition file is written with its position in the command
+            when(mockRenditionsCommand.execute(any(), anyLong())).thenAnswer(
+                (Answer<RuntimeExec.ExecutionResult>) invocation -> {
+                    Map<String, String> actualProperties = invocation.getArgument(0);
+                    List<String> paths = new ArrayList<>();
+                    Matcher matcher = Pattern.compile("\"([^\"]+)\"").matcher(actualProperties.get("options"));
+                    while (matcher.find())
+                    {
+                        paths.add(matcher.group(1));
+                    }
+                    paths.add(actualProperties.get("target"));
+                    for (int i = 0; i < paths.size(); i++)
+                    {
+                        Files.writeString(new File(paths.get(i)).toPath(), "rendition " + i);
+                    }
+
+                    assertEquals(sourceFile.getAbsolutePath() + "[0]", actualProperties.get("source"));
+                    assertEquals(targetFile.getAbsolutePath(), paths.get(0));
+                    assertEquals("( mpr:source -auto-orient -resize 100x100 -strip -write \"" + paths.get(0) +
+                            "\" +delete ) ( mpr:source -auto-orient -thumbnail 50x50 -strip -write \"" +
+                            paths.get(1) + "\" +delete ) mpr:source -resize 500x500 -strip",
+                        actualProperties.get("options"));
+                    assertEquals(2000L, (Long) invocation.getArgument(1));
+                    return mockExecutionResult;
+                });
+            fragmentFiles.add(targetFile);
+            when(transformManager.isRespondWithFragmentSupported()).thenReturn(true);
+            when(transformManager.createTargetFile()).thenAnswer(invocation -> {
+                File file = File.createTempFile("fragment_", ".png");
+                fragmentFiles.add(file);
+                return file;
+            });
+            when(transformManager.respondWithFragment(anyInt(), anyBoolean())).thenAnswer(invocation -> {
+                int index = invocation.getArgument(0);
+                boolean finished = invocation.getArgument(1);
+                File fragmentFile = fragmentFiles.get(fragmentFiles.size() - 1);
+                fragments.add(index + " " + finished + " " + Files.readString(fragmentFile.toPath()));
+                return null;
+            });
+
+            imageMagickTransformer.transform("image/tiff", "image/png", Map.of(
+                    "autoOrient", "true",
+                    "timeout", "2000",
+                    "renditions", "[{\"resizeWidth\": 100, \"resizeHeight\": 100}, " +
+                        "{\"thumbnail\": \"true\", \"resizeWidth\": \"50\", \"resizeHeight\": \"50\"}, " +
+                        "{\"autoOrient\": \"false\", \"resizeWidth\": 500, \"resizeHeight\": 500}]"),
+                sourceFile, targetFile, transformManager);
+
+            assertEquals(List.of("0 false rendition 0", "1 false rendition 1", "2 true rendition 2"), fragments);
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", renditionsCommand);
+            fragmentFiles.forEach(File::delete);
+            sourceFile.delete();
+        }
+    }
+
+    @Test
+    public void testRenditionFilesAreDeletedOnFailure() throws Exception
+    {
+        List<File> renditionFiles = new ArrayList<>();
+        RuntimeExec mockRenditionsCommand = mock(RuntimeExec.class);
+        TransformManager transformManager = mock(TransformManager.class);
+        when(transformManager.isRespondWithFragmentSupported()).thenReturn(true);
+        Object renditionsCommand = ReflectionTestUtils.getField(imageMagickTransformer, "renditionsCommand");
+        ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", mockRenditionsCommand);
+        try
+        {
+            when(mockRenditionsCommand.execute(any(), anyLong())).thenAnswer(
+                (Answer<RuntimeExec.ExecutionResult>) invocation -> {
+                    Map<String, String> actualProperties = invocation.getArgument(0);
+                    File renditionFile = new File(actualProperties.get("target"));
+                    Files.writeString(renditionFile.toPath(), "partial");
+                    renditionFiles.add(renditionFile);
+                    throw new TransformException(BAD_REQUEST, "Failed");
+                });
+
+            assertThrows(TransformException.class, () ->
+                imageMagickTransformer.transform("image/tiff", "image/png", Map.of(
+                        "renditions", "[{\"resizeWidth\": 100}, {\"resizeWidth\": 50}]"),
+                    new File("source.tiff"), new File("target.png"), transformManager));
+
+            assertEquals(1, renditionFiles.size());
+            assertFalse(renditionFiles.get(0).exists());
+            verify(transformManager, never()).respondWithFragment(anyInt(), anyBoolean());
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", renditionsCommand);
+        }
+    }
+
+    @Test
+    public void testRenditionsMayOnlyBeRequestedViaQueues() throws Exception
+    {
+        RuntimeExec mockRenditionsCommand = mock(RuntimeExec.class);
+        Object renditionsCommand = ReflectionTestUtils.getField(imageMagickTransformer, "renditionsCommand");
+        ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", mockRenditionsCommand);
+        try
+        {
+            // The mock TransformManager does not support fragments, like that of an http request.
+            TransformException e = assertThrows(TransformException.class, () ->
+                imageMagickTransformer.transform("image/tiff", "image/png",
+                    Map.of("renditions", "[{\"resizeWidth\": 100}]"), new File("source.tiff"),
+                    new File("target.png"), mock(TransformManager.class)));
+            assertEquals(BAD_REQUEST, e.getStatus());
+            verify(mockRenditionsCommand, never()).execute(any(), anyLong());
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(imageMagickTransformer, "renditionsCommand", renditionsCommand);
+        }
+    }
+
+    @Test
+    public void testRenditionsMayNotSetPages()
+    {
+        TransformException e = assertThrows(TransformException.class, () ->
+            imageMagickTransformer.transform("image/tiff", "image/png",
+                Map.of("renditions", "[{\"startPage\": 1}]"), new File("source.tiff"), new File("target.png"),
+                mock(TransformManager.class)));
+        assertEquals(BAD_REQUEST, e.getStatus());
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * Alfresco Transform Core
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.imagemagick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.condition.OS.WINDOWS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.alfresco.transform.exceptions.TransformException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the ImageMagickWorkerPool using a shell script in place of ImageMagick, which writes its process id to the
+ * target of each script line and prints the marker.
+ */
+@DisabledOnOs(WINDOWS)
+public class ImageMagickWorkerPoolTest
+{
+    private static final String FAKE_MAGICK = String.join("\n",
+        "#!/bin/sh",
+        "while IFS= read -r line; do",
+        "  eval \"set -- $line\"",
+        "  target=; marker=",
+        "  while [ $# -gt 0 ]; do",
+        "    case \"$1\" in",
+        "      -write) target=\"$2\"; shift ;;",
+        "      -print) marker=\"${2%\\\\n}\"; shift ;;",
+        "    esac",
+        "    shift",
+        "  done",
+        "  case \"$target\" in",
+        "    *fail*) exit 1 ;;",
+        "    *slow*) sleep 10 ;;",
+        "  esac",
+        "  if [ -n \"$target\" ]; then echo \"$$\" > \"$target\"; fi",
+        "  echo \"$marker\"",
+        "done",
+        "");
+
+    @TempDir
+    Path tempDir;
+
+    private String exe;
+    private File sourceFile;
+
+    @BeforeEach
+    public void before() throws IOException
+    {
+        Path script = tempDir.resolve("magick");
+        Files.writeString(script, FAKE_MAGICK);
+        assertTrue(script.toFile().setExecutable(true));
+        exe = script.toString();
+
+        sourceFile = tempDir.resolve("source.png").toFile();
+        Files.writeString(sourceFile.toPath(), "source");
+    }
+
+    @Test
+    public void testWorkerIsReused() throws IOException
+    {
+        try (ImageMagickWorkerPool pool = new ImageMagickWorkerPool(exe, Map.of(), 2, 10))
+        {
+            String first = transform(pool, "first.png");
+            String second = transform(pool, "second.png");
+
+            assertEquals(first, second);
+            assertEquals(1, pool.getWorkerCount());
+        }
+    }
+
+    @Test
+    public void testWorkerIsReplacedAfterMaxJobs() throws IOException
+    {
+        try (ImageMagickWorkerPool pool = new ImageMagickWorkerPool(exe, Map.of(), 1, 1))
+        {
+            String first = transform(pool, "first.png");
+            String second = transform(pool, "second.png");
+
+            assertNotEquals(first, second);
+            assertEquals(0, pool.getWorkerCount());
+        }
+    }
+
+    @Test
+    public void testFailedWorkerIsDiscarded() throws IOException
+    {
+        try (ImageMagickWorkerPool pool = new ImageMagickWorkerPool(exe, Map.of(), 1, 10))
+        {
+            File targetFile = tempDir.resolve("fail.png").toFile();
+
+            assertFalse(pool.transform(null, "-resize 10x10", sourceFile, "[0]", targetFile, null));
+            assertEquals(0, pool.getWorkerCount());
+
+            transform(pool, "next.png");
+            assertEquals(1, pool.getWorkerCount());
+        }
+    }
+
+    @Test
+    public void testTimeout()
+    {
+        try (ImageMagickWorkerPool pool = new ImageMagickWorkerPool(exe, Map.of(), 1, 10))
+        {
+            File targetFile = tempDir.resolve("slow.png").toFile();
+
+            TransformException e = assertThrows(TransformException.class,
+                () -> pool.transform(null, "", sourceFile, "", targetFile, 500L));
+            assertTrue(e.getMessage().contains("Process killed as it took longer than 500 ms"), e.getMessage());
+            assertEquals(0, pool.getWorkerCount());
+        }
+    }
+
+    @Test
+    public void testMissingExecutable()
+    {
+        try (ImageMagickWorkerPool pool = new ImageMagickWorkerPool(tempDir.resolve("missing").toString(),
+            Map.of(), 1, 10))
+        {
+            assertFalse(pool.transform(null, "", sourceFile, "", tempDir.resolve("target.png").toFile(), null));
+            assertEquals(0, pool.getWorkerCount());
+        }
+    }
+
+    @Test
+    public void testCreateScriptLine()
+    {
+        assertEquals("'-quiet' '-limit' 'thread' '2' '-respect-parentheses' '(' '-read' '/in.pdf[0]' " +
+                "'-resize' '10x10>' '-strip' '-write' '/out.png' ')' '-delete' '0--1' '-print' 'done\\n'\n",
+            ImageMagickWorkerPool.createScriptLine("-limit thread 2", "-resize \"10x10>\"", "/in.pdf[0]", "/out.png",
+                "done"));
+        assertNull(ImageMagickWorkerPool.createScriptLine(null, "", "/it's.png", "/out.png", "done"));
+        assertNull(ImageMagickWorkerPool.createScriptLine(null, "-label \"a\nb\"", "/in.png", "/out.png", "done"));
+        assertNull(ImageMagickWorkerPool.createScriptLine(null, "-resize 10x10 ) -read /other.png (", "/in.png",
+            "/out.png", "done"));
+        assertNull(ImageMagickWorkerPool.createScriptLine(null, "-define png:bit-depth=8", "/in.png", "/out.png",
+            "done"));
+        assertNull(ImageMagickWorkerPool.createScriptLine(null, "-limit memory 1", "/in.png", "/out.png", "done"));
+    }
+
+    private String transform(ImageMagickWorkerPool pool, String targetName) throws IOException
+    {
+        File targetFile = tempDir.resolve(targetName).toFile();
+        assertTrue(pool.transform(null, "-resize 10x10", sourceFile, "[0]", targetFile, 5000L));
+        return Files.readString(targetFile.toPath()).trim();
+    }
+}
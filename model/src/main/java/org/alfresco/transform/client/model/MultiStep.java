@@ -21,6 +21,8 @@
  */
 package org.alfresco.transform.client.model;
 
+import org.alfresco.transform.messages.TransformStack;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +41,9 @@ public class MultiStep implements Serializable
     private String initialSourceMediaType;
     private List<String> transformsToBeDone = new ArrayList<>();
 
+    // The parsed form of transformsToBeDone, used by TransformStack. Not part of the message.
+    private transient TransformStack.ParsedLevels parsedLevels;
+
     // regions [Accessors]
 
     public String getInitialSourceMediaType()
@@ -73,6 +78,18 @@ public class MultiStep implements Serializable
 
     //endregion
 
+    /**
+     * Not a bean property, so is not serialised.
+     */
+    public TransformStack.ParsedLevels parsedLevels()
+    {
+        if (parsedLevels == null)
+        {
+            parsedLevels = new TransformStack.ParsedLevels();
+        }
+        return parsedLevels;
+    }
+
     @Override public String toString()
     {
         return "MultiStep{" +
@@ -60,6 +60,7 @@ public interface RequestParamMap
     String ALLOW_ENLARGEMENT       = "allowEnlargement";
     String MAINTAIN_ASPECT_RATIO   = "maintainAspectRatio";
     String COMMAND_OPTIONS         = "commandOptions";
+    String RENDITIONS              = "renditions";
     String TIMEOUT                 = "timeout";
     String INCLUDE_CONTENTS        = "includeContents";
     String NOT_EXTRACT_BOOKMARKS_TEXT = "notExtractBookmarksText";
@@ -78,6 +79,8 @@ public interface RequestParamMap
     String CONFIG_VERSION          = "configVersion";
     String CONFIG_VERSION_DEFAULT  = "1";
     int    CONFIG_VERSION_LATEST   = CoreVersionDecorator.CONFIG_VERSION_INCLUDES_CORE_VERSION;
+    // The ETag of an earlier config response, so that only the changes since then are returned.
+    String CONFIG_DELTA_SINCE      = "deltaSince";
 
     // Endpoints
     String ENDPOINT_TRANSFORM = "/transform";
@@ -100,6 +100,7 @@ public class CoreVersionDecorator
                 .withTransformOptions(transformOptions)
                 // Original values
                 .withRemoveTransformers(transformConfig.getRemoveTransformers())
+                .withRemoveTransformOptions(transformConfig.getRemoveTransformOptions())
                 .withAddSupported(transformConfig.getAddSupported())
                 .withRemoveSupported(transformConfig.getRemoveSupported())
                 .withOverrideSupported(transformConfig.getOverrideSupported())
@@ -41,6 +41,8 @@ public class TransformConfig
 
     private Set<String> removeTransformers = new HashSet<>();
 
+    private Set<String> removeTransformOptions = new HashSet<>();
+
     private Set<AddSupported> addSupported = new HashSet<>();
 
     private Set<RemoveSupported> removeSupported = new HashSet<>();
@@ -64,6 +66,11 @@ public class TransformConfig
         this.removeTransformers = removeTransformers == null ? new HashSet<>() : removeTransformers;
     }
 
+    public void setRemoveTransformOptions(Set<String> removeTransformOptions)
+    {
+        this.removeTransformOptions = removeTransformOptions == null ? new HashSet<>() : removeTransformOptions;
+    }
+
     public void setAddSupported(Set<AddSupported> addSupported)
     {
         this.addSupported = addSupported == null ? new HashSet<>() : addSupported;
@@ -94,6 +101,15 @@ public class TransformConfig
         return removeTransformers;
     }
 
+    /**
+     * @return the names of transform options that have been removed. Only set in a delta of the t-engine's
+     *         {@code /transform/config} response.
+     */
+    public Set<String> getRemoveTransformOptions()
+    {
+        return removeTransformOptions;
+    }
+
     public Set<AddSupported> getAddSupported()
     {
         return addSupported;
@@ -128,6 +144,7 @@ public class TransformConfig
         return  transformOptions.equals(that.transformOptions) &&
                 transformers.equals(that.transformers) &&
                 removeTransformers.equals(that.removeTransformers) &&
+                removeTransformOptions.equals(that.removeTransformOptions) &&
                 addSupported.equals(that.addSupported) &&
                 removeSupported.equals(that.removeSupported) &&
                 overrideSupported.equals(that.overrideSupported) &&
@@ -137,8 +154,8 @@ public class TransformConfig
     @Override
     public int hashCode()
     {
-        return Objects.hash(transformOptions, transformers, removeTransformers, addSupported, removeSupported,
-                overrideSupported, supportedDefaults);
+        return Objects.hash(transformOptions, transformers, removeTransformers, removeTransformOptions, addSupported,
+                removeSupported, overrideSupported, supportedDefaults);
     }
 
     @Override
@@ -184,6 +201,12 @@ public class TransformConfig
             return this;
         }
 
+        public Builder withRemoveTransformOptions(final Set<String> removeTransformOptions)
+        {
+            transformConfig.removeTransformOptions = removeTransformOptions;
+            return this;
+        }
+
         public Builder withAddSupported(final Set<AddSupported> addSupported)
         {
             transformConfig.addSupported = addSupported;
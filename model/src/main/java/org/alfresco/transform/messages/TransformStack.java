@@ -25,9 +25,9 @@ import org.alfresco.transform.client.model.InternalContext;
 import org.alfresco.transform.client.model.MultiStep;
 import org.alfresco.transform.client.model.TransformReply;
 import org.alfresco.transform.common.TransformerDebug;
-import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -126,26 +126,156 @@ public class TransformStack
 
     public static class Step
     {
-        private final String[] step;
+        private final String transformerName;
+        private final String sourceMediaType;
+        private final String targetMediaType;
 
-        private Step(String stepWithSeparatedFields)
+        private Step(String transformerName, String sourceMediaType, String targetMediaType)
         {
-            this.step = stepWithSeparatedFields.split(SEPARATOR_REGEX);
+            this.transformerName = transformerName;
+            this.sourceMediaType = sourceMediaType;
+            this.targetMediaType = targetMediaType;
         }
 
         public String getTransformerName()
         {
-            return step[0];
+            return transformerName;
         }
 
         public String getSourceMediaType()
         {
-            return step[1];
+            return sourceMediaType;
         }
 
         public String getTargetMediaType()
         {
-            return step[2];
+            return targetMediaType;
+        }
+    }
+
+    /**
+     * The parsed form of a level, so its fields are only split once. Immutable, so a change creates a new level,
+     * along with the string held in {@link MultiStep#getTransformsToBeDone()}.
+     */
+    static final class Level
+    {
+        private final String encoded;
+        private final String[] fields;
+
+        private Level(String encoded, String[] fields)
+        {
+            this.encoded = encoded;
+            this.fields = fields;
+        }
+
+        static Level parse(String encoded)
+        {
+            return new Level(encoded, encoded.split(SEPARATOR_REGEX, -1));
+        }
+
+        private static Level of(String[] fields)
+        {
+            return new Level(String.join(SEPARATOR, fields), fields);
+        }
+
+        String getHeaderField(int index)
+        {
+            return fields[index];
+        }
+
+        int getStepCount()
+        {
+            return (fields.length-FIELDS_IN_HEADER)/FIELDS_PER_STEP;
+        }
+
+        Step getCurrentStep()
+        {
+            int i = fields.length-FIELDS_PER_STEP;
+            return new Step(fields[i], fields[i+1], fields[i+2]);
+        }
+
+        Level withHeaderField(int index, String value)
+        {
+            String[] newFields = fields.clone();
+            newFields[index] = value;
+            return of(newFields);
+        }
+
+        Level withoutCurrentStep()
+        {
+            return of(Arrays.copyOf(fields, fields.length-FIELDS_PER_STEP));
+        }
+
+        Level withoutSteps()
+        {
+            return of(Arrays.copyOf(fields, FIELDS_IN_HEADER));
+        }
+
+        boolean isValid()
+        {
+            if (fields.length <  FIELDS_IN_HEADER+FIELDS_PER_STEP || // must be at least 1 step
+                (fields.length-FIELDS_IN_HEADER)%FIELDS_PER_STEP != 0 ||
+                (!PIPELINE_FLAG.equals(fields[FLAG_INDEX]) &&
+                 !FAILOVER_FLAG.equals(fields[FLAG_INDEX])) ||
+                !aValidReference(fields[REFERENCE_INDEX]) ||
+                !aPositiveLong(fields[START_INDEX]) ||
+                !aPositiveInt(fields[RETRY_INDEX]))
+            {
+                return false;
+            }
+
+            for (int i=fields.length-1; i>=FIELDS_IN_HEADER; i--)
+            {
+                if (fields[i].isBlank())
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Holds the parsed {@link Level}s of a {@link MultiStep}, so that they are parsed once per message rather than on
+     * each call. A level is parsed again if its string has been replaced by something other than this class.
+     */
+    public static final class ParsedLevels
+    {
+        private String[] encoded = new String[0];
+        private Level[] levels = new Level[0];
+
+        private Level get(List<String> list, int i)
+        {
+            String level = list.get(i);
+            if (level == null)
+            {
+                return null;
+            }
+            if (i < encoded.length && encoded[i] == level)
+            {
+                return levels[i];
+            }
+            Level parsed = Level.parse(level);
+            put(i, parsed);
+            return parsed;
+        }
+
+        private void set(List<String> list, int i, Level level)
+        {
+            list.set(i, level.encoded);
+            put(i, level);
+        }
+
+        private void put(int i, Level level)
+        {
+            if (i >= encoded.length)
+            {
+                encoded = Arrays.copyOf(encoded, i+8);
+                levels = Arrays.copyOf(levels, i+8);
+            }
+            encoded[i] = level.encoded;
+            levels[i] = level;
         }
     }
 
@@ -196,6 +326,16 @@ public class TransformStack
         return levels(internalContext).get(i);
     }
 
+    private static Level parsedLevel(InternalContext internalContext, int i)
+    {
+        return parsedLevels(internalContext).get(levels(internalContext), i);
+    }
+
+    private static ParsedLevels parsedLevels(InternalContext internalContext)
+    {
+        return internalContext.getMultiStep().parsedLevels();
+    }
+
     private static void init(InternalContext internalContext)
     {
         while(levels(internalContext).size() < TOP_STACK_LEVEL)
@@ -206,14 +346,20 @@ public class TransformStack
 
     private static String currentLevel(InternalContext internalContext)
     {
-        return parentLevel(internalContext, 0);
+        List<String> levels = levels(internalContext);
+        int i = levels.size() - 1;
+        return i >= TOP_STACK_LEVEL ? levels.get(i) : null;
     }
 
-    private static String parentLevel(InternalContext internalContext, int parentLevels)
+    private static Level currentParsedLevel(InternalContext internalContext)
     {
-        List<String> levels = levels(internalContext);
-        int i = levels.size() - 1 - parentLevels;
-        return i >= TOP_STACK_LEVEL ? levels.get(i) : null;
+        return parentParsedLevel(internalContext, 0);
+    }
+
+    private static Level parentParsedLevel(InternalContext internalContext, int parentLevels)
+    {
+        int i = levels(internalContext).size() - 1 - parentLevels;
+        return i >= TOP_STACK_LEVEL ? parsedLevel(internalContext, i) : null;
     }
 
     public static boolean isFinished(InternalContext internalContext)
@@ -264,20 +410,17 @@ public class TransformStack
     private static void setHeaderField(InternalContext internalContext, int index, String value)
     {
         List<String> levels = levels(internalContext);
-        int size = levels.size();
-        String level = levels.get(size-1);
-        int j = indexOfField(level, index);
-        int k = level.indexOf(SEPARATOR, j+1);
-        levels.set(size-1, level.substring(0, j) + value + level.substring(k));
+        int i = levels.size()-1;
+        parsedLevels(internalContext).set(levels, i, parsedLevel(internalContext, i).withHeaderField(index, value));
     }
 
     public static String getReference(InternalContext internalContext)
     {
         StringJoiner ref = new StringJoiner(".");
-        List<String> levels = levels(internalContext);
-        for (int i=TOP_STACK_LEVEL; i<levels.size(); i++)
+        int size = levels(internalContext).size();
+        for (int i=TOP_STACK_LEVEL; i<size; i++)
         {
-            ref.add(getHeaderFieldString(levels.get(i), REFERENCE_INDEX));
+            ref.add(parsedLevel(internalContext, i).getHeaderField(REFERENCE_INDEX));
         }
         return ref.toString();
     }
@@ -309,17 +452,7 @@ public class TransformStack
 
     private static Long getHeaderField(InternalContext internalContext, int index)
     {
-        return getHeaderField(currentLevel(internalContext), index);
-    }
-
-    private static Long getHeaderField(String level, int index)
-    {
-        return Long.valueOf(getHeaderFieldString(level, index));
-    }
-
-    private static String getHeaderFieldString(String level, int index)
-    {
-        return level.split(SEPARATOR_REGEX)[index];
+        return Long.valueOf(currentParsedLevel(internalContext).getHeaderField(index));
     }
 
     public static void removeTransformLevel(InternalContext internalContext)
@@ -348,14 +481,13 @@ public class TransformStack
 
     public static String getParentName(InternalContext internalContext)
     {
-        String level = parentLevel(internalContext, 1);
-        return level == null ? null : new Step(level.substring(indexOfNextStep(level))).getTransformerName();
+        Level level = parentParsedLevel(internalContext, 1);
+        return level == null ? null : level.getCurrentStep().getTransformerName();
     }
 
     public static Step currentStep(InternalContext internalContext)
     {
-        String level = currentLevel(internalContext);
-        return new Step(level.substring(indexOfNextStep(level)));
+        return currentParsedLevel(internalContext).getCurrentStep();
     }
 
     public static boolean isLastStepInTransformLevel(InternalContext internalContext)
@@ -370,7 +502,10 @@ public class TransformStack
 
     private static int getStepCount(InternalContext internalContext)
     {
-        return (StringUtils.countMatches(currentLevel(internalContext), SEPARATOR)+1-FIELDS_IN_HEADER)/FIELDS_PER_STEP;
+        Level level = currentParsedLevel(internalContext);
+        return level == null
+            ? (1-FIELDS_IN_HEADER)/FIELDS_PER_STEP
+            : level.getStepCount();
     }
 
     public static void removeSuccessfulStep(TransformReply reply, TransformerDebug transformerDebug)
@@ -413,10 +548,11 @@ public class TransformStack
         // For a successful failover step, or an unsuccessful pipeline step remove all sibling steps, otherwise just
         // remove one step as it was a successful pipeline step or an unsuccessful failover step
         List<String> levels = levels(internalContext);
-        int size = levels.size();
-        String level = levels.get(size-1);
-        levels.set(size-1, level.substring(0,
-                (successfulFailoverStep || unsuccessfulPipelineStep ? indexOfLastStep(level) : indexOfNextStep(level)) - 1));
+        int i = levels.size()-1;
+        Level level = parsedLevel(internalContext, i);
+        parsedLevels(internalContext).set(levels, i, successfulFailoverStep || unsuccessfulPipelineStep
+            ? level.withoutSteps()
+            : level.withoutCurrentStep());
 
         if (!isTransformLevelFinished(internalContext))
         {
@@ -424,31 +560,6 @@ public class TransformStack
         }
     }
 
-    private static int indexOfNextStep(String level)
-    {
-        int j = level.length()-1;
-        for (int i = FIELDS_PER_STEP; i >= 1 && j > 0; i--)
-        {
-            j = level.lastIndexOf(SEPARATOR, j-1);
-        }
-        return j+1;
-    }
-
-    private static int indexOfLastStep(String level)
-    {
-        return indexOfField(level, FIELDS_IN_HEADER);
-    }
-
-    private static int indexOfField(String level, int n)
-    {
-        int j = 0;
-        for (int i = n; i >= 1; i--)
-        {
-            j = level.indexOf(SEPARATOR, j+1);
-        }
-        return j+1;
-    }
-
     public static String checkStructure(InternalContext internalContext, String type)
     {
         // A null value will have been replaced with an empty array, so no need to check for that.
@@ -458,7 +569,7 @@ public class TransformStack
                 ? type+" InternalContext did not have the TransformOptions set correctly"
                 : levels(internalContext).size() == 1
                 ? type+" InternalContext levels were not set"
-                : !validLevels(levels(internalContext))
+                : !validLevels(internalContext)
                 ? type+" InternalContext did not have levels set correctly"
                 : null;
         return errorMessage;
@@ -490,12 +601,12 @@ public class TransformStack
         return true;
     }
 
-    private static boolean validLevels(List<String> levels)
+    private static boolean validLevels(InternalContext internalContext)
     {
-        for (int i=levels.size()-1; i >=TOP_STACK_LEVEL; i--)
+        for (int i=levels(internalContext).size()-1; i >=TOP_STACK_LEVEL; i--)
         {
-            String level = levels.get(i);
-            if (!validLevel(level))
+            Level level = parsedLevel(internalContext, i);
+            if (level == null || !level.isValid())
             {
                 return false;
             }
@@ -503,35 +614,6 @@ public class TransformStack
         return true;
     }
 
-    private static boolean validLevel(String level)
-    {
-        if (level == null)
-        {
-            return false;
-        }
-        String[] split = level.split(SEPARATOR_REGEX);
-        if (split.length   <  FIELDS_IN_HEADER+FIELDS_PER_STEP || // must be at least 1 step
-            (split.length-FIELDS_IN_HEADER)%FIELDS_PER_STEP != 0 ||
-            (!PIPELINE_FLAG.equals(split[FLAG_INDEX]) &&
-             !FAILOVER_FLAG.equals(split[FLAG_INDEX])) ||
-            !aValidReference(split[REFERENCE_INDEX]) ||
-            !aPositiveLong(split[START_INDEX]) ||
-            !aPositiveInt(split[RETRY_INDEX]))
-        {
-            return false;
-        }
-
-        for (int i=split.length-1; i>=FIELDS_IN_HEADER; i--)
-        {
-            if (split[i].isBlank())
-            {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     private static boolean aValidReference(String string)
     {
         string = string.startsWith("e") ? string.substring(1) : string;
@@ -110,7 +110,19 @@ public abstract class AbstractTransformRegistry implements TransformServiceRegis
         final String targetMimetype, final Map<String, String> actualOptions,
         final String renditionName)
     {
-        return retrieveTransformListBySize(getData(), sourceMimetype, targetMimetype, actualOptions,
+        return findTransformerName(getData(), sourceMimetype, sourceSizeInBytes, targetMimetype, actualOptions,
+            renditionName);
+    }
+
+    /**
+     * As {@link #findTransformerName(String, long, String, Map, String)} but uses the supplied data, so that sub
+     * classes which replace their data at run time may use the same data for related lookups.
+     */
+    protected String findTransformerName(final TransformCache data, final String sourceMimetype,
+        final long sourceSizeInBytes, final String targetMimetype, final Map<String, String> actualOptions,
+        final String renditionName)
+    {
+        return retrieveTransformListBySize(data, sourceMimetype, targetMimetype, actualOptions,
             renditionName)
             .stream()
             .filter(t -> t.getMaxSourceSizeBytes() == -1 ||
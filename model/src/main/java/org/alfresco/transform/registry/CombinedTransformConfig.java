@@ -44,6 +44,7 @@ import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toSet;
 import static org.alfresco.transform.config.CoreVersionDecorator.setCoreVersionOnMultiStepTransformers;
 
@@ -180,16 +181,31 @@ public class CombinedTransformConfig
         void process(Set<T> leftOver, T removeSupported);
     }
 
+    /**
+     * @return the combined transformers indexed by name, so each add, remove or override supported element does not
+     * need to walk all of them. There may be more than one transformer with a name until overrides are removed.
+     */
+    private Map<String, List<Transformer>> getTransformersByName(Set<?> tSet)
+    {
+        Map<String, List<Transformer>> transformersByName = new HashMap<>();
+        if (!tSet.isEmpty())
+        {
+            combinedTransformers.forEach(ct -> transformersByName
+                .computeIfAbsent(ct.get().getTransformerName(), name -> new ArrayList<>())
+                .add(ct.get()));
+        }
+        return transformersByName;
+    }
+
     private void removeSupported(Set<RemoveSupported> removeSupportedSet, String readFrom, AbstractTransformRegistry registry)
     {
+        Map<String, List<Transformer>> transformersByName = getTransformersByName(removeSupportedSet);
         processSupported(removeSupportedSet, readFrom, registry, "removeSupported",
                 (leftOver, removeSupported) ->
-                        combinedTransformers.stream()
-                        .map(Origin::get)
+                        transformersByName.getOrDefault(removeSupported.getTransformerName(), emptyList())
                         .forEach(transformer ->
                         {
-                            if (transformer.getTransformerName().equals(removeSupported.getTransformerName()) &&
-                                    transformer.getSupportedSourceAndTargetList().removeIf(supported ->
+                            if (transformer.getSupportedSourceAndTargetList().removeIf(supported ->
                                             supported.getSourceMediaType().equals(removeSupported.getSourceMediaType()) &&
                                             supported.getTargetMediaType().equals(removeSupported.getTargetMediaType())))
                             {
@@ -200,11 +216,10 @@ public class CombinedTransformConfig
 
     private void addSupported(Set<AddSupported> addSupportedSet, String readFrom, AbstractTransformRegistry registry)
     {
+        Map<String, List<Transformer>> transformersByName = getTransformersByName(addSupportedSet);
         processSupported(addSupportedSet, readFrom, registry, "addSupported",
                 (leftOver, addSupported) ->
-                        combinedTransformers.stream()
-                                .map(Origin::get)
-                                .filter(transformer -> transformer.getTransformerName().equals(addSupported.getTransformerName()))
+                        transformersByName.getOrDefault(addSupported.getTransformerName(), emptyList())
                                 .forEach(transformerWithName ->
                                 {
                                     Set<SupportedSourceAndTarget> supportedSourceAndTargetList =
@@ -227,11 +242,10 @@ public class CombinedTransformConfig
 
     private void overrideSupported(Set<OverrideSupported> overrideSupportedSet, String readFrom, AbstractTransformRegistry registry)
     {
+        Map<String, List<Transformer>> transformersByName = getTransformersByName(overrideSupportedSet);
         processSupported(overrideSupportedSet, readFrom, registry, "overrideSupported",
                 (leftOver, overrideSupported) ->
-                        combinedTransformers.stream().
-                                map(Origin::get).
-                                filter(transformer -> transformer.getTransformerName().equals(overrideSupported.getTransformerName())).
+                        transformersByName.getOrDefault(overrideSupported.getTransformerName(), emptyList()).
                                 forEach(transformerWithName ->
                                 {
                                     Set<SupportedSourceAndTarget> supportedSourceAndTargetList =
@@ -292,13 +306,17 @@ public class CombinedTransformConfig
     /**
      * Discards transformers that are invalid (e.g. transformers that have both pipeline and failover sections). Calls
      * {@link #removeInvalidTransformer(int, List, AbstractTransformRegistry, Origin, Transformer, String, String,
-     * boolean, boolean)} for each transform, so that individual invalid transforms or overridden
+     * boolean, boolean, boolean)} for each transform, so that individual invalid transforms or overridden
      * transforms may be discarded.
      *
      * @param registry that will hold the transforms.
      */
     private void removeInvalidTransformers(AbstractTransformRegistry registry)
     {
+        // Counts of each name, so the list only needs to be walked for names that are used more than once.
+        Map<String, Integer> nameCounts = new HashMap<>();
+        combinedTransformers.forEach(ct -> nameCounts.merge(ct.get().getTransformerName(), 1, Integer::sum));
+
         for (int i=0; i<combinedTransformers.size(); i++)
         {
             try
@@ -320,12 +338,12 @@ public class CombinedTransformConfig
 
                 // Remove transforms as they may override each other or be invalid
                 int indexToRemove = removeInvalidTransformer(i, combinedTransformers, registry, transformAndItsOrigin,
-                        transformer, name, readFrom, isPipeline, isFailover);
+                        transformer, name, readFrom, isPipeline, isFailover, nameCounts.get(name) > 1);
 
                 // Remove an overridden transform
                 if (indexToRemove >= 0)
                 {
-                    combinedTransformers.remove(indexToRemove);
+                    removeCombinedTransformer(indexToRemove, nameCounts);
                     // The current index i should be decremented so we don't skip one.
                     // Condition not really needed as IllegalArgumentException is thrown if the latest entry is removed.
                     if (i >= indexToRemove)
@@ -338,17 +356,23 @@ public class CombinedTransformConfig
             {
                 String msg = e.getMessage();
                 registry.logWarn(msg);
-                combinedTransformers.remove(i--);
+                removeCombinedTransformer(i--, nameCounts);
             }
             catch (IllegalArgumentException e)
             {
                 String msg = e.getMessage();
                 registry.logError(msg);
-                combinedTransformers.remove(i--);
+                removeCombinedTransformer(i--, nameCounts);
             }
         }
     }
 
+    private void removeCombinedTransformer(int index, Map<String, Integer> nameCounts)
+    {
+        Origin<Transformer> removed = combinedTransformers.remove(index);
+        nameCounts.computeIfPresent(removed.get().getTransformerName(), (name, count) -> count - 1);
+    }
+
     /**
      * Discards a transformer that is
      * 1) invalid:
@@ -373,6 +397,8 @@ public class CombinedTransformConfig
      * @param readFrom where the current transformer was read from.
      * @param isPipeline if the current transform is a pipeline.
      * @param isFailover if the current transform is a failover.
+     * @param isNameReused if there is more than one transformer with the current transformer's name, so an earlier
+     *                     one may be overridden.
      *
      * @return the index of a transform to be removed. {@code -1} is returned if there should not be a remove.
      * @throws IllegalArgumentException if the current transform has a problem and should be removed.
@@ -382,7 +408,8 @@ public class CombinedTransformConfig
     private int removeInvalidTransformer(int i, List<Origin<Transformer>> combinedTransformers,
                                          AbstractTransformRegistry registry,
                                          Origin<Transformer> transformAndItsOrigin, Transformer transformer,
-                                         String name, String readFrom, boolean isPipeline, boolean isFailover)
+                                         String name, String readFrom, boolean isPipeline, boolean isFailover,
+                                         boolean isNameReused)
     {
         int indexToRemove = -1;
 
@@ -422,7 +449,7 @@ public class CombinedTransformConfig
         boolean isOneStepTransform = !isPipeline && !isFailover && !isPassThroughTransform;
 
         // Check to see if the name has been used before.
-        int j = lastIndexOf(name, combinedTransformers, i);
+        int j = isNameReused ? lastIndexOf(name, combinedTransformers, i) : -1;
         if (j >= 0)
         {
             if (isTEngineTransform)
@@ -650,6 +677,7 @@ public class CombinedTransformConfig
     {
         Map<String, Transformer> transformers = new HashMap<>();
         combinedTransformers.forEach(ct -> transformers.put(ct.get().getTransformerName(), ct.get()));
+        Map<String, Set<Long>> supportedPairsByName = new HashMap<>();
 
         combinedTransformers.forEach(transformAndItsOrigin ->
         {
@@ -773,9 +801,7 @@ public class CombinedTransformConfig
                                 }
 
                                 // Check source to target is supported (it normally is)
-                                if (stepTransformer.getSupportedSourceAndTargetList().stream().
-                                        noneMatch(st -> st.getSourceMediaType().equals(src) &&
-                                                        st.getTargetMediaType().equals(stepTrg)))
+                                if (!isSupported(supportedPairsByName, stepTransformer, src, stepTrg))
                                 {
                                     errorReason = "the step transformer " +
                                             transformerName(stepTransformer.getTransformerName()) + " does not support \"" +
@@ -830,6 +856,8 @@ public class CombinedTransformConfig
             .map(Origin::get)
             .collect(Collectors.toMap(Transformer::getTransformerName, Function.identity()));
 
+        Map<String, Set<Long>> supportedPairsByName = new HashMap<>();
+
         for (int i=0; i<combinedTransformers.size(); i++)
         {
             try
@@ -860,9 +888,8 @@ public class CombinedTransformConfig
                                     ? supportedSourceAndTarget.getTargetMediaType()
                                     : step.getTargetMediaType();
 
-                                if (transformersByName.get(step.getTransformerName()).getSupportedSourceAndTargetList().stream()
-                                    .noneMatch(stepsSupportedSourceAndTarget -> source.equals(stepsSupportedSourceAndTarget.getSourceMediaType())
-                                                                             && target.equals(stepsSupportedSourceAndTarget.getTargetMediaType())))
+                                if (!isSupported(supportedPairsByName, transformersByName.get(step.getTransformerName()),
+                                    source, target))
                                 {
                                     unsupported.add(supportedSourceAndTarget.getSourceMediaType()+"->"+supportedSourceAndTarget.getTargetMediaType());
                                     break;
@@ -891,6 +918,27 @@ public class CombinedTransformConfig
         }
     }
 
+    /**
+     * Checks if a step transformer supports a source to target mimetype, using the interned source and target pairs
+     * of each step transformer, so each check is a set lookup rather than a walk of its supported list. The pairs are
+     * cached by name, so the step transformer's supported list must not change once it has been checked.
+     */
+    private static boolean isSupported(Map<String, Set<Long>> supportedPairsByName, Transformer stepTransformer,
+                                       String source, String target)
+    {
+        MimetypeIds mimetypeIds = MimetypeIds.getInstance();
+        Set<Long> supportedPairs = supportedPairsByName.computeIfAbsent(stepTransformer.getTransformerName(),
+            name -> stepTransformer.getSupportedSourceAndTargetList().stream()
+                .map(supported -> MimetypeIds.pair(
+                    mimetypeIds.intern(supported.getSourceMediaType()),
+                    mimetypeIds.intern(supported.getTargetMediaType())))
+                .collect(toSet()));
+        int sourceId = mimetypeIds.idOf(source);
+        int targetId = mimetypeIds.idOf(target);
+        return sourceId != MimetypeIds.UNKNOWN && targetId != MimetypeIds.UNKNOWN &&
+            supportedPairs.contains(MimetypeIds.pair(sourceId, targetId));
+    }
+
     private void setCoreVersionOnCombinedMultiStepTransformers()
     {
         setCoreVersionOnMultiStepTransformers(combinedTransformOptions, combinedTransformers.stream()
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.alfresco.transform.common.Mimetype;
+
+/**
+ * Interns mimetypes as dense int ids, so routing tables may be indexed by id rather than hashing strings at each
+ * level. Ids are never reused or removed, so they remain valid across registry refreshes. The dictionary is seeded
+ * from the well known {@link Mimetype} values and only grows as transform config introduces new mimetypes. Lookups
+ * made on behalf of transform requests use {@link #idOf} so unknown request mimetypes are not added.
+ */
+public final class MimetypeIds
+{
+    public static final int UNKNOWN = -1;
+
+    private static final MimetypeIds INSTANCE = new MimetypeIds(true);
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] mimetypes = new String[256];
+    private int size = 0;
+
+    MimetypeIds(boolean seed)
+    {
+        if (seed)
+        {
+            for (Field field : Mimetype.class.getFields())
+            {
+                if (field.getType() == String.class && Modifier.isStatic(field.getModifiers()))
+                {
+                    try
+                    {
+                        intern((String) field.get(null));
+                    }
+                    catch (IllegalAccessException ignore)
+                    {
+                    }
+                }
+            }
+        }
+    }
+
+    public static MimetypeIds getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the id of the mimetype, allocating a new one if it has not been seen before.
+     */
+    public int intern(String mimetype)
+    {
+        Integer id = ids.get(mimetype);
+        return id == null ? allocate(mimetype) : id;
+    }
+
+    private synchronized int allocate(String mimetype)
+    {
+        Integer id = ids.get(mimetype);
+        if (id == null)
+        {
+            id = size;
+            String[] current = mimetypes;
+            if (id == current.length)
+            {
+                String[] grown = new String[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            current[id] = mimetype;
+            mimetypes = current;
+            size++;
+            ids.put(mimetype, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the mimetype or {@link #UNKNOWN} if it has not been interned.
+     */
+    public int idOf(String mimetype)
+    {
+        if (mimetype == null)
+        {
+            return UNKNOWN;
+        }
+        Integer id = ids.get(mimetype);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @return the mimetype with the given id or {@code null} if the id has not been allocated.
+     */
+    public String mimetypeOf(int id)
+    {
+        String[] current = mimetypes;
+        return id < 0 || id >= current.length ? null : current[id];
+    }
+
+    public int size()
+    {
+        return ids.size();
+    }
+
+    /**
+     * @return a single value that identifies a source and target pair of mimetype ids.
+     */
+    public static long pair(int sourceId, int targetId)
+    {
+        return ((long) sourceId << 32) | (targetId & 0xFFFFFFFFL);
+    }
+}
@@ -33,6 +33,7 @@ public class SupportedTransform
     private final long maxSourceSizeBytes;
     private final String name;
     private final int priority;
+    private TransformOptionMatcher optionMatcher;
 
     SupportedTransform(String name, Set<TransformOption> transformOptions,
         long maxSourceSizeBytes, int priority)
@@ -65,6 +66,16 @@ public class SupportedTransform
         return priority;
     }
 
+    TransformOptionMatcher getOptionMatcher()
+    {
+        return optionMatcher;
+    }
+
+    void setOptionMatcher(TransformOptionMatcher optionMatcher)
+    {
+        this.optionMatcher = optionMatcher;
+    }
+
     @Override
     public boolean equals(Object o)
     {
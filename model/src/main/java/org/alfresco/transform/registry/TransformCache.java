@@ -44,6 +44,16 @@ public class TransformCache
     private final Map<String, Map<String, List<SupportedTransform>>> cachedSupportedTransformList =
         new ConcurrentHashMap<>();
 
+    // Caches the results of requests without a rendition name.
+    private TransformSelectionCache selectionCache = new TransformSelectionCache();
+
+    // Looks up the same supported transform routes as the transforms map above, but using interned mimetype ids.
+    // Built on first use after the transforms have been appended.
+    private volatile TransformRoutes routes;
+
+    // Interns the names of the transform options of the transforms, so they may be matched using bitsets.
+    private final TransformOptionMatcher.OptionNames optionNames = new TransformOptionMatcher.OptionNames();
+
     protected int transformerCount = 0;
     protected int transformCount = 0;
 
@@ -56,10 +66,13 @@ public class TransformCache
                                 final String targetMimetype, final SupportedTransform transform,
                                 String transformerName, String coreVersion)
     {
+        transform.setOptionMatcher(TransformOptionMatcher.compile(transform.getTransformOptions(), optionNames));
+        selectionCache.clear();
         transforms
             .computeIfAbsent(sourceMimetype, k -> new ConcurrentHashMap<>())
             .computeIfAbsent(targetMimetype, k -> new ArrayList<>())
             .add(transform);
+        invalidateRoutes();
         coreVersions.put(transformerName, coreVersion == null ? "" : coreVersion);
         transformCount++;
     }
@@ -69,6 +82,49 @@ public class TransformCache
         return transforms.getOrDefault(sourceMimetype, emptyMap());
     }
 
+    /**
+     * @return the supported transforms from the source to the target mimetype, or an empty array. The array must
+     * not be modified.
+     */
+    SupportedTransform[] retrieveTransforms(final String sourceMimetype, final String targetMimetype)
+    {
+        TransformRoutes current = routes;
+        if (current == null)
+        {
+            current = buildRoutes();
+        }
+        return current.candidates(sourceMimetype, targetMimetype);
+    }
+
+    private synchronized TransformRoutes buildRoutes()
+    {
+        if (routes == null)
+        {
+            routes = TransformRoutes.build(MimetypeIds.getInstance(), transforms);
+        }
+        return routes;
+    }
+
+    private synchronized void invalidateRoutes()
+    {
+        routes = null;
+    }
+
+    public TransformSelectionCache getSelectionCache()
+    {
+        return selectionCache;
+    }
+
+    public void setSelectionCache(TransformSelectionCache selectionCache)
+    {
+        this.selectionCache = selectionCache;
+    }
+
+    TransformOptionMatcher.OptionNames getOptionNames()
+    {
+        return optionNames;
+    }
+
     public Map<String, Map<String, List<SupportedTransform>>> getTransforms()
     {
         return transforms;
@@ -0,0 +1,260 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import org.alfresco.transform.config.TransformOption;
+import org.alfresco.transform.config.TransformOptionGroup;
+import org.alfresco.transform.config.TransformOptionValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled form of the {@link TransformOptionGroup} tree of a {@link SupportedTransform}, created when it is added
+ * to a {@link TransformCache}. Option names are replaced by ids from the cache's {@link OptionNames}, so a transform
+ * can be matched against the actual options of a request using bitsets, rather than by building a map of possible
+ * options for each candidate transform.<p>
+ *
+ * Gives the same result as {@link TransformRegistryHelper#addToPossibleTransformOptions} followed by
+ * {@link TransformRegistryHelper#optionsMatch}.
+ */
+final class TransformOptionMatcher
+{
+    // Stands in for a missing option name, which can never be supplied, as ConcurrentHashMap keys may not be null.
+    private static final String NULL_NAME = "\u0000";
+
+    /**
+     * Interns option names as small integer ids.
+     */
+    static final class OptionNames
+    {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        private synchronized int intern(String name)
+        {
+            return ids.computeIfAbsent(name, k -> ids.size());
+        }
+
+        int size()
+        {
+            return ids.size();
+        }
+
+        /**
+         * @return a bitset of the ids of the supplied names, or {@code null} if any of them is unknown, in which case
+         * no transform may match them.
+         */
+        long[] toBitSet(Set<String> names)
+        {
+            final long[] bits = new long[words(size())];
+            for (String name : names)
+            {
+                final Integer id = ids.get(name);
+                if (id == null || id >= bits.length * 64)
+                {
+                    return null;
+                }
+                set(bits, id);
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * Holds the bitsets used while matching the transforms of a single request, so they are only allocated once.
+     */
+    static final class Scratch
+    {
+        private final long[] actual;
+        private final long[] possible;
+        private final long[] required;
+
+        Scratch(long[] actual)
+        {
+            this.actual = actual;
+            this.possible = new long[actual.length];
+            this.required = new long[actual.length];
+        }
+    }
+
+    private static final class Group
+    {
+        private final boolean empty;
+        private final boolean required;
+        private final long[] values;
+        private final long[] requiredValues;
+        private final boolean hasValues;
+        private final Group[] subGroups;
+
+        private Group(TransformOptionGroup transformOptionGroup, OptionNames optionNames)
+        {
+            final Set<TransformOption> optionList = transformOptionGroup.getTransformOptions();
+            empty = optionList == null || optionList.isEmpty();
+            required = transformOptionGroup.isRequired();
+
+            // Iterate in the same order as the tree walk, so the last required flag for a name wins, as it does there.
+            final Map<Integer, Boolean> valueIds = new LinkedHashMap<>();
+            final List<Group> groups = new ArrayList<>();
+            if (!empty)
+            {
+                for (TransformOption transformOption : optionList)
+                {
+                    if (transformOption instanceof TransformOptionGroup)
+                    {
+                        groups.add(new Group((TransformOptionGroup) transformOption, optionNames));
+                    }
+                    else
+                    {
+                        final TransformOptionValue option = (TransformOptionValue) transformOption;
+                        final String name = option.getName() == null ? NULL_NAME : option.getName();
+                        valueIds.put(optionNames.intern(name), option.isRequired());
+                    }
+                }
+            }
+
+            final int maxId = valueIds.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+            values = new long[words(maxId + 1)];
+            requiredValues = new long[values.length];
+            valueIds.forEach((id, isRequired) ->
+            {
+                set(values, id);
+                if (isRequired)
+                {
+                    set(requiredValues, id);
+                }
+            });
+            hasValues = !valueIds.isEmpty();
+            subGroups = groups.toArray(new Group[0]);
+        }
+
+        /**
+         * Adds the ids of possible options to scratch.possible and scratch.required.
+         *
+         * @return true if any options were added.
+         */
+        private boolean add(boolean parentGroupRequired, Scratch scratch)
+        {
+            if (empty)
+            {
+                return false;
+            }
+
+            boolean added = false;
+            boolean anyRequired = false;
+            final boolean groupRequired = required && parentGroupRequired;
+            for (Group subGroup : subGroups)
+            {
+                added = subGroup.add(groupRequired, scratch);
+                anyRequired |= added;
+            }
+            anyRequired |= intersects(values, scratch.actual);
+
+            if ((anyRequired || groupRequired) && hasValues)
+            {
+                added = true;
+                for (int i = 0; i < values.length; i++)
+                {
+                    scratch.possible[i] |= values[i];
+                    scratch.required[i] = (scratch.required[i] & ~values[i]) | requiredValues[i];
+                }
+            }
+            return added;
+        }
+    }
+
+    private final OptionNames optionNames;
+    private final Group root;
+
+    private TransformOptionMatcher(OptionNames optionNames, Group root)
+    {
+        this.optionNames = optionNames;
+        this.root = root;
+    }
+
+    static TransformOptionMatcher compile(TransformOptionGroup transformOptions, OptionNames optionNames)
+    {
+        return new TransformOptionMatcher(optionNames, new Group(transformOptions, optionNames));
+    }
+
+    /**
+     * @return true if the ids used by this matcher came from the supplied names, as a transform may have been added
+     * to more than one cache.
+     */
+    boolean isCompiledWith(OptionNames optionNames)
+    {
+        return this.optionNames == optionNames;
+    }
+
+    /**
+     * @return true if the actual options in the scratch bitsets are supported.
+     */
+    boolean matches(Scratch scratch)
+    {
+        Arrays.fill(scratch.possible, 0);
+        Arrays.fill(scratch.required, 0);
+        root.add(true, scratch);
+
+        for (int i = 0; i < scratch.actual.length; i++)
+        {
+            // All required options are supplied and there are no extra actual options
+            if ((scratch.required[i] & ~scratch.actual[i]) != 0 ||
+                (scratch.actual[i] & ~scratch.possible[i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int words(int bits)
+    {
+        return (bits + 63) >>> 6;
+    }
+
+    private static void set(long[] bits, int id)
+    {
+        bits[id >>> 6] |= 1L << id;
+    }
+
+    private static boolean intersects(long[] a, long[] b)
+    {
+        final int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++)
+        {
+            if ((a[i] & b[i]) != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
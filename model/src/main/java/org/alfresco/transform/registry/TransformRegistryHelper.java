@@ -34,7 +34,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
-import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Map.Entry;
@@ -107,6 +106,18 @@ class TransformRegistryHelper
             actualOptions.remove(TIMEOUT);
         }
 
+        // Without a rendition name, the selection is cached on the option names, as it does not depend on their values.
+        final boolean useSelectionCache = renditionName == null && sourceMimetype != null && targetMimetype != null;
+        if (useSelectionCache)
+        {
+            final List<SupportedTransform> selectedTransformList = data.getSelectionCache()
+                .get(sourceMimetype, targetMimetype, actualOptions.keySet());
+            if (selectedTransformList != null)
+            {
+                return selectedTransformList;
+            }
+        }
+
         final List<SupportedTransform> builtTransformList = buildTransformList(data,
             sourceMimetype,
             targetMimetype,
@@ -116,6 +127,10 @@ class TransformRegistryHelper
         {
             data.cache(renditionName, sourceMimetype, builtTransformList);
         }
+        else if (useSelectionCache)
+        {
+            data.getSelectionCache().put(sourceMimetype, targetMimetype, actualOptions.keySet(), builtTransformList);
+        }
 
         return builtTransformList;
     }
@@ -134,16 +149,29 @@ class TransformRegistryHelper
           throw new TransformException(BAD_REQUEST, "Null value provided for targetMimetype, please provide a value");
         }
 
-        final Map<String, List<SupportedTransform>> targetMap = data.retrieveTransforms(sourceMimetype);
-        final List<SupportedTransform> supportedTransformList = targetMap.getOrDefault(targetMimetype, emptyList());
+        final SupportedTransform[] supportedTransforms = data.retrieveTransforms(sourceMimetype, targetMimetype);
         final List<SupportedTransform> transformListBySize = new ArrayList<>();
+        if (supportedTransforms.length == 0)
+        {
+            return transformListBySize;
+        }
+
+        // If an actual option is unknown to all the transforms of the cache, none of them can match.
+        final TransformOptionMatcher.OptionNames optionNames = data.getOptionNames();
+        final long[] actualOptionIds = optionNames.toBitSet(actualOptions.keySet());
+        final TransformOptionMatcher.Scratch scratch = actualOptionIds == null
+            ? null
+            : new TransformOptionMatcher.Scratch(actualOptionIds);
 
-        for (SupportedTransform supportedTransform : supportedTransformList)
+        for (SupportedTransform supportedTransform : supportedTransforms)
         {
-            final Map<String, Boolean> possibleTransformOptions = gatherPossibleTransformOptions(
-                supportedTransform.getTransformOptions(), actualOptions);
+            final TransformOptionMatcher optionMatcher = supportedTransform.getOptionMatcher();
+            final boolean matches = optionMatcher == null || !optionMatcher.isCompiledWith(optionNames)
+                ? optionsMatch(gatherPossibleTransformOptions(supportedTransform.getTransformOptions(), actualOptions),
+                    actualOptions)
+                : scratch != null && optionMatcher.matches(scratch);
 
-            if (optionsMatch(possibleTransformOptions, actualOptions))
+            if (matches)
             {
                 addToSupportedTransformList(transformListBySize, supportedTransform);
             }
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable two level routing table of the supported transforms of a {@link TransformCache}, indexed by interned
+ * {@link MimetypeIds}. The first level is an array indexed by source id. The second level holds the target ids of a
+ * source in ascending order, with the candidate transforms of each in a parallel array, so a lookup is an array index
+ * and a binary search rather than two string keyed hash lookups.
+ */
+final class TransformRoutes
+{
+    private static final SupportedTransform[] NONE = new SupportedTransform[0];
+
+    private static final class Targets
+    {
+        private final int[] targetIds;
+        private final SupportedTransform[][] candidates;
+
+        private Targets(int[] targetIds, SupportedTransform[][] candidates)
+        {
+            this.targetIds = targetIds;
+            this.candidates = candidates;
+        }
+    }
+
+    private final MimetypeIds mimetypeIds;
+    private final Targets[] bySource;
+
+    private TransformRoutes(MimetypeIds mimetypeIds, Targets[] bySource)
+    {
+        this.mimetypeIds = mimetypeIds;
+        this.bySource = bySource;
+    }
+
+    static TransformRoutes build(MimetypeIds mimetypeIds, Map<String, Map<String, List<SupportedTransform>>> transforms)
+    {
+        int[] sourceIds = new int[transforms.size()];
+        Targets[] targets = new Targets[transforms.size()];
+        int maxSourceId = -1;
+        int s = 0;
+        for (Map.Entry<String, Map<String, List<SupportedTransform>>> sourceEntry : transforms.entrySet())
+        {
+            Map<String, List<SupportedTransform>> targetMap = sourceEntry.getValue();
+            long[] sorted = new long[targetMap.size()];
+            SupportedTransform[][] unsorted = new SupportedTransform[targetMap.size()][];
+            int t = 0;
+            for (Map.Entry<String, List<SupportedTransform>> targetEntry : targetMap.entrySet())
+            {
+                // Sort on the target id while remembering the original position in the low bits.
+                sorted[t] = ((long) mimetypeIds.intern(targetEntry.getKey()) << 32) | t;
+                unsorted[t] = targetEntry.getValue().toArray(NONE);
+                t++;
+            }
+            Arrays.sort(sorted, 0, t);
+            int[] targetIds = new int[t];
+            SupportedTransform[][] candidates = new SupportedTransform[t][];
+            for (int i = 0; i < t; i++)
+            {
+                targetIds[i] = (int) (sorted[i] >>> 32);
+                candidates[i] = unsorted[(int) sorted[i]];
+            }
+
+            int sourceId = mimetypeIds.intern(sourceEntry.getKey());
+            maxSourceId = Math.max(maxSourceId, sourceId);
+            sourceIds[s] = sourceId;
+            targets[s] = new Targets(targetIds, candidates);
+            s++;
+        }
+
+        Targets[] bySource = new Targets[maxSourceId + 1];
+        for (int i = 0; i < s; i++)
+        {
+            bySource[sourceIds[i]] = targets[i];
+        }
+        return new TransformRoutes(mimetypeIds, bySource);
+    }
+
+    /**
+     * @return the candidate transforms from the source to the target mimetype, in the order they were added. The
+     * array must not be modified.
+     */
+    SupportedTransform[] candidates(String sourceMimetype, String targetMimetype)
+    {
+        int sourceId = mimetypeIds.idOf(sourceMimetype);
+        if (sourceId < 0 || sourceId >= bySource.length || bySource[sourceId] == null)
+        {
+            return NONE;
+        }
+        int targetId = mimetypeIds.idOf(targetMimetype);
+        if (targetId < 0)
+        {
+            return NONE;
+        }
+        Targets targets = bySource[sourceId];
+        int i = Arrays.binarySearch(targets.targetIds, targetId);
+        return i < 0 ? NONE : targets.candidates[i];
+    }
+}
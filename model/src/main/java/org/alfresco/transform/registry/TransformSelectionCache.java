@@ -0,0 +1,213 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the transforms selected by {@link TransformRegistryHelper#retrieveTransformListBySize} when no rendition
+ * name is supplied, keyed on the source and target mimetypes and the names of the actual options (the selection does
+ * not depend on option values).<p>
+ *
+ * The cache is bounded. When full, entries are evicted using the second chance (clock) approximation of least
+ * recently used, so lookups do not take a lock. As each {@link TransformCache} has its own selection cache, it is
+ * discarded along with the rest of the data when a registry is refreshed. {@link Statistics} may be shared by
+ * successive caches so hit and miss counts are not lost.
+ */
+public class TransformSelectionCache
+{
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    public static class Statistics
+    {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHitCount()
+        {
+            return hits.sum();
+        }
+
+        public long getMissCount()
+        {
+            return misses.sum();
+        }
+
+        public long getEvictionCount()
+        {
+            return evictions.sum();
+        }
+    }
+
+    private static final class Key
+    {
+        private final String sourceMimetype;
+        private final String targetMimetype;
+        private final Set<String> optionNames;
+
+        private Key(String sourceMimetype, String targetMimetype, Set<String> optionNames)
+        {
+            this.sourceMimetype = sourceMimetype;
+            this.targetMimetype = targetMimetype;
+            this.optionNames = optionNames;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return sourceMimetype.equals(that.sourceMimetype) &&
+                   targetMimetype.equals(that.targetMimetype) &&
+                   optionNames.equals(that.optionNames);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sourceMimetype, targetMimetype, optionNames);
+        }
+    }
+
+    private static final class Entry
+    {
+        private final List<SupportedTransform> transforms;
+        private volatile boolean referenced;
+
+        private Entry(List<SupportedTransform> transforms)
+        {
+            this.transforms = transforms;
+        }
+    }
+
+    private final int maxSize;
+    private final Statistics statistics;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Key> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    public TransformSelectionCache()
+    {
+        this(DEFAULT_MAX_SIZE, new Statistics());
+    }
+
+    /**
+     * @param maxSize the maximum number of entries. Zero disables the cache.
+     * @param statistics to be updated by this cache.
+     */
+    public TransformSelectionCache(int maxSize, Statistics statistics)
+    {
+        this.maxSize = maxSize;
+        this.statistics = statistics;
+    }
+
+    public Statistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Discards all entries, such as when another transform is added.
+     */
+    public void clear()
+    {
+        entries.clear();
+        evictionQueue.clear();
+    }
+
+    List<SupportedTransform> get(String sourceMimetype, String targetMimetype, Set<String> optionNames)
+    {
+        if (maxSize <= 0)
+        {
+            return null;
+        }
+        final Entry entry = entries.get(new Key(sourceMimetype, targetMimetype, optionNames));
+        if (entry == null)
+        {
+            statistics.misses.increment();
+            return null;
+        }
+        if (!entry.referenced)
+        {
+            entry.referenced = true;
+        }
+        statistics.hits.increment();
+        return entry.transforms;
+    }
+
+    void put(String sourceMimetype, String targetMimetype, Set<String> optionNames,
+        List<SupportedTransform> transforms)
+    {
+        if (maxSize <= 0)
+        {
+            return;
+        }
+        final Key key = new Key(sourceMimetype, targetMimetype, new HashSet<>(optionNames));
+        if (entries.putIfAbsent(key, new Entry(transforms)) == null)
+        {
+            evictionQueue.add(key);
+            evictIfFull();
+        }
+    }
+
+    // Entries that have been used since they were last considered are given a second chance.
+    private void evictIfFull()
+    {
+        while (entries.size() > maxSize)
+        {
+            final Key key = evictionQueue.poll();
+            if (key == null)
+            {
+                break;
+            }
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.referenced)
+            {
+                entry.referenced = false;
+                evictionQueue.add(key);
+            }
+            else if (entry != null && entries.remove(key, entry))
+            {
+                statistics.evictions.increment();
+            }
+        }
+    }
+}
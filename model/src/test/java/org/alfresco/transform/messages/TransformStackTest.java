@@ -44,6 +44,7 @@ import static org.alfresco.transform.messages.TransformStack.TOP_STACK_LEVEL;
 import static org.alfresco.transform.messages.TransformStack.getInitialSourceReference;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 
@@ -419,6 +420,51 @@ class TransformStackTest
         Assertions.assertEquals(7, transformStepCount);
     }
 
+    @Test
+    // Tests a deep stack of nested pipelines, each made up of a nested pipeline followed by a single step.
+    public void testDeepStack()
+    {
+        int depth = 200;
+        TransformStack.addTransformLevel(internalContext, TransformStack.levelBuilder(TransformStack.PIPELINE_FLAG)
+            .withStep("nest1", "type1", "typeN"));
+        int transformStepCount = 0;
+        int maxReferenceParts = 0;
+        do
+        {
+            transformStepCount++;
+            String transformerName = TransformStack.currentStep(internalContext).getTransformerName();
+            maxReferenceParts = Math.max(maxReferenceParts,
+                TransformStack.getReference(internalContext).split("\\.").length);
+            if (transformerName.startsWith("nest"))
+            {
+                int level = Integer.parseInt(transformerName.substring(4));
+                TransformStack.addTransformLevel(internalContext, TransformStack.levelBuilder(TransformStack.PIPELINE_FLAG)
+                    .withStep(level < depth ? "nest" + (level + 1) : "leaf", "type1", "type2")
+                    .withStep("leaf", "type2", "typeN"));
+                assertNull(TransformStack.checkStructure(internalContext, "T-Request"));
+            }
+            else
+            {
+                TransformStack.removeSuccessfulStep(reply, transformerDebug);
+            }
+        } while (!TransformStack.isFinished(internalContext));
+
+        assertEquals(2 * depth + 1, transformStepCount);
+        assertEquals(depth + 1, maxReferenceParts);
+        assertEquals(TOP_STACK_LEVEL + 1, internalContext.getMultiStep().getTransformsToBeDone().size());
+    }
+
+    @Test
+    public void testLevelReplacedOutsideTransformStack()
+    {
+        TransformStack.addTransformLevel(internalContext, TEST_LEVELS.get("pipeline 2-3"));
+        assertEquals("transform2-4", TransformStack.currentStep(internalContext).getTransformerName());
+
+        internalContext.getMultiStep().getTransformsToBeDone().set(TOP_STACK_LEVEL, TEST_LEVELS.get("failover 3-N").build());
+        assertEquals("transform3-Na", TransformStack.currentStep(internalContext).getTransformerName());
+        assertTrue(TransformStack.isParentAFailover(internalContext));
+    }
+
     @Test
     public void testCheckStructureNoOptions()
     {
@@ -25,6 +25,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import org.alfresco.transform.config.OverrideSupported;
+import org.alfresco.transform.config.RemoveSupported;
 import org.alfresco.transform.config.SupportedSourceAndTarget;
 import org.alfresco.transform.config.TransformConfig;
 import org.alfresco.transform.config.TransformStep;
@@ -32,6 +34,9 @@ import org.alfresco.transform.config.Transformer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -41,6 +46,7 @@ import static java.util.Collections.emptySet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
 
 /**
  * Test the CombinedTransformConfig, extended by both T-Router and ACS repository.
@@ -1129,4 +1135,78 @@ public class CombinedTransformConfigTest
         assertEquals("Transformer names may not be null. Read from readFromB", registry.errorMessages.get(0));
         assertEquals(0, combinedTransformConfig.getTransformers().size());
     }
+
+    private static SupportedSourceAndTarget supported(String source, String target)
+    {
+        return SupportedSourceAndTarget.builder()
+            .withSourceMediaType(source)
+            .withTargetMediaType(target)
+            .build();
+    }
+
+    // A synthetic config of a size that would expose any combine step that is quadratic in the number of transformers.
+    @Test
+    public void testLargeConfig()
+    {
+        int transformerCount = 2000;
+        int wildcardPipelineCount = 1000;
+        int pipelineCount = 500;
+        List<Transformer> transformers = new ArrayList<>();
+        for (int i = 0; i < transformerCount; i++)
+        {
+            transformers.add(Transformer.builder().withTransformerName("t" + i)
+                .withSupportedSourceAndTargetList(new HashSet<>(Set.of(
+                    supported("mimetype/s" + i, "mimetype/m" + i),
+                    supported("mimetype/m" + i, "mimetype/t" + i))))
+                .build());
+        }
+        for (int i = 0; i < wildcardPipelineCount; i++)
+        {
+            transformers.add(Transformer.builder().withTransformerName("w" + i)
+                .withTransformerPipeline(List.of(
+                    new TransformStep("t" + i, "mimetype/m" + i),
+                    new TransformStep("t" + i, null)))
+                .build());
+        }
+        for (int i = 0; i < pipelineCount; i++)
+        {
+            transformers.add(Transformer.builder().withTransformerName("p" + i)
+                .withTransformerPipeline(List.of(
+                    new TransformStep("t" + i, "mimetype/m" + i),
+                    new TransformStep("t" + i, null)))
+                .withSupportedSourceAndTargetList(new HashSet<>(Set.of(supported("mimetype/s" + i, "mimetype/t" + i))))
+                .build());
+        }
+
+        Set<OverrideSupported> overrideSupported = new HashSet<>();
+        Set<RemoveSupported> removeSupported = new HashSet<>();
+        for (int i = transformerCount / 2; i < transformerCount; i++)
+        {
+            overrideSupported.add(OverrideSupported.builder().withTransformerName("t" + i)
+                .withSourceMediaType("mimetype/s" + i).withTargetMediaType("mimetype/m" + i)
+                .withPriority(10).build());
+            removeSupported.add(RemoveSupported.builder().withTransformerName("t" + i)
+                .withSourceMediaType("mimetype/m" + i).withTargetMediaType("mimetype/t" + i)
+                .build());
+        }
+
+        assertTimeout(Duration.ofSeconds(30), () ->
+        {
+            config.addTransformConfig(TransformConfig.builder().withTransformers(transformers).build(),
+                READ_FROM_B, BASE_URL_B, registry);
+            config.addTransformConfig(TransformConfig.builder()
+                    .withOverrideSupported(overrideSupported)
+                    .withRemoveSupported(removeSupported)
+                    .build(),
+                READ_FROM_A, null, registry);
+            config.combineTransformerConfig(registry);
+            config.registerCombinedTransformers(registry);
+        });
+
+        assertEquals(emptyList(), registry.errorMessages);
+        assertEquals(emptyList(), registry.warnMessages);
+        assertEquals(transformerCount + wildcardPipelineCount + pipelineCount, registry.registeredCount);
+        assertEquals(2, registry.getData().retrieveTransforms("mimetype/s1", "mimetype/t1").length);
+        assertEquals(0, registry.getData().retrieveTransforms("mimetype/m1999", "mimetype/t1999").length);
+    }
 }
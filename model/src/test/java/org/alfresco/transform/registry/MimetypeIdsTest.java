@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Collections.emptySet;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_PDF;
+import static org.alfresco.transform.common.Mimetype.MIMETYPE_TEXT_PLAIN;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MimetypeIdsTest
+{
+    @Test
+    public void testIdsAreDenseAndStable()
+    {
+        MimetypeIds ids = new MimetypeIds(false);
+        assertEquals(0, ids.intern("a/a"));
+        assertEquals(1, ids.intern("b/b"));
+        assertEquals(0, ids.intern("a/a"));
+        assertEquals(2, ids.size());
+        assertEquals("b/b", ids.mimetypeOf(1));
+        assertNull(ids.mimetypeOf(2));
+    }
+
+    @Test
+    public void testIdOfDoesNotIntern()
+    {
+        MimetypeIds ids = new MimetypeIds(false);
+        assertEquals(MimetypeIds.UNKNOWN, ids.idOf("a/a"));
+        assertEquals(MimetypeIds.UNKNOWN, ids.idOf(null));
+        assertEquals(0, ids.size());
+    }
+
+    @Test
+    public void testSeededFromMimetype()
+    {
+        MimetypeIds ids = MimetypeIds.getInstance();
+        assertNotEquals(MimetypeIds.UNKNOWN, ids.idOf(MIMETYPE_PDF));
+        assertNotEquals(MimetypeIds.UNKNOWN, ids.idOf(MIMETYPE_TEXT_PLAIN));
+    }
+
+    @Test
+    public void testGrowsBeyondInitialCapacity()
+    {
+        MimetypeIds ids = new MimetypeIds(false);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, ids.intern("x/" + i));
+        }
+        assertEquals("x/999", ids.mimetypeOf(999));
+    }
+
+    @Test
+    public void testRoutesMatchTheTransformsMap()
+    {
+        TransformCache data = new TransformCache();
+        SupportedTransform a = new SupportedTransform("a", emptySet(), -1, 50);
+        SupportedTransform b = new SupportedTransform("b", emptySet(), -1, 50);
+        SupportedTransform c = new SupportedTransform("c", emptySet(), -1, 50);
+        data.appendTransform(MIMETYPE_TEXT_PLAIN, MIMETYPE_PDF, a, "a", null);
+        data.appendTransform(MIMETYPE_TEXT_PLAIN, "new/target", b, "b", null);
+
+        assertArrayEquals(new SupportedTransform[]{a}, data.retrieveTransforms(MIMETYPE_TEXT_PLAIN, MIMETYPE_PDF));
+        assertArrayEquals(new SupportedTransform[]{b}, data.retrieveTransforms(MIMETYPE_TEXT_PLAIN, "new/target"));
+        assertEquals(0, data.retrieveTransforms(MIMETYPE_PDF, MIMETYPE_TEXT_PLAIN).length);
+        assertEquals(0, data.retrieveTransforms("never/seen", MIMETYPE_PDF).length);
+        assertEquals(0, data.retrieveTransforms(MIMETYPE_TEXT_PLAIN, "never/seen").length);
+
+        // Appending after a lookup rebuilds the routes
+        data.appendTransform(MIMETYPE_TEXT_PLAIN, MIMETYPE_PDF, c, "c", null);
+        assertArrayEquals(new SupportedTransform[]{a, c}, data.retrieveTransforms(MIMETYPE_TEXT_PLAIN, MIMETYPE_PDF));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import org.alfresco.transform.config.TransformOption;
+import org.alfresco.transform.config.TransformOptionGroup;
+import org.alfresco.transform.config.TransformOptionValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Collections.emptyMap;
+import static org.alfresco.transform.registry.TransformRegistryHelper.addToPossibleTransformOptions;
+import static org.alfresco.transform.registry.TransformRegistryHelper.optionsMatch;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the compiled {@link TransformOptionMatcher} gives the same result as walking the
+ * {@link TransformOptionGroup} tree.
+ */
+public class TransformOptionMatcherTest
+{
+    private static final String[] NAMES = {"page", "width", "height", "resizeWidth", "resizeHeight", "timeout",
+        "startPage", "endPage", "thumbnail", "alphaRemove"};
+
+    private final Random random = new Random(42);
+
+    private TransformOptionGroup randomGroup(int depth)
+    {
+        Set<TransformOption> options = new HashSet<>();
+        int count = random.nextInt(5);
+        for (int i = 0; i < count; i++)
+        {
+            options.add(depth > 0 && random.nextInt(3) == 0
+                ? randomGroup(depth - 1)
+                : new TransformOptionValue(random.nextBoolean(), NAMES[random.nextInt(NAMES.length)]));
+        }
+        return new TransformOptionGroup(random.nextBoolean(), options);
+    }
+
+    private Map<String, String> randomActualOptions()
+    {
+        Map<String, String> actualOptions = new HashMap<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++)
+        {
+            actualOptions.put(NAMES[random.nextInt(NAMES.length)], "1");
+        }
+        return actualOptions;
+    }
+
+    private static boolean treeWalkMatches(TransformOptionGroup group, Map<String, String> actualOptions)
+    {
+        Map<String, Boolean> possibleTransformOptions = new HashMap<>();
+        addToPossibleTransformOptions(possibleTransformOptions, group, true, actualOptions);
+        return optionsMatch(possibleTransformOptions, actualOptions);
+    }
+
+    private static boolean compiledMatches(TransformOptionMatcher matcher,
+        TransformOptionMatcher.OptionNames optionNames, Map<String, String> actualOptions)
+    {
+        long[] actualOptionIds = optionNames.toBitSet(actualOptions.keySet());
+        return actualOptionIds != null && matcher.matches(new TransformOptionMatcher.Scratch(actualOptionIds));
+    }
+
+    @Test
+    public void testSameResultAsTreeWalk()
+    {
+        int matched = 0;
+        for (int i = 0; i < 2000; i++)
+        {
+            TransformOptionMatcher.OptionNames optionNames = new TransformOptionMatcher.OptionNames();
+            SupportedTransform supportedTransform = new SupportedTransform("t", randomGroup(3).getTransformOptions(),
+                -1, 50);
+            TransformOptionMatcher matcher =
+                TransformOptionMatcher.compile(supportedTransform.getTransformOptions(), optionNames);
+
+            for (int j = 0; j < 20; j++)
+            {
+                Map<String, String> actualOptions = randomActualOptions();
+                boolean expected = treeWalkMatches(supportedTransform.getTransformOptions(), actualOptions);
+                assertEquals(expected, compiledMatches(matcher, optionNames, actualOptions),
+                    supportedTransform.getTransformOptions() + " " + actualOptions.keySet());
+                matched += expected ? 1 : 0;
+            }
+        }
+        assertTrue(matched > 0);
+    }
+
+    @Test
+    public void testUnknownActualOption()
+    {
+        TransformOptionMatcher.OptionNames optionNames = new TransformOptionMatcher.OptionNames();
+        TransformOptionMatcher matcher = TransformOptionMatcher.compile(new TransformOptionGroup(true,
+            Set.of(new TransformOptionValue(false, "page"))), optionNames);
+
+        assertNull(optionNames.toBitSet(Set.of("unknown")));
+        assertTrue(compiledMatches(matcher, optionNames, Map.of("page", "1")));
+        assertTrue(compiledMatches(matcher, optionNames, emptyMap()));
+        assertFalse(compiledMatches(matcher, optionNames, Map.of("page", "1", "unknown", "2")));
+    }
+
+    @Test
+    public void testMoreThan64OptionNames()
+    {
+        TransformOptionMatcher.OptionNames optionNames = new TransformOptionMatcher.OptionNames();
+        Set<TransformOption> options = new HashSet<>();
+        for (int i = 0; i < 100; i++)
+        {
+            options.add(new TransformOptionValue(i == 99, "option" + i));
+        }
+        TransformOptionMatcher matcher =
+            TransformOptionMatcher.compile(new TransformOptionGroup(true, options), optionNames);
+
+        assertTrue(compiledMatches(matcher, optionNames, Map.of("option99", "1", "option70", "1")));
+        assertFalse(compiledMatches(matcher, optionNames, Map.of("option70", "1")));
+    }
+}
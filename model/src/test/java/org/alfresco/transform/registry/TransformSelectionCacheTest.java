@@ -0,0 +1,110 @@
+/*
+ * #%L
+ * Alfresco Transform Model
+ * %%
+ * Copyright (C) 2005 - 2026 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.transform.registry;
+
+import org.alfresco.transform.config.TransformOptionValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static org.alfresco.transform.common.RequestParamMap.SOURCE_ENCODING;
+import static org.alfresco.transform.registry.TransformRegistryHelper.retrieveTransformListBySize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TransformSelectionCacheTest
+{
+    private static final String TXT = "text/plain";
+    private static final String PDF = "application/pdf";
+
+    @Test
+    public void testSelectionIsCachedOnOptionNames()
+    {
+        TransformCache data = new TransformCache();
+        data.appendTransform(TXT, PDF, new SupportedTransform("textToPdf",
+            Set.of(new TransformOptionValue(false, "page"), new TransformOptionValue(false, "width")), -1, 50),
+            "textToPdf", null);
+        TransformSelectionCache.Statistics statistics = data.getSelectionCache().getStatistics();
+
+        List<SupportedTransform> first = retrieveTransformListBySize(data, TXT, PDF,
+            Map.of("page", "1", "width", "10"), null);
+        List<SupportedTransform> second = retrieveTransformListBySize(data, TXT, PDF,
+            Map.of("width", "20", "page", "2", SOURCE_ENCODING, "UTF-8"), null);
+
+        assertEquals(1, first.size());
+        assertSame(first, second);
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+
+        assertEquals(0, retrieveTransformListBySize(data, TXT, PDF, Map.of("height", "1"), null).size());
+        assertEquals(2, statistics.getMissCount());
+    }
+
+    @Test
+    public void testAddingATransformClearsTheCache()
+    {
+        TransformCache data = new TransformCache();
+        data.appendTransform(TXT, PDF, new SupportedTransform("a", emptySet(), 100, 50), "a", null);
+        assertEquals("a", retrieveTransformListBySize(data, TXT, PDF, null, null).get(0).getName());
+
+        data.appendTransform(TXT, PDF, new SupportedTransform("b", emptySet(), -1, 40), "b", null);
+        assertEquals("b", retrieveTransformListBySize(data, TXT, PDF, null, null).get(0).getName());
+    }
+
+    @Test
+    public void testRecentlyUsedEntriesAreKeptWhenFull()
+    {
+        TransformSelectionCache cache = new TransformSelectionCache(2, new TransformSelectionCache.Statistics());
+        List<SupportedTransform> transforms = List.of();
+        cache.put(TXT, PDF, Set.of("a"), transforms);
+        cache.put(TXT, PDF, Set.of("b"), transforms);
+        assertNotNull(cache.get(TXT, PDF, Set.of("a")));
+
+        cache.put(TXT, PDF, Set.of("c"), transforms);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(TXT, PDF, Set.of("a")));
+        assertNull(cache.get(TXT, PDF, Set.of("b")));
+        assertNotNull(cache.get(TXT, PDF, Set.of("c")));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void testZeroSizeDisablesTheCache()
+    {
+        TransformSelectionCache cache = new TransformSelectionCache(0, new TransformSelectionCache.Statistics());
+        cache.put(TXT, PDF, Set.of("a"), List.of());
+
+        assertNull(cache.get(TXT, PDF, Set.of("a")));
+        assertEquals(0, cache.size());
+    }
+}